@@ -0,0 +1,27 @@
+package de.qetz.chess;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import com.google.inject.Injector;
+
+import de.qetz.chess.scanning.ClassScanner;
+
+/**
+ * The startup of the game: the class scanning alone and the whole
+ * injector, which scans again for the event handlers.
+ */
+@State(Scope.Benchmark)
+public class BootstrapBenchmark {
+  private String packageName = Chess.class.getPackageName();
+
+  @Benchmark
+  public ClassScanner scanClasses() {
+    return ClassScanner.createInPackageRecursive(packageName);
+  }
+
+  @Benchmark
+  public Injector createInjector() {
+    return ChessBootstrap.createInjector();
+  }
+}
@@ -0,0 +1,74 @@
+package de.qetz.chess.book;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.Grid;
+
+@State(Scope.Thread)
+public class OpeningBookBenchmark {
+  private static final List<List<String>> GAMES = List.of(
+    List.of("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "e1g1"),
+    List.of("e2e4", "c7c5", "g1f3", "d7d6", "d2d4", "c5d4", "f3d4"),
+    List.of("d2d4", "d7d5", "c2c4", "e7e6", "b1c3", "g8f6", "c1g5"),
+    List.of("c2c4", "e7e5", "b1c3", "g8f6", "g2g3", "d7d5", "c4d5"));
+
+  private static final String UNKNOWN_MOVE = "a2a3";
+
+  private final MoveList moves = MoveList.create();
+  private Path file;
+  private OpeningBook book;
+  private Grid knownGrid;
+  private Grid unknownGrid;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = Files.createTempFile("book", ".bin");
+    var builder = OpeningBookBuilder.createWithMaxPlies(
+      OpeningBookBuilder.DEFAULT_MAX_PLIES);
+    GAMES.forEach(builder::addGame);
+    builder.write(file);
+    book = OpeningBook.open(file);
+    knownGrid = createGrid();
+    unknownGrid = createGrid();
+    unknownGrid.listAllPossibleMovesForCurrentTeam(moves);
+    for (int index = 0; index < moves.size(); index++) {
+      if (PackedMove.toNotation(moves.get(index)).equals(UNKNOWN_MOVE)) {
+        unknownGrid.makeMove(moves.get(index));
+        return;
+      }
+    }
+  }
+
+  private Grid createGrid() {
+    return DefaultChessGridFactory.newFactory()
+      .withDefaultGrid()
+      .createBitboardGrid();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public int findKnownMove() {
+    return book.findMove(knownGrid, moves);
+  }
+
+  @Benchmark
+  public int findUnknownMove() {
+    return book.findMove(unknownGrid, moves);
+  }
+}
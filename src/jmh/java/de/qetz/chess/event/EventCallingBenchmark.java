@@ -0,0 +1,46 @@
+package de.qetz.chess.event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import com.google.inject.Guice;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import de.qetz.chess.game.finished.GameFinishedNotification;
+import de.qetz.chess.event.concrete.GameFinishedTrigger;
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.ChessInjectModule;
+import de.qetz.chess.Chess;
+
+@State(Scope.Thread)
+public class EventCallingBenchmark {
+  private GameFinishedTrigger event;
+  private Logger notificationLogger;
+
+  @Setup
+  public void injectEventCalling() {
+    var chess = Chess.newBuilder()
+      .withGrid(DefaultChessGridFactory.newFactory()
+        .withDefaultGrid()
+        .createGrid())
+      .withGameState(Chess.GameState.RUNNING)
+      .createChess();
+    Guice.createInjector(ChessInjectModule.createOf(chess),
+      EventInjectModule.createInjectModule());
+    // Keeps the console output of the handler out of the measurement
+    notificationLogger = Logger.getLogger(
+      GameFinishedNotification.class.getSimpleName());
+    notificationLogger.setLevel(Level.WARNING);
+    event = GameFinishedTrigger.createWith(
+      GameFinishedTrigger.GameFinishedReason.DRAW,
+      GameFinishedTrigger.GameWinner.NOBODY);
+  }
+
+  @Benchmark
+  public void callEvent() {
+    EventCalling.callEvent(event);
+  }
+}
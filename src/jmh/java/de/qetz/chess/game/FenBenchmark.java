@@ -0,0 +1,43 @@
+package de.qetz.chess.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Param;
+
+import de.qetz.chess.perft.PerftPosition;
+
+/**
+ * Loads the reference positions from FEN into a reused factory, so one
+ * operation per second is one position per second.
+ */
+@State(Scope.Thread)
+public class FenBenchmark {
+  @Param
+  private PerftPosition position;
+
+  private final DefaultChessGridFactory factory =
+    DefaultChessGridFactory.newFactory();
+  private Grid grid;
+
+  @Setup
+  public void createGrid() {
+    grid = factory.withFen(position.fen()).createBitboardGrid();
+  }
+
+  @Benchmark
+  public DefaultChessGridFactory parseFen() {
+    return factory.withFen(position.fen());
+  }
+
+  @Benchmark
+  public Grid loadBitboardGrid() {
+    return factory.withFen(position.fen()).createBitboardGrid();
+  }
+
+  @Benchmark
+  public String writeFen() {
+    return grid.toFen();
+  }
+}
@@ -0,0 +1,98 @@
+package de.qetz.chess.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import com.google.common.collect.Lists;
+import com.google.common.base.Splitter;
+
+import java.util.List;
+
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.position.Move;
+
+/**
+ * Replays recorded games with executeMove, which calculates the moves of
+ * the next team after every move. None of the games is finished, so no
+ * event is called and no injector is needed.
+ */
+@State(Scope.Thread)
+public class GridBenchmark {
+  public enum RecordedGame {
+    RUY_LOPEZ("e2e4 e7e5 g1f3 b8c6 f1b5 a7a6 b5a4 g8f6 e1g1 f8e7 f1e1 b7b5"
+      + " a4b3 d7d6 c2c3 e8g8 h2h3 c6a5 b3c2 c7c5 d2d4 d8c7 b1d2 c5d4"),
+    QUEENS_GAMBIT("d2d4 d7d5 c2c4 e7e6 b1c3 g8f6 c1g5 f8e7 e2e3 e8g8"
+      + " g1f3 b8d7 a1c1 c7c6 f1d3 d5c4 d3c4 f6d5 g5e7 d8e7 e1g1 d5c3"
+      + " c1c3 e6e5"),
+    NAJDORF("e2e4 c7c5 g1f3 d7d6 d2d4 c5d4 f3d4 g8f6 b1c3 a7a6 c1e3 e7e5"
+      + " d4b3 c8e6 f2f3 f8e7 d1d2 e8g8 e1c1 b8d7 g2g4 b7b5 g4g5 b5b4"
+      + " c3e2 f6e8");
+
+    private final String moves;
+
+    RecordedGame(String moves) {
+      this.moves = moves;
+    }
+  }
+
+  public enum GridType {
+    DEFAULT,
+    BITBOARD
+  }
+
+  @Param
+  private RecordedGame game;
+  @Param
+  private GridType gridType;
+
+  private List<Move> moves;
+  private Grid grid;
+
+  @Setup
+  public void recordGame() {
+    moves = Lists.newArrayList();
+    var recordingGrid = createGrid();
+    var possibleMoves = MoveList.create();
+    for (var notation : Splitter.on(' ').split(game.moves)) {
+      recordingGrid.listAllPossibleMovesForCurrentTeam(possibleMoves);
+      int move = findMove(possibleMoves, notation);
+      moves.add(PackedMove.toMove(move));
+      recordingGrid.makeMove(move);
+    }
+  }
+
+  private int findMove(MoveList possibleMoves, String notation) {
+    for (int index = 0; index < possibleMoves.size(); index++) {
+      if (PackedMove.toNotation(possibleMoves.get(index)).equals(notation)) {
+        return possibleMoves.get(index);
+      }
+    }
+    throw new IllegalStateException("Recorded move not possible: "
+      + notation);
+  }
+
+  @Setup(Level.Invocation)
+  public void createReplayedGrid() {
+    grid = createGrid();
+  }
+
+  // Every grid needs its own pieces, so the factory is created every time
+  private Grid createGrid() {
+    var factory = DefaultChessGridFactory.newFactory().withDefaultGrid();
+    return gridType == GridType.DEFAULT
+      ? factory.createGrid()
+      : factory.createBitboardGrid();
+  }
+
+  @Benchmark
+  public Grid replayGame() {
+    for (var move : moves) {
+      grid.executeMove(move);
+    }
+    return grid;
+  }
+}
@@ -0,0 +1,59 @@
+package de.qetz.chess.game.piece;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.Collection;
+
+import de.qetz.chess.game.position.direction.Direction;
+import de.qetz.chess.game.piece.concrete.Pieces;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.DefaultChessGrid;
+import de.qetz.chess.game.position.Move;
+
+/**
+ * A queen in the middle of the grid, which is blocked by a pawn of its
+ * own team behind it and can capture a pawn in front of it.
+ */
+@State(Scope.Thread)
+public class DefaultPieceBenchmark {
+  private final DefaultPiece[] grid = new DefaultPiece[Position.FIELDS];
+  private DefaultPiece queen;
+  private long occupied;
+
+  @Param({"FORWARD", "BACKWARD", "RIGHT_UP_DIAGONAL"})
+  private Direction direction;
+
+  @Setup
+  public void placePieces() {
+    queen = placePiece(PieceType.QUEEN, Position.of(4, 4), Team.WHITE);
+    placePiece(PieceType.PAWN, Position.of(7, 4), Team.BLACK);
+    placePiece(PieceType.PAWN, Position.of(2, 4), Team.WHITE);
+  }
+
+  private DefaultPiece placePiece(
+    PieceType type,
+    Position position,
+    Team team
+  ) {
+    var piece = Pieces.createPiece(type, position, team);
+    grid[position.index()] = piece;
+    occupied |= Bitboards.bit(position);
+    return piece;
+  }
+
+  @Benchmark
+  public Collection<Move> calculateCertainMovesForDirection() {
+    return queen.calculateCertainMovesForDirection(grid, direction,
+      DefaultChessGrid.MAX_VALUE);
+  }
+
+  @Benchmark
+  public Collection<Move> calculatePossibleMoves() {
+    return queen.calculatePossibleMoves(grid, occupied);
+  }
+}
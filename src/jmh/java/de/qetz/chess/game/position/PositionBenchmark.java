@@ -0,0 +1,35 @@
+package de.qetz.chess.game.position;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+
+import de.qetz.chess.game.position.direction.Direction;
+
+@State(Scope.Thread)
+public class PositionBenchmark {
+  // Not final, so the JIT can not fold the moves into constants
+  private Position position = Position.of(4, 4);
+  private Direction direction = Direction.RIGHT_UP_DIAGONAL;
+  private int reachableMoves = 3;
+  private int unreachableMoves = 5;
+
+  @Benchmark
+  public Move move() throws PositionNotReachable {
+    return position.move(direction, reachableMoves);
+  }
+
+  @Benchmark
+  public Object moveOutOfGrid() {
+    try {
+      return position.move(direction, unreachableMoves);
+    } catch (PositionNotReachable positionNotReachable) {
+      return positionNotReachable;
+    }
+  }
+
+  @Benchmark
+  public Position tryMove() {
+    return position.tryMove(direction, reachableMoves);
+  }
+}
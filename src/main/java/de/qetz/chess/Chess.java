@@ -2,6 +2,9 @@ package de.qetz.chess;
 
 import com.google.common.base.Preconditions;
 
+import java.util.concurrent.CompletableFuture;
+
+import de.qetz.chess.event.concrete.GameFinishedTrigger;
 import de.qetz.chess.game.Grid;
 
 public final class Chess {
@@ -11,7 +14,10 @@ public final class Chess {
   }
 
   private final Grid grid;
-  private GameState state;
+  private final CompletableFuture<GameFinishedTrigger> completion =
+    new CompletableFuture<>();
+  // Finished by the thread that moves and read by any other
+  private volatile GameState state;
 
   private Chess(Grid grid, GameState state) {
     this.grid = grid;
@@ -22,15 +28,29 @@ public final class Chess {
     return grid;
   }
 
-  public void updateState(GameState state) {
-    Preconditions.checkNotNull(state);
-    this.state = state;
+  /**
+   * Finishes the game and completes the completion handle, a game that is
+   * already finished keeps its first result.
+   */
+  public void finish(GameFinishedTrigger finished) {
+    Preconditions.checkNotNull(finished);
+    this.state = GameState.FINISHED;
+    completion.complete(finished);
   }
 
   public GameState state() {
     return state;
   }
 
+  /**
+   * Completes with the result once the game is finished, so hosting code
+   * can wait for the game without polling its state. Completing the
+   * returned future does not finish the game.
+   */
+  public CompletableFuture<GameFinishedTrigger> completion() {
+    return completion.copy();
+  }
+
   public static Builder newBuilder() {
     return new Builder();
   }
@@ -11,10 +11,11 @@ public final class ChessBootstrap {
     Injector injector = createInjector();
     Chess chess = injector.getInstance(Chess.class);
 
-    while (chess.state() == Chess.GameState.RUNNING) {}
+    // Blocks until the GameFinishedNotification finishes the game
+    chess.completion().join();
   }
 
-  private static Injector createInjector() {
+  static Injector createInjector() {
     return Guice.createInjector(ChessInjectModule.createOf(createChess()),
       EventInjectModule.createInjectModule());
   }
@@ -0,0 +1,166 @@
+package de.qetz.chess.book;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Moves of known positions, read from a memory mapped book file. The file
+ * uses the layout of Polyglot books: entries of 16 bytes, each the
+ * position key, the move, the weight and four unused learning bytes in
+ * big endian, sorted by the key as unsigned number and by weight. The
+ * entries of a position are found by binary search, so a lookup neither
+ * reads the whole file nor allocates.
+ *
+ * <p>A move is stored as its old and new field index in six bits each
+ * and the promotion piece type in three bits above them, castling as the
+ * king moving onto its rook. The keys are the position keys of the grids,
+ * so books of other programs can not be read.
+ */
+public final class OpeningBook {
+  static final int ENTRY_BYTES = 16;
+  static final int MOVE_OFFSET = Long.BYTES;
+  static final int WEIGHT_OFFSET = MOVE_OFFSET + Short.BYTES;
+
+  private static final int OLD_FIELD_SHIFT = 6;
+  private static final int PROMOTION_SHIFT = 12;
+  private static final int ROOK_RIGHT_DISTANCE = 3;
+  private static final int ROOK_LEFT_DISTANCE = 4;
+
+  public static OpeningBook createEmpty() {
+    return new OpeningBook(ByteBuffer.allocate(0));
+  }
+
+  public static OpeningBook open(Path file) throws IOException {
+    Preconditions.checkNotNull(file);
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() % ENTRY_BYTES != 0) {
+        throw new IOException("No opening book: " + file);
+      }
+      return new OpeningBook(
+        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  private final ByteBuffer book;
+  private final int entries;
+
+  private OpeningBook(ByteBuffer book) {
+    this.book = book;
+    this.entries = book.capacity() / ENTRY_BYTES;
+  }
+
+  public int entries() {
+    return entries;
+  }
+
+  /**
+   * The legal book move of the grid with the highest weight or
+   * {@link PackedMove#NONE}. Entries that are illegal on the grid, from a
+   * key collision or a broken book, are passed over for the next lower
+   * weight. The moves of the grid are listed into the given list to find
+   * the packed move.
+   */
+  public int findMove(Grid grid, MoveList moves) {
+    Preconditions.checkNotNull(grid);
+    Preconditions.checkNotNull(moves);
+    long key = grid.positionKey();
+    int first = findFirstEntry(key);
+    int end = first;
+    while (end < entries && readKey(end) == key) {
+      end++;
+    }
+    if (first == end) {
+      return PackedMove.NONE;
+    }
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    // Entries are tried by weight and then by order, so the last tried
+    // entry tells which come next without remembering all of them
+    int triedEntry = NO_ENTRY;
+    int triedWeight = Integer.MAX_VALUE;
+    while (true) {
+      int bestEntry = NO_ENTRY;
+      int bestWeight = -1;
+      for (int entry = first; entry < end; entry++) {
+        int weight = readWeight(entry);
+        boolean untried = weight < triedWeight
+          || weight == triedWeight && entry > triedEntry;
+        if (untried && weight > bestWeight) {
+          bestEntry = entry;
+          bestWeight = weight;
+        }
+      }
+      if (bestEntry == NO_ENTRY) {
+        return PackedMove.NONE;
+      }
+      int move = findLegalMove(moves, readMove(bestEntry));
+      if (move != PackedMove.NONE) {
+        return move;
+      }
+      triedEntry = bestEntry;
+      triedWeight = bestWeight;
+    }
+  }
+
+  private static final int NO_ENTRY = -1;
+
+  private static int findLegalMove(MoveList moves, int bookMove) {
+    for (int index = 0; index < moves.size(); index++) {
+      if (encodeMove(moves.get(index)) == bookMove) {
+        return moves.get(index);
+      }
+    }
+    return PackedMove.NONE;
+  }
+
+  // The first entry whose key is not lower, by unsigned order
+  private int findFirstEntry(long key) {
+    int low = 0;
+    int high = entries;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (Long.compareUnsigned(readKey(middle), key) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private long readKey(int entry) {
+    return book.getLong(entry * ENTRY_BYTES);
+  }
+
+  private int readMove(int entry) {
+    return Short.toUnsignedInt(
+      book.getShort(entry * ENTRY_BYTES + MOVE_OFFSET));
+  }
+
+  private int readWeight(int entry) {
+    return Short.toUnsignedInt(
+      book.getShort(entry * ENTRY_BYTES + WEIGHT_OFFSET));
+  }
+
+  static int encodeMove(int move) {
+    int from = PackedMove.from(move);
+    int to = PackedMove.to(move);
+    if (PackedMove.hasFlag(move, PackedMove.CASTLING)) {
+      to = to > from
+        ? from + ROOK_RIGHT_DISTANCE
+        : from - ROOK_LEFT_DISTANCE;
+    }
+    int encoded = to | from << OLD_FIELD_SHIFT;
+    return PackedMove.isPromotion(move)
+      ? encoded | PackedMove.promotion(move).ordinal() << PROMOTION_SHIFT
+      : encoded;
+  }
+}
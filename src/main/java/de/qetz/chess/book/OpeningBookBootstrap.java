@@ -0,0 +1,48 @@
+package de.qetz.chess.book;
+
+import java.util.logging.Logger;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Builds an opening book from the command line: a file of games, one per
+ * line as moves in long algebraic notation separated by spaces, the book
+ * file and optionally the plies of every game to add.
+ */
+public final class OpeningBookBootstrap {
+  private static final Logger LOG =
+    Logger.getLogger(OpeningBookBootstrap.class.getSimpleName());
+
+  private static final String MOVE_SEPARATOR = "\\s+";
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      LOG.severe("Usage: <games> <book> [plies]");
+      return;
+    }
+    int maxPlies = args.length > 2
+      ? Integer.parseInt(args[2])
+      : OpeningBookBuilder.DEFAULT_MAX_PLIES;
+    var builder = OpeningBookBuilder.createWithMaxPlies(maxPlies);
+    int skipped = 0;
+    try (BufferedReader reader = Files.newBufferedReader(Path.of(args[0]))) {
+      for (var line = reader.readLine(); line != null;
+        line = reader.readLine()) {
+        if (line.isBlank()) {
+          continue;
+        }
+        try {
+          builder.addGame(List.of(line.strip().split(MOVE_SEPARATOR)));
+        } catch (IllegalArgumentException invalidGame) {
+          skipped++;
+        }
+      }
+    }
+    builder.write(Path.of(args[1]));
+    LOG.info(String.format("Added %d games with %d positions, skipped %d",
+      builder.games(), builder.positions(), skipped));
+  }
+}
@@ -0,0 +1,130 @@
+package de.qetz.chess.book;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.util.Comparator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Builds an opening book offline from recorded games. Every game is
+ * replayed from the start up to a maximum of plies and each of its moves
+ * is counted for the position it was played in. The count of a move is
+ * its weight in the book, limited to the largest weight of the file.
+ */
+public final class OpeningBookBuilder {
+  public static final int DEFAULT_MAX_PLIES = 20;
+
+  private static final int MAX_WEIGHT = 0xFFFF;
+
+  public static OpeningBookBuilder createWithMaxPlies(int maxPlies) {
+    Preconditions.checkArgument(maxPlies > 0);
+    return new OpeningBookBuilder(maxPlies);
+  }
+
+  private final int maxPlies;
+  private final Map<Long, Multiset<Integer>> moves = Maps.newHashMap();
+  private final MoveList legalMoves = MoveList.create();
+  private int games;
+
+  private OpeningBookBuilder(int maxPlies) {
+    this.maxPlies = maxPlies;
+  }
+
+  /**
+   * Adds a game of moves in long algebraic notation like e2e4 or e7e8q,
+   * played from the start. Fails on the first move that is not possible,
+   * without adding any move of the game.
+   */
+  public OpeningBookBuilder addGame(List<String> notations) {
+    Preconditions.checkNotNull(notations);
+    Grid grid = DefaultChessGridFactory.newFactory()
+      .withDefaultGrid()
+      .createBitboardGrid();
+    List<BookEntry> played = Lists.newArrayList();
+    for (int ply = 0; ply < Math.min(maxPlies, notations.size()); ply++) {
+      int move = findMove(grid, notations.get(ply));
+      played.add(new BookEntry(grid.positionKey(),
+        OpeningBook.encodeMove(move), 0));
+      grid.makeMove(move);
+    }
+    for (var entry : played) {
+      moves.computeIfAbsent(entry.key, key -> HashMultiset.create())
+        .add(entry.move);
+    }
+    games++;
+    return this;
+  }
+
+  private int findMove(Grid grid, String notation) {
+    grid.listAllPossibleMovesForCurrentTeam(legalMoves);
+    for (int index = 0; index < legalMoves.size(); index++) {
+      if (PackedMove.toNotation(legalMoves.get(index)).equals(notation)) {
+        return legalMoves.get(index);
+      }
+    }
+    throw new IllegalArgumentException("Move not possible: " + notation);
+  }
+
+  public int games() {
+    return games;
+  }
+
+  public int positions() {
+    return moves.size();
+  }
+
+  public void write(Path file) throws IOException {
+    Preconditions.checkNotNull(file);
+    List<BookEntry> entries = Lists.newArrayList();
+    moves.forEach((key, positionMoves) -> {
+      for (var move : positionMoves.entrySet()) {
+        entries.add(new BookEntry(key, move.getElement(),
+          Math.min(move.getCount(), MAX_WEIGHT)));
+      }
+    });
+    entries.sort(Comparator
+      .comparing((BookEntry entry) -> entry.key, Long::compareUnsigned)
+      .thenComparing(entry -> entry.weight, Comparator.reverseOrder()));
+    var book = ByteBuffer.allocate(entries.size() * OpeningBook.ENTRY_BYTES);
+    for (var entry : entries) {
+      book.putLong(entry.key)
+        .putShort((short) entry.move)
+        .putShort((short) entry.weight)
+        .putInt(0);
+    }
+    book.flip();
+    try (var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+      StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      while (book.hasRemaining()) {
+        channel.write(book);
+      }
+    }
+  }
+
+  private static final class BookEntry {
+    private final long key;
+    private final int move;
+    private final int weight;
+
+    private BookEntry(long key, int move, int weight) {
+      this.key = key;
+      this.move = move;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package de.qetz.chess.engine;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.bitboard.PieceSquareTables;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Scores a grid in centipawns from the view of the playing team, so the
+ * search can negate the score of the other team. The grids keep the
+ * piece-square scores up to date with every move, so scoring only blends
+ * the middlegame and endgame score by the phase of the game. The pawn
+ * structure is added on top, cached by a {@link PawnTable} in a search.
+ */
+public final class Evaluation {
+  // Indexed by PieceType ordinal, the king is never captured
+  private static final int[] PIECE_VALUES = new int[]{
+    100, 320, 330, 500, 900, 0
+  };
+
+  private Evaluation() {}
+
+  public static int evaluate(Grid grid) {
+    Preconditions.checkNotNull(grid);
+    return evaluate(grid, PawnStructure.evaluate(grid));
+  }
+
+  public static int evaluate(Grid grid, PawnTable pawns) {
+    Preconditions.checkNotNull(grid);
+    Preconditions.checkNotNull(pawns);
+    return evaluate(grid, pawns.score(grid));
+  }
+
+  private static int evaluate(Grid grid, int pawnScore) {
+    int middlegame = grid.middlegameScore()
+      + PawnStructure.middlegame(pawnScore);
+    int endgame = grid.endgameScore() + PawnStructure.endgame(pawnScore);
+    int phase = Math.min(grid.phase(), PieceSquareTables.MAX_PHASE);
+    int score = (middlegame * phase
+      + endgame * (PieceSquareTables.MAX_PHASE - phase))
+      / PieceSquareTables.MAX_PHASE;
+    return grid.playingTeam() == Team.WHITE ? score : -score;
+  }
+
+  public static int pieceValue(PieceType type) {
+    return PIECE_VALUES[type.ordinal()];
+  }
+}
@@ -0,0 +1,186 @@
+package de.qetz.chess.engine;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Sorts the moves of a node so the ones most likely to cause a cutoff are
+ * searched first: the move of the transposition table, then captures and
+ * promotions by most valuable victim and least valuable attacker, then
+ * the two killer moves of the ply and last the quiet moves by their
+ * history. The moves are selected one by one, since after a cutoff the
+ * remaining moves never have to be sorted.
+ *
+ * <p>Also counts how many cutoffs happened on the first move, which is
+ * the share of nodes where the ordering was perfect.
+ */
+public final class MoveOrdering {
+  public static MoveOrdering create() {
+    return new MoveOrdering();
+  }
+
+  private static final int KILLERS = 2;
+  private static final int SQUARES = Bitboards.SQUARES;
+
+  private final int[][] killers = new int[Search.MAX_PLY][KILLERS];
+  private final int[] history =
+    new int[Team.values().length * SQUARES * SQUARES];
+  private long cutoffs;
+  private long firstMoveCutoffs;
+
+  private MoveOrdering() {}
+
+  private static final int TABLE_MOVE_SCORE = 1_000_000;
+  private static final int CAPTURE_SCORE = 500_000;
+  private static final int FIRST_KILLER_SCORE = 400_000;
+  private static final int SECOND_KILLER_SCORE = 390_000;
+  private static final int VICTIM_WEIGHT = 16;
+
+  public void scoreMoves(
+    Grid grid,
+    MoveList moves,
+    int[] scores,
+    int ply,
+    int tableMove
+  ) {
+    Preconditions.checkArgument(scores.length >= moves.size());
+    var team = grid.playingTeam();
+    for (int index = 0; index < moves.size(); index++) {
+      int move = moves.get(index);
+      if (move == tableMove) {
+        scores[index] = TABLE_MOVE_SCORE;
+      } else if (isTactical(move)) {
+        scores[index] = CAPTURE_SCORE + scoreTactical(grid, team, move);
+      } else if (move == killers[ply][0]) {
+        scores[index] = FIRST_KILLER_SCORE;
+      } else if (move == killers[ply][1]) {
+        scores[index] = SECOND_KILLER_SCORE;
+      } else {
+        scores[index] = history[historyIndex(team, move)];
+      }
+    }
+  }
+
+  // MVV-LVA: a pawn taking a queen comes before a queen taking a pawn
+  private int scoreTactical(Grid grid, Team team, int move) {
+    int score = 0;
+    if (PackedMove.isCapture(move)) {
+      var victim = PackedMove.hasFlag(move, PackedMove.EN_PASSANT)
+        ? PieceType.PAWN
+        : resolvePieceType(grid, resolveEnemy(team), PackedMove.to(move));
+      var attacker = resolvePieceType(grid, team, PackedMove.from(move));
+      score += Evaluation.pieceValue(victim) * VICTIM_WEIGHT
+        - Evaluation.pieceValue(attacker);
+    }
+    if (PackedMove.isPromotion(move)) {
+      score += Evaluation.pieceValue(PackedMove.promotion(move))
+        * VICTIM_WEIGHT;
+    }
+    return score;
+  }
+
+  /**
+   * Swaps the best of the remaining moves to the index and returns it, so
+   * the moves are sorted only as far as they are searched.
+   */
+  public int selectMove(MoveList moves, int[] scores, int index) {
+    int best = index;
+    for (int next = index + 1; next < moves.size(); next++) {
+      if (scores[next] > scores[best]) {
+        best = next;
+      }
+    }
+    if (best != index) {
+      moves.swap(index, best);
+      int score = scores[index];
+      scores[index] = scores[best];
+      scores[best] = score;
+    }
+    return moves.get(index);
+  }
+
+  private static final int MAX_HISTORY = 1 << 16;
+
+  /**
+   * Called for the move that caused a cutoff at the index of its node. A
+   * quiet move becomes a killer of its ply and gains history by depth.
+   */
+  public void recordCutoff(Team team, int ply, int move, int depth, int index) {
+    cutoffs++;
+    if (index == 0) {
+      firstMoveCutoffs++;
+    }
+    if (isTactical(move)) {
+      return;
+    }
+    if (killers[ply][0] != move) {
+      killers[ply][1] = killers[ply][0];
+      killers[ply][0] = move;
+    }
+    int historyIndex = historyIndex(team, move);
+    history[historyIndex] += depth * depth;
+    if (history[historyIndex] > MAX_HISTORY) {
+      ageHistory();
+    }
+  }
+
+  // Keeps the order of the history, but lets newer cutoffs weigh more
+  private void ageHistory() {
+    for (int index = 0; index < history.length; index++) {
+      history[index] /= 2;
+    }
+  }
+
+  // Killers only fit the position they were found in, the history is
+  // aged so it still helps the next search
+  public void newSearch() {
+    for (int[] plyKillers : killers) {
+      Arrays.fill(plyKillers, PackedMove.NONE);
+    }
+    ageHistory();
+    cutoffs = 0;
+    firstMoveCutoffs = 0;
+  }
+
+  public long cutoffs() {
+    return cutoffs;
+  }
+
+  public long firstMoveCutoffs() {
+    return firstMoveCutoffs;
+  }
+
+  public double firstMoveCutoffRate() {
+    return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+  }
+
+  private static boolean isTactical(int move) {
+    return PackedMove.isCapture(move) || PackedMove.isPromotion(move);
+  }
+
+  private static int historyIndex(Team team, int move) {
+    return (team.ordinal() * SQUARES + PackedMove.from(move)) * SQUARES
+      + PackedMove.to(move);
+  }
+
+  private static PieceType resolvePieceType(Grid grid, Team team, int square) {
+    for (var type : PieceType.values()) {
+      if (Bitboards.contains(grid.pieceBoard(team, type), square)) {
+        return type;
+      }
+    }
+    throw new IllegalStateException("No piece on square " + square);
+  }
+
+  private static Team resolveEnemy(Team team) {
+    return team == Team.WHITE ? Team.BLACK : Team.WHITE;
+  }
+}
@@ -0,0 +1,108 @@
+package de.qetz.chess.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import de.qetz.chess.tablebase.Tablebase;
+import de.qetz.chess.book.OpeningBook;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Lazy SMP: the calling thread and a number of helper threads search the
+ * same root on their own copies of the grid. They only share the
+ * transposition table, so the helpers fill it with positions the main
+ * thread finds there later. Helpers skip different depths to spread out.
+ * The result is the one of the calling thread with the nodes of all.
+ */
+public final class ParallelSearch {
+  public static final int MAX_THREADS = 256;
+
+  public static ParallelSearch createFor(
+    Grid grid,
+    TranspositionTable table
+  ) {
+    Preconditions.checkNotNull(grid);
+    Preconditions.checkNotNull(table);
+    return new ParallelSearch(grid, table);
+  }
+
+  private final Grid grid;
+  private final TranspositionTable table;
+  private final Search mainSearch;
+  private final ExecutorService executor = Executors.newCachedThreadPool(
+    new ThreadFactoryBuilder()
+      .setNameFormat("search-helper-%d")
+      .setDaemon(true)
+      .build());
+  private Set<Pruning> pruning = EnumSet.allOf(Pruning.class);
+  private Tablebase tablebase = Tablebase.createEmpty();
+
+  private ParallelSearch(Grid grid, TranspositionTable table) {
+    this.grid = grid;
+    this.table = table;
+    this.mainSearch = Search.createFor(grid, table);
+  }
+
+  public void updatePruning(Set<Pruning> pruning) {
+    mainSearch.updatePruning(pruning);
+    this.pruning = pruning;
+  }
+
+  public void updateTablebase(Tablebase tablebase) {
+    mainSearch.updateTablebase(tablebase);
+    this.tablebase = tablebase;
+  }
+
+  public void updateOpeningBook(OpeningBook openingBook) {
+    mainSearch.updateOpeningBook(openingBook);
+  }
+
+  public SearchResult search(SearchLimits limits, int threads) {
+    Preconditions.checkNotNull(limits);
+    Preconditions.checkArgument(threads > 0 && threads <= MAX_THREADS);
+    var bookResult = mainSearch.searchOpeningBook();
+    if (bookResult.isPresent()) {
+      return bookResult.get();
+    }
+    var stopped = new AtomicBoolean();
+    List<Search> helpers = Lists.newArrayList();
+    List<Future<SearchResult>> results = Lists.newArrayList();
+    for (int helper = 1; helper < threads; helper++) {
+      var search = Search.createHelper(grid.copy(), table, helper, stopped);
+      search.updatePruning(pruning);
+      search.updateTablebase(tablebase);
+      helpers.add(search);
+      results.add(executor.submit(() -> search.search(limits)));
+    }
+    var result = mainSearch.search(limits);
+    stopped.set(true);
+
+    long nodes = result.nodes();
+    for (int index = 0; index < helpers.size(); index++) {
+      Futures.getUnchecked(results.get(index));
+      nodes += helpers.get(index).nodes();
+    }
+    return SearchResult.newBuilder()
+      .withPrincipalVariation(result.principalVariation())
+      .withScore(result.score())
+      .withDepth(result.depth())
+      .withNodes(nodes)
+      .withNanos(result.nanos())
+      .createSearchResult();
+  }
+
+  // Ends the helper threads, which are idle between searches anyway
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
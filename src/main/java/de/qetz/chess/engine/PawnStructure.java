@@ -0,0 +1,135 @@
+package de.qetz.chess.engine;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.bitboard.AttackTables;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Scores the pawns of both teams from the view of white: doubled and
+ * isolated pawns are weak, passed pawns grow stronger the further they
+ * are and pawns defended by another pawn form a chain. The middlegame
+ * and endgame score are packed into one int, which is read with
+ * {@link #middlegame(int)} and {@link #endgame(int)}.
+ */
+public final class PawnStructure {
+  private static final int DOUBLED_MIDDLEGAME = -10;
+  private static final int DOUBLED_ENDGAME = -20;
+  private static final int ISOLATED_MIDDLEGAME = -10;
+  private static final int ISOLATED_ENDGAME = -15;
+  private static final int CHAIN_MIDDLEGAME = 5;
+  private static final int CHAIN_ENDGAME = 5;
+  // Indexed by the columns a pawn has moved
+  private static final int[] PASSED_MIDDLEGAME = new int[]{
+    0, 5, 10, 15, 25, 40, 60, 0
+  };
+  private static final int[] PASSED_ENDGAME = new int[]{
+    0, 10, 15, 25, 45, 70, 110, 0
+  };
+
+  private static final int ROWS = 8;
+  private static final long[] ROW_MASKS = createRowMasks();
+  private static final long[] NEIGHBOUR_ROW_MASKS = createNeighbourMasks();
+  // The fields in front of a pawn on its and the neighbour rows
+  private static final long[][] PASSED_MASKS = new long[][]{
+    createPassedMasks(Team.WHITE), createPassedMasks(Team.BLACK)
+  };
+
+  private PawnStructure() {}
+
+  public static int evaluate(Grid grid) {
+    Preconditions.checkNotNull(grid);
+    long whitePawns = grid.pieceBoard(Team.WHITE, PieceType.PAWN);
+    long blackPawns = grid.pieceBoard(Team.BLACK, PieceType.PAWN);
+    return evaluateTeam(Team.WHITE, whitePawns, blackPawns)
+      - evaluateTeam(Team.BLACK, blackPawns, whitePawns);
+  }
+
+  public static int middlegame(int score) {
+    return (score + Short.MAX_VALUE + 1) >> Short.SIZE;
+  }
+
+  public static int endgame(int score) {
+    return (short) score;
+  }
+
+  private static int pack(int middlegame, int endgame) {
+    return (middlegame << Short.SIZE) + endgame;
+  }
+
+  private static int evaluateTeam(Team team, long pawns, long enemyPawns) {
+    var enemy = team == Team.WHITE ? Team.BLACK : Team.WHITE;
+    int middlegame = 0;
+    int endgame = 0;
+    for (int row = 0; row < ROWS; row++) {
+      int doubled = Bitboards.count(pawns & ROW_MASKS[row]) - 1;
+      if (doubled > 0) {
+        middlegame += doubled * DOUBLED_MIDDLEGAME;
+        endgame += doubled * DOUBLED_ENDGAME;
+      }
+    }
+    for (long remaining = pawns; remaining != Bitboards.EMPTY;
+      remaining = Bitboards.withoutFirstSquare(remaining)) {
+      int square = Bitboards.firstSquare(remaining);
+      int row = Bitboards.row(square) - 1;
+      if ((pawns & NEIGHBOUR_ROW_MASKS[row]) == Bitboards.EMPTY) {
+        middlegame += ISOLATED_MIDDLEGAME;
+        endgame += ISOLATED_ENDGAME;
+      }
+      if ((AttackTables.pawnAttacks(enemy, square) & pawns)
+        != Bitboards.EMPTY) {
+        middlegame += CHAIN_MIDDLEGAME;
+        endgame += CHAIN_ENDGAME;
+      }
+      if ((PASSED_MASKS[team.ordinal()][square] & enemyPawns)
+        == Bitboards.EMPTY) {
+        int advanced = resolveAdvancedColumns(team, square);
+        middlegame += PASSED_MIDDLEGAME[advanced];
+        endgame += PASSED_ENDGAME[advanced];
+      }
+    }
+    return pack(middlegame, endgame);
+  }
+
+  private static int resolveAdvancedColumns(Team team, int square) {
+    int column = Bitboards.column(square) - 1;
+    return team == Team.WHITE ? column : ROWS - 1 - column;
+  }
+
+  private static long[] createRowMasks() {
+    long[] masks = new long[ROWS];
+    for (int row = 0; row < ROWS; row++) {
+      masks[row] = Bitboards.rowMask(row + 1);
+    }
+    return masks;
+  }
+
+  private static long[] createNeighbourMasks() {
+    long[] masks = new long[ROWS];
+    for (int row = 0; row < ROWS; row++) {
+      masks[row] = (row > 0 ? ROW_MASKS[row - 1] : Bitboards.EMPTY)
+        | (row < ROWS - 1 ? ROW_MASKS[row + 1] : Bitboards.EMPTY);
+    }
+    return masks;
+  }
+
+  private static long[] createPassedMasks(Team team) {
+    long[] masks = new long[Bitboards.SQUARES];
+    for (int square = 0; square < Bitboards.SQUARES; square++) {
+      int row = Bitboards.row(square) - 1;
+      long rows = ROW_MASKS[row] | NEIGHBOUR_ROW_MASKS[row];
+      for (int column = 1; column <= ROWS; column++) {
+        boolean inFront = team == Team.WHITE
+          ? column > Bitboards.column(square)
+          : column < Bitboards.column(square);
+        if (inFront) {
+          masks[square] |= rows & Bitboards.columnMask(column);
+        }
+      }
+    }
+    return masks;
+  }
+}
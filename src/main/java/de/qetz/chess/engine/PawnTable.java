@@ -0,0 +1,95 @@
+package de.qetz.chess.engine;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.Grid;
+
+/**
+ * A cache of pawn structure scores by the pawn key of a grid. Pawns move
+ * rarely, so most positions of a search share their pawns with many
+ * others and the structure only has to be scored once.
+ *
+ * <p>Every search thread has its own table, which is why it needs no
+ * synchronization. An entry is replaced by any other pawns of the same
+ * slot. An empty slot has the key without pawns, whose score is 0 as
+ * well, so it needs no mark.
+ */
+public final class PawnTable {
+  public static final int MAX_KILOBYTES = 64 * 1024;
+
+  private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+  private static final int BYTES_PER_KILOBYTE = 1 << 10;
+
+  public static PawnTable createWithSize(int kilobytes) {
+    Preconditions.checkArgument(kilobytes > 0);
+    Preconditions.checkArgument(kilobytes <= MAX_KILOBYTES);
+    int entries = Integer.highestOneBit(
+      kilobytes * BYTES_PER_KILOBYTE / ENTRY_BYTES);
+    return new PawnTable(entries);
+  }
+
+  private final long[] keys;
+  private final int[] scores;
+  private final int mask;
+  private long hits;
+  private long misses;
+  private long collisions;
+
+  private PawnTable(int entries) {
+    this.keys = new long[entries];
+    this.scores = new int[entries];
+    this.mask = entries - 1;
+  }
+
+  /**
+   * The packed score of {@link PawnStructure#evaluate(Grid)}, which is
+   * only calculated if the pawns of the grid are not cached.
+   */
+  public int score(Grid grid) {
+    Preconditions.checkNotNull(grid);
+    long key = grid.pawnKey();
+    int index = (int) key & mask;
+    if (keys[index] == key) {
+      hits++;
+      return scores[index];
+    }
+    misses++;
+    if (keys[index] != 0) {
+      collisions++;
+    }
+    int score = PawnStructure.evaluate(grid);
+    keys[index] = key;
+    scores[index] = score;
+    return score;
+  }
+
+  public void resetStatistics() {
+    hits = 0;
+    misses = 0;
+    collisions = 0;
+  }
+
+  public long hits() {
+    return hits;
+  }
+
+  public long misses() {
+    return misses;
+  }
+
+  /**
+   * How often the pawns of a grid replaced other cached pawns.
+   */
+  public long collisions() {
+    return collisions;
+  }
+
+  public double hitRate() {
+    long probes = hits + misses;
+    return probes == 0 ? 0 : (double) hits / probes;
+  }
+
+  public int capacity() {
+    return keys.length;
+  }
+}
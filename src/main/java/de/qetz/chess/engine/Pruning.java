@@ -0,0 +1,16 @@
+package de.qetz.chess.engine;
+
+/**
+ * The forward pruning of the search, which skips or shortens lines that
+ * are very likely bad. Each can be switched off to measure its effect.
+ */
+public enum Pruning {
+  // Passes the turn; if the position still holds, moving holds as well
+  NULL_MOVE,
+  // Searches late quiet moves of the ordering less deep first
+  LATE_MOVE_REDUCTIONS,
+  // Skips quiet moves at the frontier that can not reach alpha
+  FUTILITY,
+  // Drops to the quiescence search if a node looks hopeless
+  RAZORING
+}
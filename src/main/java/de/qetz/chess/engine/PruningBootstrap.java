@@ -0,0 +1,78 @@
+package de.qetz.chess.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.EnumSet;
+import java.util.Set;
+
+import de.qetz.chess.perft.PerftPosition;
+
+/**
+ * Measures the effect of every pruning on the reference positions: they
+ * are searched to a fixed depth with all pruning, without each one and
+ * without any, and the nodes are compared to the ones with all pruning.
+ * The hit rate of the pawn tables shows how often the pawn structure
+ * was cached.
+ */
+public final class PruningBootstrap {
+  private static final Logger LOG =
+    Logger.getLogger(PruningBootstrap.class.getSimpleName());
+
+  private static final int TABLE_MEGABYTES = 64;
+
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      LOG.severe("Usage: <depth>");
+      return;
+    }
+    var limits = SearchLimits.newBuilder()
+      .withMaxDepth(Integer.parseInt(args[0]))
+      .createSearchLimits();
+    var table = TranspositionTable.createWithSize(TABLE_MEGABYTES);
+    // Warms up the JIT, otherwise the first run is the slowest
+    searchPositions(limits, table, EnumSet.allOf(Pruning.class));
+
+    var all = searchPositions(limits, table, EnumSet.allOf(Pruning.class));
+    report("All pruning", all, all);
+    for (var disabled : Pruning.values()) {
+      var pruning = EnumSet.allOf(Pruning.class);
+      pruning.remove(disabled);
+      report("Without " + disabled, searchPositions(limits, table, pruning),
+        all);
+    }
+    report("No pruning",
+      searchPositions(limits, table, EnumSet.noneOf(Pruning.class)), all);
+  }
+
+  private static void report(String name, long[] results, long[] all) {
+    LOG.info(String.format("%s: %d nodes (%+.1f%%), %d ms, %.1f%% pawn hits",
+      name, results[1], 100.0 * (results[1] - all[1]) / all[1],
+      TimeUnit.NANOSECONDS.toMillis(results[0]),
+      100.0 * results[2] / Math.max(1, results[3])));
+  }
+
+  // Returns the summed time, nodes, pawn table hits and probes of all
+  // positions
+  private static long[] searchPositions(
+    SearchLimits limits,
+    TranspositionTable table,
+    Set<Pruning> pruning
+  ) {
+    long nanos = 0;
+    long nodes = 0;
+    long pawnHits = 0;
+    long pawnProbes = 0;
+    for (var position : PerftPosition.values()) {
+      table.clear();
+      var search = Search.createFor(
+        position.createFactory().createBitboardGrid(), table);
+      search.updatePruning(pruning);
+      var result = search.search(limits);
+      nanos += result.nanos();
+      nodes += result.nodes();
+      pawnHits += search.pawnTable().hits();
+      pawnProbes += search.pawnTable().hits() + search.pawnTable().misses();
+    }
+    return new long[]{nanos, nodes, pawnHits, pawnProbes};
+  }
+}
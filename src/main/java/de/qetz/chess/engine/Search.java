@@ -0,0 +1,560 @@
+package de.qetz.chess.engine;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Optional;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.tablebase.Tablebase;
+import de.qetz.chess.game.position.Move;
+import de.qetz.chess.book.OpeningBook;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+/**
+ * An iterative deepening principal variation search (negamax alpha-beta
+ * with null windows for all but the first move) over any grid. Every
+ * depth starts with the best move of the previous one, which is found
+ * in the transposition table, so the deeper searches prune much more.
+ *
+ * <p>The grid is changed with makeMove/unmakeMove only and is the same
+ * after the search as before.
+ */
+public final class Search {
+  public static final int MATE = 30_000;
+  public static final int MAX_PLY = 128;
+
+  private static final int INFINITY = 32_000;
+  private static final int MAX_MOVES = 256;
+  private static final int DRAW = 0;
+
+  private static final int MAIN_THREAD = 0;
+  private static final int PAWN_TABLE_KILOBYTES = 1024;
+
+  public static Search createFor(Grid grid, TranspositionTable table) {
+    Preconditions.checkNotNull(grid);
+    Preconditions.checkNotNull(table);
+    return new Search(grid, table, MAIN_THREAD, new AtomicBoolean());
+  }
+
+  /**
+   * A search of one helper thread of a {@link ParallelSearch}, which
+   * skips some depths depending on its index and ends once the stop flag
+   * is set.
+   */
+  static Search createHelper(
+    Grid grid,
+    TranspositionTable table,
+    int helper,
+    AtomicBoolean stopped
+  ) {
+    Preconditions.checkArgument(helper > MAIN_THREAD);
+    return new Search(grid, table, helper, stopped);
+  }
+
+  private final Grid grid;
+  private final TranspositionTable table;
+  private final int helper;
+  private final AtomicBoolean stopped;
+  private Set<Pruning> pruning = EnumSet.allOf(Pruning.class);
+  private Tablebase tablebase = Tablebase.createEmpty();
+  private OpeningBook openingBook = OpeningBook.createEmpty();
+  private final MoveList[] moveLists = new MoveList[MAX_PLY];
+  private final int[][] principalVariations = new int[MAX_PLY][MAX_PLY];
+  private final int[] principalVariationLengths = new int[MAX_PLY];
+  private final long[] positionKeys = new long[MAX_PLY];
+  private final boolean[] nullMoves = new boolean[MAX_PLY];
+  private final int[][] moveScores = new int[MAX_PLY][MAX_MOVES];
+  private final MoveOrdering moveOrdering = MoveOrdering.create();
+  private final StaticExchange staticExchange = StaticExchange.create();
+  private final PawnTable pawnTable =
+    PawnTable.createWithSize(PAWN_TABLE_KILOBYTES);
+  private SearchLimits limits;
+  private long startTime;
+  private long nodes;
+  private int completedDepth;
+  private boolean aborted;
+
+  private Search(
+    Grid grid,
+    TranspositionTable table,
+    int helper,
+    AtomicBoolean stopped
+  ) {
+    this.grid = grid;
+    this.table = table;
+    this.helper = helper;
+    this.stopped = stopped;
+    for (int ply = 0; ply < MAX_PLY; ply++) {
+      moveLists[ply] = MoveList.createWithCapacity(MAX_MOVES);
+    }
+  }
+
+  // All pruning is enabled by default
+  public void updatePruning(Set<Pruning> pruning) {
+    Preconditions.checkNotNull(pruning);
+    this.pruning = pruning.isEmpty()
+      ? EnumSet.noneOf(Pruning.class)
+      : EnumSet.copyOf(pruning);
+  }
+
+  /**
+   * Endings of the tablebase are not searched, their result is exact and
+   * mates are scored by their distance.
+   */
+  public void updateTablebase(Tablebase tablebase) {
+    this.tablebase = Preconditions.checkNotNull(tablebase);
+  }
+
+  // Positions of the book are not searched, its move is played instead
+  public void updateOpeningBook(OpeningBook openingBook) {
+    this.openingBook = Preconditions.checkNotNull(openingBook);
+  }
+
+  public SearchResult search(SearchLimits limits) {
+    Preconditions.checkNotNull(limits);
+    var bookResult = searchOpeningBook();
+    if (bookResult.isPresent()) {
+      return bookResult.get();
+    }
+    this.limits = limits;
+    startTime = System.nanoTime();
+    nodes = 0;
+    completedDepth = 0;
+    aborted = false;
+    if (helper == MAIN_THREAD) {
+      table.newSearch();
+    }
+    moveOrdering.newSearch();
+
+    var result = SearchResult.newBuilder().createSearchResult();
+    for (int depth = 1; depth <= limits.maxDepth(); depth++) {
+      if (isSkipped(depth)) {
+        continue;
+      }
+      int score = searchNode(depth, 0, -INFINITY, INFINITY);
+      if (aborted) {
+        break;
+      }
+      completedDepth = depth;
+      result = createResult(depth, score);
+      if (result.isMate() || isHalfTimeUsed()) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  // The searched nodes of the last search, including an unfinished depth
+  public long nodes() {
+    return nodes;
+  }
+
+  // The ordering with the cutoff statistics of the last search
+  public MoveOrdering moveOrdering() {
+    return moveOrdering;
+  }
+
+  public PawnTable pawnTable() {
+    return pawnTable;
+  }
+
+  private static final int[] SKIP_SIZES = new int[]{
+    1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4
+  };
+  private static final int[] SKIP_PHASES = new int[]{
+    0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7
+  };
+
+  Optional<SearchResult> searchOpeningBook() {
+    long start = System.nanoTime();
+    int move = openingBook.findMove(grid, moveLists[0]);
+    if (move == PackedMove.NONE) {
+      return Optional.empty();
+    }
+    return Optional.of(SearchResult.newBuilder()
+      .withPrincipalVariation(List.of(PackedMove.toMove(move)))
+      .withNanos(System.nanoTime() - start)
+      .createSearchResult());
+  }
+
+  // Helpers skip depths in different patterns, so the threads spread over
+  // several depths instead of all searching the same tree
+  private boolean isSkipped(int depth) {
+    if (helper == MAIN_THREAD) {
+      return false;
+    }
+    int index = (helper - 1) % SKIP_SIZES.length;
+    return (depth + SKIP_PHASES[index]) / SKIP_SIZES[index] % 2 != 0;
+  }
+
+  // A next depth takes longer than all previous ones together
+  private boolean isHalfTimeUsed() {
+    return System.nanoTime() - startTime >= limits.maxNanos() / 2;
+  }
+
+  private SearchResult createResult(int depth, int score) {
+    List<Move> principalVariation = Lists.newArrayList();
+    for (int ply = 0; ply < principalVariationLengths[0]; ply++) {
+      principalVariation.add(PackedMove.toMove(principalVariations[0][ply]));
+    }
+    return SearchResult.newBuilder()
+      .withPrincipalVariation(principalVariation)
+      .withScore(score)
+      .withDepth(depth)
+      .withNodes(nodes)
+      .withNanos(System.nanoTime() - startTime)
+      .createSearchResult();
+  }
+
+  private int searchNode(int depth, int ply, int alpha, int beta) {
+    principalVariationLengths[ply] = ply;
+    long key = grid.positionKey();
+    positionKeys[ply] = key;
+    if (ply > 0 && isRepetition(key, ply)) {
+      return DRAW;
+    }
+    if (ply > 0) {
+      int result = tablebase.probe(grid);
+      if (result != Tablebase.UNKNOWN) {
+        return scoreTablebaseResult(result, ply);
+      }
+    }
+    if (depth <= 0) {
+      return searchCaptures(ply, alpha, beta);
+    }
+    nodes++;
+    checkLimits();
+    if (aborted) {
+      return DRAW;
+    }
+    if (ply == MAX_PLY - 1) {
+      return Evaluation.evaluate(grid, pawnTable);
+    }
+
+    int tableMove = PackedMove.NONE;
+    long entry = table.probe(key);
+    if (entry != TranspositionTable.NO_ENTRY) {
+      tableMove = TranspositionTable.move(entry);
+      int score = fromTable(TranspositionTable.score(entry), ply);
+      if (ply > 0 && TranspositionTable.depth(entry) >= depth
+        && isCutoff(TranspositionTable.bound(entry), score, alpha, beta)) {
+        return score;
+      }
+    }
+
+    boolean inCheck = grid.isInCheck();
+    // Pruning only happens in null windows, where no exact score is needed
+    boolean prunable = beta - alpha == 1 && !inCheck && !isMate(beta);
+    int staticScore = prunable
+      ? Evaluation.evaluate(grid, pawnTable)
+      : -INFINITY;
+    if (prunable && pruning.contains(Pruning.RAZORING)
+      && depth <= RAZORING_DEPTH
+      && staticScore + RAZORING_MARGIN * depth <= alpha) {
+      int score = searchCaptures(ply, alpha, beta);
+      if (score <= alpha) {
+        return score;
+      }
+    }
+    if (prunable && pruning.contains(Pruning.NULL_MOVE)
+      && isNullMoveAllowed(depth, ply, staticScore, beta)) {
+      int score = searchNullMove(depth, ply, beta);
+      if (aborted) {
+        return DRAW;
+      }
+      if (score >= beta) {
+        return isMate(score) ? beta : score;
+      }
+    }
+
+    var moves = moveLists[ply];
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    if (moves.isEmpty()) {
+      return inCheck ? -MATE + ply : DRAW;
+    }
+    var scores = moveScores[ply];
+    moveOrdering.scoreMoves(grid, moves, scores, ply, tableMove);
+
+    int futilityScore = staticScore + FUTILITY_MARGIN * depth;
+    boolean futile = prunable && pruning.contains(Pruning.FUTILITY)
+      && depth <= FUTILITY_DEPTH && futilityScore <= alpha;
+    boolean reducible = pruning.contains(Pruning.LATE_MOVE_REDUCTIONS)
+      && depth >= REDUCTION_DEPTH && !inCheck;
+    int originalAlpha = alpha;
+    int bestScore = -INFINITY;
+    int bestMove = PackedMove.NONE;
+    for (int index = 0; index < moves.size(); index++) {
+      int move = moveOrdering.selectMove(moves, scores, index);
+      grid.makeMove(move);
+      // Captures, promotions and checks are never pruned or reduced
+      boolean quiet = index > 0 && (futile || reducible)
+        && !isTactical(move) && !grid.isInCheck();
+      if (futile && quiet) {
+        grid.unmakeMove();
+        bestScore = Math.max(bestScore, futilityScore);
+        continue;
+      }
+      int score;
+      if (index == 0) {
+        score = -searchNode(depth - 1, ply + 1, -beta, -alpha);
+      } else {
+        int reduction = reducible && quiet
+          ? Math.min(resolveReduction(depth, index), depth - 1)
+          : 0;
+        score = -searchNode(depth - 1 - reduction, ply + 1, -alpha - 1,
+          -alpha);
+        if (reduction > 0 && score > alpha) {
+          score = -searchNode(depth - 1, ply + 1, -alpha - 1, -alpha);
+        }
+        if (score > alpha && score < beta) {
+          score = -searchNode(depth - 1, ply + 1, -beta, -alpha);
+        }
+      }
+      grid.unmakeMove();
+      if (aborted) {
+        return DRAW;
+      }
+      if (score > bestScore) {
+        bestScore = score;
+        bestMove = move;
+        if (score > alpha) {
+          alpha = score;
+          updatePrincipalVariation(ply, move);
+          if (alpha >= beta) {
+            moveOrdering.recordCutoff(grid.playingTeam(), ply, move, depth,
+              index);
+            break;
+          }
+        }
+      }
+    }
+    table.store(key, bestMove, toTable(bestScore, ply),
+      Math.min(depth, TranspositionTable.MAX_DEPTH),
+      resolveBound(bestScore, originalAlpha, beta));
+    return bestScore;
+  }
+
+  private static final int RAZORING_DEPTH = 2;
+  private static final int RAZORING_MARGIN = 300;
+  private static final int FUTILITY_DEPTH = 2;
+  private static final int FUTILITY_MARGIN = 150;
+  private static final int NULL_MOVE_DEPTH = 3;
+  private static final int NULL_MOVE_REDUCTION = 2;
+  private static final int DEEP_NULL_MOVE_DEPTH = 7;
+
+  /**
+   * No two null moves in a row and none without pieces beside pawns,
+   * where zugzwang is common and passing would be better than any move.
+   */
+  private boolean isNullMoveAllowed(
+    int depth,
+    int ply,
+    int staticScore,
+    int beta
+  ) {
+    return ply > 0 && depth >= NULL_MOVE_DEPTH && staticScore >= beta
+      && !nullMoves[ply - 1] && hasPiecesBesidePawns(grid.playingTeam());
+  }
+
+  private int searchNullMove(int depth, int ply, int beta) {
+    int reduction = depth >= DEEP_NULL_MOVE_DEPTH
+      ? NULL_MOVE_REDUCTION + 1
+      : NULL_MOVE_REDUCTION;
+    nullMoves[ply] = true;
+    grid.makeNullMove();
+    int score = -searchNode(depth - 1 - reduction, ply + 1, -beta,
+      -beta + 1);
+    grid.unmakeMove();
+    nullMoves[ply] = false;
+    return score;
+  }
+
+  private boolean hasPiecesBesidePawns(Team team) {
+    return (grid.pieceBoard(team, PieceType.KNIGHT)
+      | grid.pieceBoard(team, PieceType.BISHOP)
+      | grid.pieceBoard(team, PieceType.ROOK)
+      | grid.pieceBoard(team, PieceType.QUEEN)) != Bitboards.EMPTY;
+  }
+
+  private static final int REDUCTION_DEPTH = 3;
+  private static final int MAX_REDUCTION_INDEX = 64;
+  private static final int[][] REDUCTIONS = createReductions();
+
+  // The later a move comes in the ordering and the deeper the node, the
+  // less likely the move is the best one
+  private static int[][] createReductions() {
+    int[][] reductions = new int[MAX_REDUCTION_INDEX][MAX_REDUCTION_INDEX];
+    for (int depth = 1; depth < MAX_REDUCTION_INDEX; depth++) {
+      for (int index = 1; index < MAX_REDUCTION_INDEX; index++) {
+        reductions[depth][index] =
+          (int) (0.75 + Math.log(depth) * Math.log(index) / 2.25);
+      }
+    }
+    return reductions;
+  }
+
+  private static int resolveReduction(int depth, int index) {
+    return REDUCTIONS[Math.min(depth, MAX_REDUCTION_INDEX - 1)]
+      [Math.min(index, MAX_REDUCTION_INDEX - 1)];
+  }
+
+  private static int scoreTablebaseResult(int result, int ply) {
+    if (Tablebase.isWin(result)) {
+      return MATE - ply - Tablebase.plies(result);
+    }
+    return Tablebase.isLoss(result)
+      ? -MATE + ply + Tablebase.plies(result)
+      : DRAW;
+  }
+
+  private static boolean isMate(int score) {
+    return Math.abs(score) >= MATE - MAX_PLY;
+  }
+
+  /**
+   * Quiescence search: only captures and promotions are searched until
+   * the position is quiet, so the evaluation never stops in the middle of
+   * an exchange. The playing team may always stand pat with the
+   * evaluation instead, except in check, where every move is searched.
+   * Captures that lose material by static exchange are skipped.
+   */
+  private int searchCaptures(int ply, int alpha, int beta) {
+    principalVariationLengths[ply] = ply;
+    nodes++;
+    checkLimits();
+    if (aborted) {
+      return DRAW;
+    }
+    if (ply == MAX_PLY - 1) {
+      return Evaluation.evaluate(grid, pawnTable);
+    }
+    var moves = moveLists[ply];
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    boolean inCheck = grid.isInCheck();
+    if (moves.isEmpty()) {
+      return inCheck ? -MATE + ply : DRAW;
+    }
+
+    int bestScore = -INFINITY;
+    if (!inCheck) {
+      bestScore = Evaluation.evaluate(grid, pawnTable);
+      if (bestScore >= beta) {
+        return bestScore;
+      }
+      alpha = Math.max(alpha, bestScore);
+      moves.removeIf(move -> !isTactical(move));
+    }
+    var scores = moveScores[ply];
+    moveOrdering.scoreMoves(grid, moves, scores, ply, PackedMove.NONE);
+    for (int index = 0; index < moves.size(); index++) {
+      int move = moveOrdering.selectMove(moves, scores, index);
+      if (!inCheck && staticExchange.evaluate(grid, move) < 0) {
+        continue;
+      }
+      grid.makeMove(move);
+      int score = -searchCaptures(ply + 1, -beta, -alpha);
+      grid.unmakeMove();
+      if (aborted) {
+        return DRAW;
+      }
+      if (score > bestScore) {
+        bestScore = score;
+        if (score > alpha) {
+          alpha = score;
+          if (alpha >= beta) {
+            break;
+          }
+        }
+      }
+    }
+    return bestScore;
+  }
+
+  private static boolean isTactical(int move) {
+    return PackedMove.isCapture(move) || PackedMove.isPromotion(move);
+  }
+
+  private static final int LIMIT_CHECK_MASK = 0x3FF;
+
+  // Reading the clock and the stop flag is slow, so both are only read
+  // every 1024 nodes
+  private void checkLimits() {
+    if ((nodes & LIMIT_CHECK_MASK) == 0 && stopped.get()) {
+      aborted = true;
+    }
+    if (completedDepth == 0) {
+      return;
+    }
+    if (nodes >= limits.maxNodes()
+      || ((nodes & LIMIT_CHECK_MASK) == 0
+      && limits.isExceeded(nodes, System.nanoTime() - startTime))) {
+      aborted = true;
+    }
+  }
+
+  // Only repetitions within the searched line are found, the moves before
+  // the root are unknown to the search. A null move ends the line, since
+  // positions before it can not really repeat.
+  private boolean isRepetition(long key, int ply) {
+    for (int previous = ply - 2; previous >= 0; previous -= 2) {
+      if (nullMoves[previous] || nullMoves[previous + 1]) {
+        return false;
+      }
+      if (positionKeys[previous] == key) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isCutoff(int bound, int score, int alpha, int beta) {
+    return switch (bound) {
+      case TranspositionTable.EXACT -> true;
+      case TranspositionTable.LOWER_BOUND -> score >= beta;
+      case TranspositionTable.UPPER_BOUND -> score <= alpha;
+      default -> false;
+    };
+  }
+
+  private static int resolveBound(int score, int alpha, int beta) {
+    if (score >= beta) {
+      return TranspositionTable.LOWER_BOUND;
+    }
+    return score > alpha
+      ? TranspositionTable.EXACT
+      : TranspositionTable.UPPER_BOUND;
+  }
+
+  private void updatePrincipalVariation(int ply, int move) {
+    var variation = principalVariations[ply];
+    variation[ply] = move;
+    int length = principalVariationLengths[ply + 1];
+    System.arraycopy(principalVariations[ply + 1], ply + 1, variation,
+      ply + 1, length - ply - 1);
+    principalVariationLengths[ply] = Math.max(length, ply + 1);
+  }
+
+  // Mate scores are stored relative to the position, not to the root
+  private static int toTable(int score, int ply) {
+    if (score >= MATE - MAX_PLY) {
+      return score + ply;
+    }
+    return score <= -MATE + MAX_PLY ? score - ply : score;
+  }
+
+  private static int fromTable(int score, int ply) {
+    if (score >= MATE - MAX_PLY) {
+      return score - ply;
+    }
+    return score <= -MATE + MAX_PLY ? score + ply : score;
+  }
+}
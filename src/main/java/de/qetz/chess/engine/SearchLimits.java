@@ -0,0 +1,75 @@
+package de.qetz.chess.engine;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Duration;
+
+/**
+ * Bounds a search by depth, searched nodes and time. The first depth is
+ * always searched completely, so there is a move even if the budget is
+ * exhausted early.
+ */
+public final class SearchLimits {
+  public static final int MAX_DEPTH = 64;
+
+  private final int maxDepth;
+  private final long maxNodes;
+  private final long maxNanos;
+
+  private SearchLimits(int maxDepth, long maxNodes, long maxNanos) {
+    this.maxDepth = maxDepth;
+    this.maxNodes = maxNodes;
+    this.maxNanos = maxNanos;
+  }
+
+  public int maxDepth() {
+    return maxDepth;
+  }
+
+  public long maxNodes() {
+    return maxNodes;
+  }
+
+  public long maxNanos() {
+    return maxNanos;
+  }
+
+  public boolean isExceeded(long nodes, long nanos) {
+    return nodes >= maxNodes || nanos >= maxNanos;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+    private int maxDepth = MAX_DEPTH;
+    private long maxNodes = Long.MAX_VALUE;
+    private long maxNanos = Long.MAX_VALUE;
+
+    private Builder() {}
+
+    public Builder withMaxDepth(int maxDepth) {
+      Preconditions.checkArgument(maxDepth > 0 && maxDepth <= MAX_DEPTH);
+      this.maxDepth = maxDepth;
+      return this;
+    }
+
+    public Builder withMaxNodes(long maxNodes) {
+      Preconditions.checkArgument(maxNodes > 0);
+      this.maxNodes = maxNodes;
+      return this;
+    }
+
+    public Builder withMaxTime(Duration maxTime) {
+      Preconditions.checkNotNull(maxTime);
+      Preconditions.checkArgument(!maxTime.isNegative() && !maxTime.isZero());
+      this.maxNanos = maxTime.toNanos();
+      return this;
+    }
+
+    public SearchLimits createSearchLimits() {
+      return new SearchLimits(maxDepth, maxNodes, maxNanos);
+    }
+  }
+}
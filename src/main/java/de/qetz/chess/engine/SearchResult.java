@@ -0,0 +1,107 @@
+package de.qetz.chess.engine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.base.Preconditions;
+
+import java.util.Optional;
+import java.util.List;
+
+import de.qetz.chess.game.position.Move;
+
+public final class SearchResult {
+  private final List<Move> principalVariation;
+  private final int score;
+  private final int depth;
+  private final long nodes;
+  private final long nanos;
+
+  private SearchResult(
+    List<Move> principalVariation,
+    int score,
+    int depth,
+    long nodes,
+    long nanos
+  ) {
+    this.principalVariation = principalVariation;
+    this.score = score;
+    this.depth = depth;
+    this.nodes = nodes;
+    this.nanos = nanos;
+  }
+
+  // Empty if the playing team has no move at all
+  public Optional<Move> bestMove() {
+    return principalVariation.isEmpty()
+      ? Optional.empty()
+      : Optional.of(principalVariation.get(0));
+  }
+
+  public List<Move> principalVariation() {
+    return principalVariation;
+  }
+
+  // In centipawns from the view of the team that was playing
+  public int score() {
+    return score;
+  }
+
+  public boolean isMate() {
+    return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+  }
+
+  public int depth() {
+    return depth;
+  }
+
+  public long nodes() {
+    return nodes;
+  }
+
+  public long nanos() {
+    return nanos;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+    private List<Move> principalVariation = ImmutableList.of();
+    private int score;
+    private int depth;
+    private long nodes;
+    private long nanos;
+
+    private Builder() {}
+
+    public Builder withPrincipalVariation(List<Move> principalVariation) {
+      Preconditions.checkNotNull(principalVariation);
+      this.principalVariation = ImmutableList.copyOf(principalVariation);
+      return this;
+    }
+
+    public Builder withScore(int score) {
+      this.score = score;
+      return this;
+    }
+
+    public Builder withDepth(int depth) {
+      this.depth = depth;
+      return this;
+    }
+
+    public Builder withNodes(long nodes) {
+      this.nodes = nodes;
+      return this;
+    }
+
+    public Builder withNanos(long nanos) {
+      this.nanos = nanos;
+      return this;
+    }
+
+    public SearchResult createSearchResult() {
+      return new SearchResult(principalVariation, score, depth, nodes, nanos);
+    }
+  }
+}
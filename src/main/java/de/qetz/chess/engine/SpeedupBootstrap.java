@@ -0,0 +1,75 @@
+package de.qetz.chess.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import de.qetz.chess.perft.PerftPosition;
+
+/**
+ * Measures the speedup of the parallel search: the reference positions
+ * are searched to a fixed depth with 1, 2, 4 ... threads up to the given
+ * count and the time to depth is compared to the one of a single thread.
+ */
+public final class SpeedupBootstrap {
+  private static final Logger LOG =
+    Logger.getLogger(SpeedupBootstrap.class.getSimpleName());
+
+  private static final int TABLE_MEGABYTES = 256;
+
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      LOG.severe("Usage: <depth> <max threads>");
+      return;
+    }
+    int depth = Integer.parseInt(args[0]);
+    int maxThreads = Integer.parseInt(args[1]);
+    var limits = SearchLimits.newBuilder()
+      .withMaxDepth(depth)
+      .createSearchLimits();
+    var table = TranspositionTable.createWithSize(TABLE_MEGABYTES);
+    // Warms up the JIT, otherwise the first thread count is the slowest
+    searchPositions(limits, table, maxThreads);
+
+    long singleNanos = 0;
+    for (int threads = 1; threads <= maxThreads;
+      threads = nextThreadCount(threads, maxThreads)) {
+      var results = searchPositions(limits, table, threads);
+      long nanos = results[0];
+      long nodes = results[1];
+      if (threads == 1) {
+        singleNanos = nanos;
+      }
+      LOG.info(String.format("Threads: %d, time: %d ms, speedup: %.2f, "
+          + "nodes per second: %d", threads,
+        TimeUnit.NANOSECONDS.toMillis(nanos),
+        (double) singleNanos / nanos,
+        nodes * TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1)));
+    }
+  }
+
+  // Returns the summed time and nodes of all positions
+  private static long[] searchPositions(
+    SearchLimits limits,
+    TranspositionTable table,
+    int threads
+  ) {
+    long nanos = 0;
+    long nodes = 0;
+    for (var position : PerftPosition.values()) {
+      table.clear();
+      var search = ParallelSearch.createFor(
+        position.createFactory().createBitboardGrid(), table);
+      var result = search.search(limits, threads);
+      search.shutdown();
+      nanos += result.nanos();
+      nodes += result.nodes();
+    }
+    return new long[]{nanos, nodes};
+  }
+
+  private static int nextThreadCount(int threads, int maxThreads) {
+    return threads < maxThreads && threads * 2 > maxThreads
+      ? maxThreads
+      : threads * 2;
+  }
+}
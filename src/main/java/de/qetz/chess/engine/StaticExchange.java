@@ -0,0 +1,164 @@
+package de.qetz.chess.engine;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.bitboard.AttackTables;
+import de.qetz.chess.game.bitboard.MagicAttacks;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Calculates the material a move wins if both teams keep capturing on its
+ * target field with their least valuable piece and may stop whenever
+ * continuing would lose. Sliders behind a capturing piece join the
+ * exchange once it has left its field. Pins are ignored.
+ *
+ * <p>Keeps its buffers between calls, so every search thread needs its
+ * own instance.
+ */
+public final class StaticExchange {
+  public static StaticExchange create() {
+    return new StaticExchange();
+  }
+
+  private static final int MAX_EXCHANGES = 32;
+  // Higher than everything else, so the king only captures last
+  private static final int KING_VALUE = 20_000;
+
+  private final long[] pieces = new long[Bitboards.PIECES];
+  private final int[] gains = new int[MAX_EXCHANGES];
+
+  private StaticExchange() {}
+
+  /**
+   * The material the playing team wins with the move in centipawns, which
+   * is negative if the move loses material.
+   */
+  public int evaluate(Grid grid, int move) {
+    Preconditions.checkNotNull(grid);
+    for (var team : Team.values()) {
+      for (var type : PieceType.values()) {
+        pieces[Bitboards.pieceIndex(team, type)] =
+          grid.pieceBoard(team, type);
+      }
+    }
+    var team = grid.playingTeam();
+    int from = PackedMove.from(move);
+    int to = PackedMove.to(move);
+    long occupied = calculateOccupied();
+    var attacker = resolvePieceType(team, from);
+
+    gains[0] = 0;
+    if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+      gains[0] = valueOf(PieceType.PAWN);
+      occupied &= ~Bitboards.bit(resolveEnPassantSquare(from, to));
+    } else if (PackedMove.isCapture(move)) {
+      gains[0] = valueOf(resolvePieceType(resolveEnemy(team), to));
+    }
+    if (PackedMove.isPromotion(move)) {
+      attacker = PackedMove.promotion(move);
+      gains[0] += valueOf(attacker) - valueOf(PieceType.PAWN);
+    }
+
+    occupied &= ~Bitboards.bit(from);
+    long attackers = calculateAttackers(to, occupied) & occupied;
+    var side = resolveEnemy(team);
+    int depth = 0;
+    while (depth + 1 < MAX_EXCHANGES) {
+      long sideAttackers = attackers & calculateTeam(side);
+      if (sideAttackers == Bitboards.EMPTY) {
+        break;
+      }
+      depth++;
+      gains[depth] = valueOf(attacker) - gains[depth - 1];
+      // Neither team can gain by continuing from here on
+      if (Math.max(-gains[depth - 1], gains[depth]) < 0) {
+        break;
+      }
+      attacker = resolveLeastValuable(side, sideAttackers);
+      long attackerBit = Long.lowestOneBit(
+        sideAttackers & pieces[Bitboards.pieceIndex(side, attacker)]);
+      occupied &= ~attackerBit;
+      attackers = calculateAttackers(to, occupied) & occupied;
+      side = resolveEnemy(side);
+    }
+    while (depth > 0) {
+      gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+      depth--;
+    }
+    return gains[0];
+  }
+
+  private long calculateAttackers(int square, long occupied) {
+    long bishops = pieces[index(Team.WHITE, PieceType.BISHOP)]
+      | pieces[index(Team.BLACK, PieceType.BISHOP)]
+      | pieces[index(Team.WHITE, PieceType.QUEEN)]
+      | pieces[index(Team.BLACK, PieceType.QUEEN)];
+    long rooks = pieces[index(Team.WHITE, PieceType.ROOK)]
+      | pieces[index(Team.BLACK, PieceType.ROOK)]
+      | pieces[index(Team.WHITE, PieceType.QUEEN)]
+      | pieces[index(Team.BLACK, PieceType.QUEEN)];
+    return AttackTables.pawnAttacks(Team.BLACK, square)
+        & pieces[index(Team.WHITE, PieceType.PAWN)]
+      | AttackTables.pawnAttacks(Team.WHITE, square)
+        & pieces[index(Team.BLACK, PieceType.PAWN)]
+      | AttackTables.knightAttacks(square)
+        & (pieces[index(Team.WHITE, PieceType.KNIGHT)]
+        | pieces[index(Team.BLACK, PieceType.KNIGHT)])
+      | AttackTables.kingAttacks(square)
+        & (pieces[index(Team.WHITE, PieceType.KING)]
+        | pieces[index(Team.BLACK, PieceType.KING)])
+      | MagicAttacks.bishopAttacks(square, occupied) & bishops
+      | MagicAttacks.rookAttacks(square, occupied) & rooks;
+  }
+
+  private PieceType resolveLeastValuable(Team team, long attackers) {
+    for (var type : PieceType.values()) {
+      if ((attackers & pieces[index(team, type)]) != Bitboards.EMPTY) {
+        return type;
+      }
+    }
+    throw new IllegalStateException("No attacker of team " + team);
+  }
+
+  private PieceType resolvePieceType(Team team, int square) {
+    for (var type : PieceType.values()) {
+      if (Bitboards.contains(pieces[index(team, type)], square)) {
+        return type;
+      }
+    }
+    throw new IllegalStateException("No piece on square " + square);
+  }
+
+  private long calculateOccupied() {
+    return calculateTeam(Team.WHITE) | calculateTeam(Team.BLACK);
+  }
+
+  private long calculateTeam(Team team) {
+    long board = Bitboards.EMPTY;
+    for (var type : PieceType.values()) {
+      board |= pieces[index(team, type)];
+    }
+    return board;
+  }
+
+  // The captured pawn stands next to the moving one, on its column
+  private static int resolveEnPassantSquare(int from, int to) {
+    return Bitboards.square(Bitboards.column(from), Bitboards.row(to));
+  }
+
+  private static int valueOf(PieceType type) {
+    return type == PieceType.KING ? KING_VALUE : Evaluation.pieceValue(type);
+  }
+
+  private static int index(Team team, PieceType type) {
+    return Bitboards.pieceIndex(team, type);
+  }
+
+  private static Team resolveEnemy(Team team) {
+    return team == Team.WHITE ? Team.BLACK : Team.WHITE;
+  }
+}
@@ -0,0 +1,227 @@
+package de.qetz.chess.engine;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import de.qetz.chess.game.position.PackedMove;
+
+/**
+ * A fixed size cache of searched positions outside of the heap. Every
+ * entry is two longs, the position key xor the data and the data itself,
+ * so an entry that was torn by two threads writing at the same time no
+ * longer matches its key and is treated as a miss. That way the table can
+ * be shared by all search threads without any locks.
+ *
+ * <p>Entries are grouped in buckets of four, which fill one cache line. A
+ * new entry replaces the entry of the same position or the least valuable
+ * one of its bucket, which is the shallowest and oldest.
+ */
+public final class TranspositionTable {
+  public static final long NO_ENTRY = 0L;
+
+  public static final int EXACT = 0;
+  public static final int LOWER_BOUND = 1;
+  public static final int UPPER_BOUND = 2;
+
+  public static final int MAX_DEPTH = 0xFF;
+  public static final int MAX_MEGABYTES = 1024;
+
+  private static final int ENTRY_BYTES = 2 * Long.BYTES;
+  private static final int BUCKET_ENTRIES = 4;
+  private static final int BUCKET_BYTES = BUCKET_ENTRIES * ENTRY_BYTES;
+  private static final int BYTES_PER_MEGABYTE = 1 << 20;
+
+  // Data layout: bits 0-18 move, 19-34 score, 35-42 depth, 43-44 bound,
+  // 45-52 age and bit 62 marks a used entry
+  private static final long MOVE_MASK = 0x7FFFF;
+  private static final int SCORE_SHIFT = 19;
+  private static final long SCORE_MASK = 0xFFFF;
+  private static final int DEPTH_SHIFT = 35;
+  private static final int BOUND_SHIFT = 43;
+  private static final long BOUND_MASK = 0x3;
+  private static final int AGE_SHIFT = 45;
+  private static final int AGE_MASK = 0xFF;
+  private static final long USED = 1L << 62;
+
+  private static final VarHandle LONGS = MethodHandles
+    .byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  public static TranspositionTable createWithSize(int megabytes) {
+    Preconditions.checkArgument(megabytes > 0);
+    Preconditions.checkArgument(megabytes <= MAX_MEGABYTES);
+    int buckets = Integer.highestOneBit(
+      (int) ((long) megabytes * BYTES_PER_MEGABYTE / BUCKET_BYTES));
+    return new TranspositionTable(buckets);
+  }
+
+  private final ByteBuffer table;
+  private final int bucketMask;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder collisions = new LongAdder();
+  private volatile int age;
+
+  private TranspositionTable(int buckets) {
+    this.table = ByteBuffer.allocateDirect(buckets * BUCKET_BYTES)
+      .order(ByteOrder.nativeOrder());
+    this.bucketMask = buckets - 1;
+  }
+
+  /**
+   * Returns the stored data of a position or {@link #NO_ENTRY}. The parts
+   * are read with the static accessors, so probing does not allocate.
+   */
+  public long probe(long key) {
+    int bucket = resolveBucket(key);
+    for (int index = 0; index < BUCKET_ENTRIES; index++) {
+      int offset = bucket + index * ENTRY_BYTES;
+      long data = readData(offset);
+      if (data != NO_ENTRY && (readKey(offset) ^ data) == key) {
+        hits.increment();
+        return data;
+      }
+    }
+    misses.increment();
+    return NO_ENTRY;
+  }
+
+  private static final int REPLACE_DEPTH_MARGIN = 4;
+
+  public void store(long key, int move, int score, int depth, int bound) {
+    Preconditions.checkArgument(depth >= 0 && depth <= MAX_DEPTH);
+    Preconditions.checkArgument(score >= Short.MIN_VALUE
+      && score <= Short.MAX_VALUE);
+    Preconditions.checkArgument(bound >= EXACT && bound <= UPPER_BOUND);
+    int currentAge = age;
+    int bucket = resolveBucket(key);
+    int victim = bucket;
+    int victimValue = Integer.MAX_VALUE;
+    for (int index = 0; index < BUCKET_ENTRIES; index++) {
+      int offset = bucket + index * ENTRY_BYTES;
+      long data = readData(offset);
+      if (data == NO_ENTRY) {
+        write(offset, key, pack(move, score, depth, bound, currentAge));
+        return;
+      }
+      if ((readKey(offset) ^ data) == key) {
+        if (bound == EXACT
+          || depth + REPLACE_DEPTH_MARGIN > depth(data)
+          || age(data) != currentAge) {
+          int storedMove = move == PackedMove.NONE ? move(data) : move;
+          write(offset, key, pack(storedMove, score, depth, bound, currentAge));
+        }
+        return;
+      }
+      int value = calculateValue(data, currentAge);
+      if (value < victimValue) {
+        victim = offset;
+        victimValue = value;
+      }
+    }
+    collisions.increment();
+    write(victim, key, pack(move, score, depth, bound, currentAge));
+  }
+
+  private static final int AGE_WEIGHT = 8;
+
+  private int calculateValue(long data, int currentAge) {
+    int ageDistance = (currentAge - age(data)) & AGE_MASK;
+    return depth(data) - AGE_WEIGHT * ageDistance;
+  }
+
+  /**
+   * Starts a new search, entries of older searches are replaced first.
+   */
+  public void newSearch() {
+    age = (age + 1) & AGE_MASK;
+  }
+
+  public void clear() {
+    for (int offset = 0; offset < table.capacity(); offset += Long.BYTES) {
+      LONGS.setOpaque(table, offset, NO_ENTRY);
+    }
+    resetStatistics();
+  }
+
+  public void resetStatistics() {
+    hits.reset();
+    misses.reset();
+    collisions.reset();
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * How often a position replaced an entry of another position.
+   */
+  public long collisions() {
+    return collisions.sum();
+  }
+
+  public double hitRate() {
+    long hits = hits();
+    long probes = hits + misses();
+    return probes == 0 ? 0 : (double) hits / probes;
+  }
+
+  public int capacity() {
+    return (bucketMask + 1) * BUCKET_ENTRIES;
+  }
+
+  private int resolveBucket(long key) {
+    return (int) (key >>> Integer.SIZE & bucketMask) * BUCKET_BYTES;
+  }
+
+  private long readKey(int offset) {
+    return (long) LONGS.getOpaque(table, offset);
+  }
+
+  private long readData(int offset) {
+    return (long) LONGS.getOpaque(table, offset + Long.BYTES);
+  }
+
+  private void write(int offset, long key, long data) {
+    LONGS.setOpaque(table, offset, key ^ data);
+    LONGS.setOpaque(table, offset + Long.BYTES, data);
+  }
+
+  private static long pack(int move, int score, int depth, int bound, int age) {
+    return (move & MOVE_MASK)
+      | (score & SCORE_MASK) << SCORE_SHIFT
+      | (long) depth << DEPTH_SHIFT
+      | (long) bound << BOUND_SHIFT
+      | (long) age << AGE_SHIFT
+      | USED;
+  }
+
+  public static int move(long entry) {
+    return (int) (entry & MOVE_MASK);
+  }
+
+  public static int score(long entry) {
+    return (short) (entry >>> SCORE_SHIFT & SCORE_MASK);
+  }
+
+  public static int depth(long entry) {
+    return (int) (entry >>> DEPTH_SHIFT & MAX_DEPTH);
+  }
+
+  public static int bound(long entry) {
+    return (int) (entry >>> BOUND_SHIFT & BOUND_MASK);
+  }
+
+  private static int age(long entry) {
+    return (int) (entry >>> AGE_SHIFT & AGE_MASK);
+  }
+}
@@ -0,0 +1,682 @@
+package de.qetz.chess.game;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Map;
+
+import de.qetz.chess.event.concrete.GameFinishedTrigger;
+import de.qetz.chess.game.bitboard.PieceSquareTables;
+import de.qetz.chess.game.bitboard.CastlingRights;
+import de.qetz.chess.game.bitboard.AttackTables;
+import de.qetz.chess.game.bitboard.MagicAttacks;
+import de.qetz.chess.game.bitboard.ZobristKeys;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.AttackMap;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.event.EventCalling;
+import de.qetz.chess.game.position.Move;
+import de.qetz.chess.game.piece.Team;
+
+/**
+ * Stores the grid as one bitboard per team and piece type instead of
+ * piece objects and generates packed moves. The generated moves are the
+ * same as the ones of the {@link DefaultChessGrid}, only the order of the
+ * moves of a piece differs.
+ */
+public final class BitboardChessGrid implements Grid {
+  /**
+   * A grid of the piece indices of a factory, pieces on unmoved fields
+   * keep their castling rights.
+   */
+  static BitboardChessGrid createDefault(
+    int[] pieces,
+    long unmoved,
+    Team playingTeam,
+    int enPassantSquare
+  ) {
+    Preconditions.checkNotNull(pieces);
+    Preconditions.checkNotNull(playingTeam);
+    BitboardChessGrid chessGrid = new BitboardChessGrid(playingTeam);
+    for (int square = 0; square < pieces.length; square++) {
+      if (pieces[square] != DefaultChessGridFactory.NO_PIECE) {
+        chessGrid.putPiece(square, pieces[square]);
+      }
+    }
+    chessGrid.unmoved = unmoved & chessGrid.occupied;
+    if (playingTeam == Team.BLACK) {
+      chessGrid.positionKey ^= ZobristKeys.blackPlaying();
+    }
+    chessGrid.updateEnPassantSquare(enPassantSquare);
+    chessGrid.updateCastlingRights();
+    // A new grid is not the result of a move, so it calls no events even
+    // if the game is already finished
+    chessGrid.resolveCurrentMoves();
+    return chessGrid;
+  }
+
+  private static final int NO_PIECE = -1;
+  private static final int DEFAULT_UNDO_CAPACITY = 64;
+
+  private final long[] pieces = new long[Bitboards.PIECES];
+  private final long[] teams = new long[Team.values().length];
+  private final int[] squares = new int[Bitboards.SQUARES];
+  private final MoveList currentMoves = MoveList.create();
+  private final MoveList pieceMoves = MoveList.create();
+  private int[] undoMoves = new int[DEFAULT_UNDO_CAPACITY];
+  private int[] undoCaptures = new int[DEFAULT_UNDO_CAPACITY];
+  private long[] undoUnmoved = new long[DEFAULT_UNDO_CAPACITY];
+  private long[] undoKeys = new long[DEFAULT_UNDO_CAPACITY];
+  private int[] undoEnPassant = new int[DEFAULT_UNDO_CAPACITY];
+  private int undoSize;
+  private boolean currentMovesCalculated;
+  private long occupied;
+  private long unmoved;
+  private long positionKey;
+  private long pawnKey;
+  private int middlegameScore;
+  private int endgameScore;
+  private int phase;
+  private int castlingRights = CastlingRights.NONE;
+  private int enPassantSquare = Bitboards.NO_SQUARE;
+  private Map<Position, Collection<Move>> currentPossibleMoves;
+  private Team playingTeam;
+  private AttackMap attackMap;
+  private boolean inCheck;
+
+  private BitboardChessGrid(Team playingTeam) {
+    this.playingTeam = playingTeam;
+    Arrays.fill(squares, NO_PIECE);
+  }
+
+  @Override
+  public Team playingTeam() {
+    return playingTeam;
+  }
+
+  @Override
+  public long positionKey() {
+    return positionKey;
+  }
+
+  @Override
+  public long pawnKey() {
+    return pawnKey;
+  }
+
+  @Override
+  public int castlingRights() {
+    return castlingRights;
+  }
+
+  @Override
+  public int enPassantSquare() {
+    return enPassantSquare;
+  }
+
+  @Override
+  public String toFen() {
+    return DefaultChessGridFactory.toFen(this);
+  }
+
+  @Override
+  public BitboardChessGrid copy() {
+    BitboardChessGrid copy = new BitboardChessGrid(playingTeam);
+    System.arraycopy(pieces, 0, copy.pieces, 0, pieces.length);
+    System.arraycopy(teams, 0, copy.teams, 0, teams.length);
+    System.arraycopy(squares, 0, copy.squares, 0, squares.length);
+    copy.occupied = occupied;
+    copy.unmoved = unmoved;
+    copy.positionKey = positionKey;
+    copy.pawnKey = pawnKey;
+    copy.middlegameScore = middlegameScore;
+    copy.endgameScore = endgameScore;
+    copy.phase = phase;
+    copy.castlingRights = castlingRights;
+    copy.enPassantSquare = enPassantSquare;
+    return copy;
+  }
+
+  @Override
+  public int middlegameScore() {
+    return middlegameScore;
+  }
+
+  @Override
+  public int endgameScore() {
+    return endgameScore;
+  }
+
+  @Override
+  public int phase() {
+    return phase;
+  }
+
+  @Override
+  public long pieceBoard(Team team, PieceType type) {
+    Preconditions.checkNotNull(team);
+    Preconditions.checkNotNull(type);
+    return pieces[Bitboards.pieceIndex(team, type)];
+  }
+
+  @Override
+  public boolean isInCheck() {
+    return currentMovesCalculated
+      ? inCheck
+      : AttackMap.isKingAttacked(playingTeam, pieces);
+  }
+
+  @Override
+  public void executeMove(Move move) {
+    makeMove(move);
+    prepareNextMove();
+  }
+
+  @Override
+  public void makeMove(Move move) {
+    Preconditions.checkNotNull(move);
+    makeMove(packMove(move));
+  }
+
+  @Override
+  public void makeMove(int move) {
+    int from = PackedMove.from(move);
+    int to = PackedMove.to(move);
+    Preconditions.checkArgument(squares[from] != NO_PIECE);
+
+    int captureSquare = resolveCaptureSquare(move);
+    pushUndo(move, squares[captureSquare]);
+    this.playingTeam = resolveNextTeam(playingTeam);
+    positionKey ^= ZobristKeys.blackPlaying();
+    if (captureSquare != to) {
+      removePiece(captureSquare);
+    }
+    movePiece(from, to);
+    if (PackedMove.isPromotion(move)) {
+      Team team = resolveTeam(to);
+      removePiece(to);
+      putPiece(to, Bitboards.pieceIndex(team, PackedMove.promotion(move)));
+    }
+    if (PackedMove.hasFlag(move, PackedMove.CASTLING)) {
+      executeCastling(to);
+    }
+    updateEnPassantSquare(PackedMove.hasFlag(move, PackedMove.DOUBLE_WALK)
+      ? (from + to) / 2
+      : Bitboards.NO_SQUARE);
+    updateCastlingRights();
+    invalidateCurrentMoves();
+  }
+
+  @Override
+  public void makeNullMove() {
+    pushUndo(PackedMove.NONE, NO_PIECE);
+    this.playingTeam = resolveNextTeam(playingTeam);
+    positionKey ^= ZobristKeys.blackPlaying();
+    updateEnPassantSquare(Bitboards.NO_SQUARE);
+    invalidateCurrentMoves();
+  }
+
+  @Override
+  public void unmakeMove() {
+    Preconditions.checkState(undoSize > 0);
+    undoSize--;
+    int move = undoMoves[undoSize];
+    if (move == PackedMove.NONE) {
+      unmakeNullMove();
+      return;
+    }
+    int from = PackedMove.from(move);
+    int to = PackedMove.to(move);
+
+    if (PackedMove.hasFlag(move, PackedMove.CASTLING)) {
+      undoCastling(to);
+    }
+    int piece = PackedMove.isPromotion(move)
+      ? Bitboards.pieceIndex(resolveTeam(to), PieceType.PAWN)
+      : squares[to];
+    removePiece(to);
+    putPiece(from, piece);
+    if (undoCaptures[undoSize] != NO_PIECE) {
+      putPiece(resolveCaptureSquare(move), undoCaptures[undoSize]);
+    }
+    unmoved = undoUnmoved[undoSize];
+    positionKey = undoKeys[undoSize];
+    enPassantSquare = undoEnPassant[undoSize];
+    castlingRights = calculateCastlingRights();
+    this.playingTeam = resolveNextTeam(playingTeam);
+    invalidateCurrentMoves();
+  }
+
+  private void unmakeNullMove() {
+    positionKey = undoKeys[undoSize];
+    enPassantSquare = undoEnPassant[undoSize];
+    this.playingTeam = resolveNextTeam(playingTeam);
+    invalidateCurrentMoves();
+  }
+
+  // A pawn captured en passant stands next to the old field of the pawn
+  private static int resolveCaptureSquare(int move) {
+    int to = PackedMove.to(move);
+    return PackedMove.hasFlag(move, PackedMove.EN_PASSANT)
+      ? Bitboards.square(Bitboards.column(PackedMove.from(move)),
+        Bitboards.row(to))
+      : to;
+  }
+
+  private void pushUndo(int move, int captured) {
+    if (undoSize == undoMoves.length) {
+      int capacity = undoSize * 2;
+      undoMoves = Arrays.copyOf(undoMoves, capacity);
+      undoCaptures = Arrays.copyOf(undoCaptures, capacity);
+      undoUnmoved = Arrays.copyOf(undoUnmoved, capacity);
+      undoKeys = Arrays.copyOf(undoKeys, capacity);
+      undoEnPassant = Arrays.copyOf(undoEnPassant, capacity);
+    }
+    undoMoves[undoSize] = move;
+    undoCaptures[undoSize] = captured;
+    undoUnmoved[undoSize] = unmoved;
+    undoKeys[undoSize] = positionKey;
+    undoEnPassant[undoSize] = enPassantSquare;
+    undoSize++;
+  }
+
+  private void updateEnPassantSquare(int square) {
+    positionKey ^= ZobristKeys.enPassant(enPassantSquare)
+      ^ ZobristKeys.enPassant(square);
+    enPassantSquare = square;
+  }
+
+  private void updateCastlingRights() {
+    int rights = calculateCastlingRights();
+    positionKey ^= ZobristKeys.castling(castlingRights)
+      ^ ZobristKeys.castling(rights);
+    castlingRights = rights;
+  }
+
+  private int calculateCastlingRights() {
+    int rights = CastlingRights.NONE;
+    for (var team : Team.values()) {
+      int column = CastlingRights.homeColumn(team);
+      if (isUnmoved(column, CastlingRights.KING_ROW, PieceType.KING, team)) {
+        if (isUnmoved(column, CastlingRights.LEFT_ROOK_ROW, PieceType.ROOK,
+          team)) {
+          rights |= CastlingRights.left(team);
+        }
+        if (isUnmoved(column, CastlingRights.RIGHT_ROOK_ROW, PieceType.ROOK,
+          team)) {
+          rights |= CastlingRights.right(team);
+        }
+      }
+    }
+    return rights;
+  }
+
+  private boolean isUnmoved(int column, int row, PieceType type, Team team) {
+    int square = Bitboards.square(column, row);
+    return Bitboards.contains(unmoved, square)
+      && squares[square] == Bitboards.pieceIndex(team, type);
+  }
+
+  private void invalidateCurrentMoves() {
+    currentMovesCalculated = false;
+    currentPossibleMoves = null;
+  }
+
+  private void prepareNextMove() {
+    checkForOnlyTwoPieces();
+
+    resolveCurrentMoves();
+    checkForFinishedGame();
+  }
+
+  private MoveList resolveCurrentMoves() {
+    if (!currentMovesCalculated) {
+      calculateMovesForTeam(playingTeam, currentMoves);
+      currentMovesCalculated = true;
+    }
+    return currentMoves;
+  }
+
+  private static Team resolveNextTeam(Team oldTeam) {
+    return oldTeam == Team.WHITE ? Team.BLACK : Team.WHITE;
+  }
+
+  private int packMove(Move move) {
+    int from = Bitboards.square(move.oldPosition());
+    int to = Bitboards.square(move.newPosition());
+    int flags = squares[to] != NO_PIECE ? PackedMove.CAPTURE : PackedMove.QUIET;
+    var type = resolvePieceType(from);
+    if (type == PieceType.PAWN && Math.abs(to - from) == TWO_COLUMNS) {
+      flags |= PackedMove.DOUBLE_WALK;
+    } else if (type == PieceType.PAWN && to == enPassantSquare) {
+      flags = PackedMove.CAPTURE | PackedMove.EN_PASSANT;
+    } else if (type == PieceType.KING
+      && Math.abs(to - from) == CASTLING_DISTANCE) {
+      flags = PackedMove.CASTLING;
+    }
+    return move.promotion() != null
+      ? PackedMove.create(from, to, flags, move.promotion())
+      : PackedMove.create(from, to, flags);
+  }
+
+  private static final int CASTLING_DISTANCE = 2;
+  private static final int LEFT_CASTLING_ROW = 3;
+  private static final int RIGHT_CASTLING_ROW = 7;
+  private static final int LEFT_CASTLING_OLD_ROOK_POSITION_ROW = 1;
+  private static final int LEFT_CASTLING_NEW_ROOK_POSITION_ROW = 4;
+  private static final int RIGHT_CASTLING_OLD_ROOK_POSITION_ROW = 8;
+  private static final int RIGHT_CASTLING_NEW_ROOK_POSITION_ROW = 6;
+
+  private void executeCastling(int to) {
+    int column = Bitboards.column(to);
+    if (Bitboards.row(to) == LEFT_CASTLING_ROW) {
+      moveRook(Bitboards.square(column, LEFT_CASTLING_OLD_ROOK_POSITION_ROW),
+        Bitboards.square(column, LEFT_CASTLING_NEW_ROOK_POSITION_ROW));
+    } else {
+      moveRook(Bitboards.square(column, RIGHT_CASTLING_OLD_ROOK_POSITION_ROW),
+        Bitboards.square(column, RIGHT_CASTLING_NEW_ROOK_POSITION_ROW));
+    }
+  }
+
+  private void undoCastling(int to) {
+    int column = Bitboards.column(to);
+    if (Bitboards.row(to) == LEFT_CASTLING_ROW) {
+      moveRook(Bitboards.square(column, LEFT_CASTLING_NEW_ROOK_POSITION_ROW),
+        Bitboards.square(column, LEFT_CASTLING_OLD_ROOK_POSITION_ROW));
+    } else {
+      moveRook(Bitboards.square(column, RIGHT_CASTLING_NEW_ROOK_POSITION_ROW),
+        Bitboards.square(column, RIGHT_CASTLING_OLD_ROOK_POSITION_ROW));
+    }
+  }
+
+  private void moveRook(int from, int to) {
+    if (squares[from] != NO_PIECE) {
+      movePiece(from, to);
+    }
+  }
+
+  private void movePiece(int from, int to) {
+    int piece = squares[from];
+    if (squares[to] != NO_PIECE) {
+      removePiece(to);
+    }
+    removePiece(from);
+    putPiece(to, piece);
+    unmoved &= ~(Bitboards.bit(from) | Bitboards.bit(to));
+  }
+
+  private void putPiece(int square, int piece) {
+    long bit = Bitboards.bit(square);
+    pieces[piece] |= bit;
+    positionKey ^= ZobristKeys.piece(piece, square);
+    pawnKey ^= ZobristKeys.pawn(piece, square);
+    middlegameScore += PieceSquareTables.middlegame(piece, square);
+    endgameScore += PieceSquareTables.endgame(piece, square);
+    phase += PieceSquareTables.phase(piece);
+    teams[Bitboards.pieceTeam(piece).ordinal()] |= bit;
+    occupied |= bit;
+    squares[square] = piece;
+  }
+
+  private void removePiece(int square) {
+    int piece = squares[square];
+    long bit = Bitboards.bit(square);
+    pieces[piece] &= ~bit;
+    positionKey ^= ZobristKeys.piece(piece, square);
+    pawnKey ^= ZobristKeys.pawn(piece, square);
+    middlegameScore -= PieceSquareTables.middlegame(piece, square);
+    endgameScore -= PieceSquareTables.endgame(piece, square);
+    phase -= PieceSquareTables.phase(piece);
+    teams[Bitboards.pieceTeam(piece).ordinal()] &= ~bit;
+    occupied &= ~bit;
+    squares[square] = NO_PIECE;
+  }
+
+  private PieceType resolvePieceType(int square) {
+    return squares[square] == NO_PIECE
+      ? null
+      : Bitboards.pieceType(squares[square]);
+  }
+
+  private Team resolveTeam(int square) {
+    return Bitboards.pieceTeam(squares[square]);
+  }
+
+  private void checkForFinishedGame() {
+    Team enemy = resolveNextTeam(playingTeam);
+    if (teams[enemy.ordinal()] == Bitboards.EMPTY) {
+      EventCalling.callEvent(GameFinishedTrigger
+        .createWith(GameFinishedTrigger.GameFinishedReason.DRAW,
+          GameFinishedTrigger.GameWinner.ofTeam(enemy)));
+    }
+    if (currentMoves.isEmpty()) {
+      EventCalling.callEvent(inCheck
+        ? GameFinishedTrigger.createWith(
+          GameFinishedTrigger.GameFinishedReason.WIN,
+          GameFinishedTrigger.GameWinner.ofTeam(enemy))
+        : GameFinishedTrigger.createWith(
+          GameFinishedTrigger.GameFinishedReason.STALEMATE,
+          GameFinishedTrigger.GameWinner.NOBODY));
+    }
+  }
+
+  private void checkForOnlyTwoPieces() {
+    if (Bitboards.count(occupied) <= 2) {
+      EventCalling.callEvent(GameFinishedTrigger.createWith(
+        GameFinishedTrigger.GameFinishedReason.STALEMATE,
+        GameFinishedTrigger.GameWinner.NOBODY
+      ));
+    }
+  }
+
+  @Override
+  public Collection<Move> listPossibleMovesForPiece(Position position) {
+    Preconditions.checkNotNull(position);
+    int square = Bitboards.square(position);
+    if (squares[square] == NO_PIECE) {
+      return Lists.newArrayList();
+    }
+    pieceMoves.clear();
+    calculatePossibleMoves(square, pieceMoves);
+    Collection<Move> possibleMoves = Lists.newArrayList();
+    for (int index = 0; index < pieceMoves.size(); index++) {
+      possibleMoves.add(PackedMove.toMove(pieceMoves.get(index)));
+    }
+    return possibleMoves;
+  }
+
+  @Override
+  public Map<Position, Collection<Move>> listAllPossibleMovesForCurrentTeam() {
+    if (currentPossibleMoves == null) {
+      currentPossibleMoves = createMovesMap();
+    }
+    return currentPossibleMoves;
+  }
+
+  @Override
+  public void listAllPossibleMovesForCurrentTeam(MoveList moves) {
+    Preconditions.checkNotNull(moves);
+    moves.clear();
+    moves.addAll(resolveCurrentMoves());
+  }
+
+  private Map<Position, Collection<Move>> createMovesMap() {
+    Map<Position, Collection<Move>> possibleMoves = Maps.newHashMap();
+    resolveCurrentMoves();
+    for (long own = teams[playingTeam.ordinal()]; own != Bitboards.EMPTY;
+      own = Bitboards.withoutFirstSquare(own)) {
+      possibleMoves.put(Bitboards.position(Bitboards.firstSquare(own)),
+        Lists.newArrayList());
+    }
+    for (int index = 0; index < currentMoves.size(); index++) {
+      var move = PackedMove.toMove(currentMoves.get(index));
+      possibleMoves.get(move.oldPosition()).add(move);
+    }
+    return possibleMoves;
+  }
+
+  private void calculateMovesForTeam(Team team, MoveList moves) {
+    Preconditions.checkNotNull(team);
+    moves.clear();
+    attackMap = AttackMap.createFor(team, pieces);
+    inCheck = attackMap.isInCheck();
+    int kingSquare = attackMap.kingSquare();
+    for (long own = teams[team.ordinal()]; own != Bitboards.EMPTY;
+      own = Bitboards.withoutFirstSquare(own)) {
+      int square = Bitboards.firstSquare(own);
+      if (square == kingSquare) {
+        calculateKingMoves(square, moves);
+      } else {
+        addMoves(square,
+          calculateTargets(square) & attackMap.legalTargets(square), moves);
+      }
+    }
+    addEnPassantMoves(team, moves);
+  }
+
+  private void addEnPassantMoves(Team team, MoveList moves) {
+    if (enPassantSquare == Bitboards.NO_SQUARE) {
+      return;
+    }
+    long pawns = AttackTables.pawnAttacks(resolveNextTeam(team),
+      enPassantSquare) & pieces[Bitboards.pieceIndex(team, PieceType.PAWN)];
+    for (; pawns != Bitboards.EMPTY;
+      pawns = Bitboards.withoutFirstSquare(pawns)) {
+      int pawn = Bitboards.firstSquare(pawns);
+      int move = PackedMove.create(pawn, enPassantSquare,
+        PackedMove.CAPTURE | PackedMove.EN_PASSANT);
+      if (attackMap.isLegalEnPassant(pawn, enPassantSquare,
+        resolveCaptureSquare(move))) {
+        moves.add(move);
+      }
+    }
+  }
+
+  private void calculateKingMoves(int kingSquare, MoveList moves) {
+    long safe = ~attackMap.attacked();
+    addMoves(kingSquare, calculateTargets(kingSquare) & safe, moves);
+    if (inCheck) {
+      return;
+    }
+    long targets = calculateCastlingTargets(kingSquare) & safe;
+    for (; targets != Bitboards.EMPTY;
+      targets = Bitboards.withoutFirstSquare(targets)) {
+      int target = Bitboards.firstSquare(targets);
+      if (!attackMap.isAttacked((kingSquare + target) / 2)) {
+        moves.add(PackedMove.create(kingSquare, target, PackedMove.CASTLING));
+      }
+    }
+  }
+
+  private void calculatePossibleMoves(int square, MoveList moves) {
+    addMoves(square, calculateTargets(square), moves);
+    if (resolvePieceType(square) == PieceType.KING) {
+      addCastlingMoves(square, calculateCastlingTargets(square), moves);
+    }
+  }
+
+  private static final long PROMOTION_COLUMNS =
+    Bitboards.columnMask(DefaultChessGrid.MIN_VALUE)
+      | Bitboards.columnMask(DefaultChessGrid.MAX_VALUE);
+
+  private void addMoves(int square, long targets, MoveList moves) {
+    long enemy = teams[resolveNextTeam(resolveTeam(square)).ordinal()];
+    boolean pawn = resolvePieceType(square) == PieceType.PAWN;
+    for (; targets != Bitboards.EMPTY;
+      targets = Bitboards.withoutFirstSquare(targets)) {
+      int target = Bitboards.firstSquare(targets);
+      int flags = Bitboards.contains(enemy, target)
+        ? PackedMove.CAPTURE
+        : PackedMove.QUIET;
+      if (pawn && Math.abs(target - square) == TWO_COLUMNS) {
+        flags |= PackedMove.DOUBLE_WALK;
+      }
+      if (pawn && Bitboards.contains(PROMOTION_COLUMNS, target)) {
+        for (var promotion : PieceType.PROMOTIONS) {
+          moves.add(PackedMove.create(square, target, flags, promotion));
+        }
+      } else {
+        moves.add(PackedMove.create(square, target, flags));
+      }
+    }
+  }
+
+  private void addCastlingMoves(int square, long targets, MoveList moves) {
+    for (; targets != Bitboards.EMPTY;
+      targets = Bitboards.withoutFirstSquare(targets)) {
+      moves.add(PackedMove.create(square, Bitboards.firstSquare(targets),
+        PackedMove.CASTLING));
+    }
+  }
+
+  private long calculateTargets(int square) {
+    Team team = resolveTeam(square);
+    long own = teams[team.ordinal()];
+    return switch (resolvePieceType(square)) {
+      case PAWN -> calculatePawnTargets(square, team);
+      case KNIGHT -> AttackTables.knightAttacks(square) & ~own;
+      case BISHOP -> MagicAttacks.bishopAttacks(square, occupied) & ~own;
+      case ROOK -> MagicAttacks.rookAttacks(square, occupied) & ~own;
+      case QUEEN -> MagicAttacks.queenAttacks(square, occupied) & ~own;
+      case KING -> AttackTables.kingAttacks(square) & ~own;
+    };
+  }
+
+  private static final int ONE_COLUMN = 8;
+  private static final int TWO_COLUMNS = 16;
+  private static final long WHITE_HOME_COLUMN = Bitboards.columnMask(2);
+  private static final long BLACK_HOME_COLUMN = Bitboards.columnMask(7);
+
+  private long calculatePawnTargets(int square, Team team) {
+    long bit = Bitboards.bit(square);
+    long attacks = AttackTables.pawnAttacks(team, square)
+      & teams[resolveNextTeam(team).ordinal()];
+    long walks;
+    if (team == Team.WHITE) {
+      walks = (bit << ONE_COLUMN) & ~occupied;
+      if (walks != Bitboards.EMPTY
+        && (bit & WHITE_HOME_COLUMN) != Bitboards.EMPTY) {
+        walks |= (bit << TWO_COLUMNS) & ~occupied;
+      }
+    } else {
+      walks = (bit >>> ONE_COLUMN) & ~occupied;
+      if (walks != Bitboards.EMPTY
+        && (bit & BLACK_HOME_COLUMN) != Bitboards.EMPTY) {
+        walks |= (bit >>> TWO_COLUMNS) & ~occupied;
+      }
+    }
+    return attacks | walks;
+  }
+
+  private long calculateCastlingTargets(int square) {
+    Team team = resolveTeam(square);
+    int column = Bitboards.column(square);
+    long targets = Bitboards.EMPTY;
+    if (CastlingRights.has(castlingRights, CastlingRights.right(team))
+      && isCastlingApplicable(column, CastlingRights.KING_ROW + 1,
+      CastlingRights.RIGHT_ROOK_ROW)) {
+      targets |= Bitboards.bit(Bitboards.square(column, RIGHT_CASTLING_ROW));
+    }
+    if (CastlingRights.has(castlingRights, CastlingRights.left(team))
+      && isCastlingApplicable(column, CastlingRights.LEFT_ROOK_ROW + 1,
+      CastlingRights.KING_ROW)) {
+      targets |= Bitboards.bit(Bitboards.square(column, LEFT_CASTLING_ROW));
+    }
+    return targets;
+  }
+
+  private boolean isCastlingApplicable(int column, int firstRow, int lastRow) {
+    for (int row = firstRow; row < lastRow; row++) {
+      if (Bitboards.contains(occupied, Bitboards.square(column, row))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
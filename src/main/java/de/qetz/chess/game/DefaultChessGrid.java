@@ -1,17 +1,34 @@
 package de.qetz.chess.game;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Queues;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+import java.util.Collections;
 import java.util.Collection;
-import java.util.Optional;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 
 import de.qetz.chess.event.concrete.GameFinishedTrigger;
+import de.qetz.chess.game.position.direction.Direction;
+import de.qetz.chess.game.bitboard.PieceSquareTables;
+import de.qetz.chess.game.bitboard.CastlingRights;
+import de.qetz.chess.game.bitboard.AttackTables;
+import de.qetz.chess.game.piece.concrete.Pieces;
+import de.qetz.chess.game.bitboard.MagicAttacks;
+import de.qetz.chess.game.bitboard.ZobristKeys;
 import de.qetz.chess.game.piece.concrete.King;
+import de.qetz.chess.game.piece.concrete.Pawn;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.MoveTable;
+import de.qetz.chess.game.bitboard.AttackMap;
+import de.qetz.chess.game.bitboard.Bitboards;
 import de.qetz.chess.game.piece.DefaultPiece;
+import de.qetz.chess.game.position.MoveList;
 import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
 import de.qetz.chess.event.EventCalling;
 import de.qetz.chess.game.position.Move;
 import de.qetz.chess.game.piece.Team;
@@ -20,21 +37,66 @@ public final class DefaultChessGrid implements Grid {
   public static final int MAX_VALUE = 8;
   public static final int MIN_VALUE = 1;
 
-  private static final Team DEFAULT_START_TEAM = Team.WHITE;
-
-  static DefaultChessGrid createDefault(Map<Position, DefaultPiece> grid) {
-    Preconditions.checkNotNull(grid);
-    DefaultChessGrid chessGrid = new DefaultChessGrid(grid, DEFAULT_START_TEAM);
-    chessGrid.prepareNextMove();
+  private static final long ALL_SQUARES = ~Bitboards.EMPTY;
+
+  /**
+   * A grid of the piece indices of a factory with new pieces, the pieces
+   * on fields that are not unmoved count as moved once.
+   */
+  static DefaultChessGrid createDefault(
+    int[] pieces,
+    long unmoved,
+    Team playingTeam,
+    int enPassantSquare
+  ) {
+    Preconditions.checkNotNull(pieces);
+    Preconditions.checkNotNull(playingTeam);
+    DefaultChessGrid chessGrid = new DefaultChessGrid(playingTeam);
+    for (int square = 0; square < pieces.length; square++) {
+      if (pieces[square] != DefaultChessGridFactory.NO_PIECE) {
+        var position = Position.ofIndex(square);
+        var piece = Pieces.createPiece(Bitboards.pieceType(pieces[square]),
+          position, Bitboards.pieceTeam(pieces[square]));
+        if (!Bitboards.contains(unmoved, square)) {
+          piece.undoMove(position, 1);
+        }
+        chessGrid.putPiece(position, piece);
+      }
+    }
+    if (playingTeam == Team.BLACK) {
+      chessGrid.positionKey ^= ZobristKeys.blackPlaying();
+    }
+    chessGrid.updateEnPassantSquare(enPassantSquare);
+    chessGrid.updateCastlingRights();
+    // A new grid is not the result of a move, so it calls no events even
+    // if the game is already finished
+    chessGrid.currentPossibleMoves =
+      chessGrid.listAllPossibleMovesForTeam(chessGrid.playingTeam);
     return chessGrid;
   }
 
-  private final Map<Position, DefaultPiece> grid;
+  private final DefaultPiece[] grid = new DefaultPiece[Position.FIELDS];
+  private final Deque<MoveRecord> records = Queues.newArrayDeque();
+  // The pseudo moves of the piece on every field, indexed like the grid
+  private final List<Collection<Move>> pieceMoves = Lists.newArrayList(
+    Collections.<Collection<Move>>nCopies(Position.FIELDS, null));
+  private final long[] influences = new long[Position.FIELDS];
+  private final long[] pieceBoards = new long[Bitboards.PIECES];
+  private long changedSquares = ALL_SQUARES;
+  private long occupied = Bitboards.EMPTY;
+  private long positionKey;
+  private long pawnKey;
+  private int middlegameScore;
+  private int endgameScore;
+  private int phase;
+  private int castlingRights = CastlingRights.NONE;
+  private int enPassantSquare = Bitboards.NO_SQUARE;
   private Map<Position, Collection<Move>> currentPossibleMoves;
   private Team playingTeam;
+  private boolean inCheck;
+  private int pieces;
 
-  private DefaultChessGrid(Map<Position, DefaultPiece> grid, Team playingTeam) {
-    this.grid = grid;
+  private DefaultChessGrid(Team playingTeam) {
     this.playingTeam = playingTeam;
   }
 
@@ -43,207 +105,513 @@ public final class DefaultChessGrid implements Grid {
     return playingTeam;
   }
 
+  @Override
+  public long positionKey() {
+    return positionKey;
+  }
+
+  @Override
+  public long pawnKey() {
+    return pawnKey;
+  }
+
+  @Override
+  public int castlingRights() {
+    return castlingRights;
+  }
+
+  @Override
+  public int enPassantSquare() {
+    return enPassantSquare;
+  }
+
+  @Override
+  public String toFen() {
+    return DefaultChessGridFactory.toFen(this);
+  }
+
+  @Override
+  public DefaultChessGrid copy() {
+    DefaultChessGrid copy = new DefaultChessGrid(playingTeam);
+    for (DefaultPiece piece : grid) {
+      if (piece != null) {
+        copy.putPiece(piece.position(), Pieces.copyPiece(piece));
+      }
+    }
+    copy.castlingRights = castlingRights;
+    copy.enPassantSquare = enPassantSquare;
+    copy.positionKey = positionKey;
+    return copy;
+  }
+
+  @Override
+  public int middlegameScore() {
+    return middlegameScore;
+  }
+
+  @Override
+  public int endgameScore() {
+    return endgameScore;
+  }
+
+  @Override
+  public int phase() {
+    return phase;
+  }
+
+  @Override
+  public long pieceBoard(Team team, PieceType type) {
+    Preconditions.checkNotNull(team);
+    Preconditions.checkNotNull(type);
+    return pieceBoards[Bitboards.pieceIndex(team, type)];
+  }
+
+  @Override
+  public boolean isInCheck() {
+    return currentPossibleMoves != null
+      ? inCheck
+      : AttackMap.isKingAttacked(playingTeam, pieceBoards);
+  }
+
   @Override
   public void executeMove(Move move) {
+    makeMove(move);
+    prepareNextMove();
+  }
+
+  private static final int DOUBLE_WALK_MOVES = 2;
+
+  @Override
+  public void makeMove(Move move) {
     Preconditions.checkNotNull(move);
+    var piece = grid[move.oldPosition().index()];
+    boolean enPassant = piece instanceof Pawn
+      && move.newPosition().index() == enPassantSquare;
+    var capturedPosition = enPassant
+      ? Position.of(move.oldPosition().column(), move.newPosition().row())
+      : move.newPosition();
+    var record = new MoveRecord(move, playingTeam, piece,
+      piece != null ? piece.moves() : 0, grid[capturedPosition.index()],
+      capturedPosition);
+    record.positionKey = positionKey;
+    record.castlingRights = castlingRights;
+    record.enPassantSquare = enPassantSquare;
 
     this.playingTeam = resolveNextTeam(playingTeam);
-    resolvePiece(move.oldPosition()).ifPresent(piece ->
-      piece.move(move.newPosition()));
+    positionKey ^= ZobristKeys.blackPlaying();
+    if (piece != null) {
+      piece.move(move.newPosition());
+    }
 
-    grid.put(move.newPosition(), grid.get(move.oldPosition()));
-    grid.remove(move.oldPosition());
+    removePiece(capturedPosition);
+    putPiece(move.newPosition(), removePiece(move.oldPosition()));
+    if (piece != null && move.promotion() != null) {
+      putPiece(move.newPosition(), Pieces.createPiece(move.promotion(),
+        move.newPosition(), piece.team()));
+    }
 
-    executeCastling(move);
-    prepareNextMove();
+    executeCastling(move, record);
+    updateEnPassantSquare(piece instanceof Pawn
+      && move.moves() == DOUBLE_WALK_MOVES
+        ? (move.oldPosition().index() + move.newPosition().index()) / 2
+        : Bitboards.NO_SQUARE);
+    updateCastlingRights();
+    records.push(record);
+    currentPossibleMoves = null;
+  }
+
+  @Override
+  public void makeMove(int move) {
+    makeMove(PackedMove.toMove(move));
+  }
+
+  @Override
+  public void makeNullMove() {
+    var record = new MoveRecord(null, playingTeam, null, 0, null, null);
+    record.positionKey = positionKey;
+    record.castlingRights = castlingRights;
+    record.enPassantSquare = enPassantSquare;
+    this.playingTeam = resolveNextTeam(playingTeam);
+    positionKey ^= ZobristKeys.blackPlaying();
+    updateEnPassantSquare(Bitboards.NO_SQUARE);
+    records.push(record);
+    currentPossibleMoves = null;
+  }
+
+  @Override
+  public void unmakeMove() {
+    Preconditions.checkState(!records.isEmpty());
+    var record = records.pop();
+    // A null move has no move and changed no piece
+    if (record.move != null) {
+      unmakePieces(record);
+    }
+    this.playingTeam = record.playingTeam;
+    this.positionKey = record.positionKey;
+    this.castlingRights = record.castlingRights;
+    this.enPassantSquare = record.enPassantSquare;
+    currentPossibleMoves = null;
+  }
+
+  private void unmakePieces(MoveRecord record) {
+    var move = record.move;
+    if (record.rook != null) {
+      record.rook.undoMove(record.rookOldPosition, record.rookMoves);
+      putPiece(record.rookOldPosition, removePiece(record.rookNewPosition));
+    }
+    if (record.piece != null) {
+      record.piece.undoMove(move.oldPosition(), record.pieceMoves);
+    }
+    removePiece(move.newPosition());
+    putPiece(move.oldPosition(), record.piece);
+    putPiece(record.capturedPosition, record.captured);
+  }
+
+  private void updateEnPassantSquare(int square) {
+    positionKey ^= ZobristKeys.enPassant(enPassantSquare)
+      ^ ZobristKeys.enPassant(square);
+    enPassantSquare = square;
+  }
+
+  private void updateCastlingRights() {
+    int rights = CastlingRights.NONE;
+    for (var team : Team.values()) {
+      int column = CastlingRights.homeColumn(team);
+      if (isUnmoved(column, CastlingRights.KING_ROW, PieceType.KING, team)) {
+        if (isUnmoved(column, CastlingRights.LEFT_ROOK_ROW, PieceType.ROOK,
+          team)) {
+          rights |= CastlingRights.left(team);
+        }
+        if (isUnmoved(column, CastlingRights.RIGHT_ROOK_ROW, PieceType.ROOK,
+          team)) {
+          rights |= CastlingRights.right(team);
+        }
+      }
+    }
+    positionKey ^= ZobristKeys.castling(castlingRights)
+      ^ ZobristKeys.castling(rights);
+    castlingRights = rights;
+  }
+
+  private boolean isUnmoved(int column, int row, PieceType type, Team team) {
+    var piece = grid[Bitboards.square(column, row)];
+    return piece != null
+      && piece.type() == type
+      && piece.team() == team
+      && piece.moves() == 0;
   }
 
   private void prepareNextMove() {
     checkForOnlyTwoPieces();
 
     currentPossibleMoves = listAllPossibleMovesForTeam(playingTeam);
+    checkForFinishedGame();
   }
 
   private Team resolveNextTeam(Team oldTeam) {
     return oldTeam == Team.WHITE ? Team.BLACK : Team.WHITE;
   }
 
-  private static final int LEFT_CASTLING_ROW = 2;
-  private static final int RIGHT_CASTLING_ROW = 7;
+  private static final int LEFT_CASTLING_ROW = 3;
 
-  private void executeCastling(Move move) {
-    if (grid.get(move.newPosition()) instanceof King) {
-      if (move.moves() > 1) {
-        if (move.newPosition().row() == LEFT_CASTLING_ROW) {
-          executeLeftCastling(move.newPosition().column());
-        } else if (move.newPosition().row() == RIGHT_CASTLING_ROW) {
-          executeRightCastling(move.newPosition().column());
-        }
+  private void executeCastling(Move move, MoveRecord record) {
+    if (grid[move.newPosition().index()] instanceof King && isCastling(move)) {
+      if (move.newPosition().row() == LEFT_CASTLING_ROW) {
+        executeLeftCastling(move.newPosition().column(), record);
+      } else {
+        executeRightCastling(move.newPosition().column(), record);
       }
     }
   }
 
+  private static final int CASTLING_MOVES = 2;
+
+  private boolean isCastling(Move move) {
+    return move.moves() == CASTLING_MOVES
+      && (move.direction() == Direction.LEFT
+      || move.direction() == Direction.RIGHT);
+  }
+
   private static final int RIGHT_CASTLING_OLD_ROOK_POSITION_ROW = 8;
   private static final int RIGHT_CASTLING_NEW_ROOK_POSITION_ROW = 6;
 
-  private void executeRightCastling(int column) {
-    Position oldPosition =
-      Position.of(column, RIGHT_CASTLING_OLD_ROOK_POSITION_ROW);
-    Position newPosition =
-      Position.of(column, RIGHT_CASTLING_NEW_ROOK_POSITION_ROW);
-    grid.get(oldPosition).move(newPosition);
-    grid.put(newPosition, grid.get(oldPosition));
-    grid.remove(oldPosition);
+  private void executeRightCastling(int column, MoveRecord record) {
+    moveRook(
+      Position.of(column, RIGHT_CASTLING_OLD_ROOK_POSITION_ROW),
+      Position.of(column, RIGHT_CASTLING_NEW_ROOK_POSITION_ROW),
+      record);
   }
 
   private static final int LEFT_CASTLING_OLD_ROOK_POSITION_ROW = 1;
-  private static final int LEFT_CASTLING_NEW_ROOK_POSITION_ROW = 3;
+  private static final int LEFT_CASTLING_NEW_ROOK_POSITION_ROW = 4;
 
-  private void executeLeftCastling(int column) {
-    Position oldPosition =
-      Position.of(column, LEFT_CASTLING_OLD_ROOK_POSITION_ROW);
-    Position newPosition =
-      Position.of(column, LEFT_CASTLING_NEW_ROOK_POSITION_ROW);
-    grid.get(oldPosition).move(newPosition);
-    grid.put(newPosition, grid.get(oldPosition));
-    grid.remove(oldPosition);
+  private void executeLeftCastling(int column, MoveRecord record) {
+    moveRook(
+      Position.of(column, LEFT_CASTLING_OLD_ROOK_POSITION_ROW),
+      Position.of(column, LEFT_CASTLING_NEW_ROOK_POSITION_ROW),
+      record);
   }
 
-  private Optional<DefaultPiece> resolvePiece(Position position) {
-    Preconditions.checkNotNull(position);
-    return Optional.ofNullable(grid.get(position));
+  private void moveRook(
+    Position oldPosition,
+    Position newPosition,
+    MoveRecord record
+  ) {
+    var rook = grid[oldPosition.index()];
+    record.rook = rook;
+    record.rookMoves = rook.moves();
+    record.rookOldPosition = oldPosition;
+    record.rookNewPosition = newPosition;
+    rook.move(newPosition);
+    putPiece(newPosition, removePiece(oldPosition));
   }
 
-  private void checkForOnlyTwoPieces() {
-    if (grid.size() <= 2) {
-      EventCalling.callEvent(GameFinishedTrigger.createWith(
-        GameFinishedTrigger.GameFinishedReason.STALEMATE,
-        GameFinishedTrigger.GameWinner.NOBODY
-      ));
+  private static final class MoveRecord {
+    private final Move move;
+    private final Team playingTeam;
+    private final DefaultPiece piece;
+    private final int pieceMoves;
+    private final DefaultPiece captured;
+    private final Position capturedPosition;
+    private long positionKey;
+    private int castlingRights;
+    private int enPassantSquare;
+    private DefaultPiece rook;
+    private int rookMoves;
+    private Position rookOldPosition;
+    private Position rookNewPosition;
+
+    private MoveRecord(
+      Move move,
+      Team playingTeam,
+      DefaultPiece piece,
+      int pieceMoves,
+      DefaultPiece captured,
+      Position capturedPosition
+    ) {
+      this.move = move;
+      this.playingTeam = playingTeam;
+      this.piece = piece;
+      this.pieceMoves = pieceMoves;
+      this.captured = captured;
+      this.capturedPosition = capturedPosition;
     }
   }
 
-  @Override
-  public Collection<Move> listPossibleMovesForPiece(Position position) {
-    Preconditions.checkNotNull(position);
-    return grid.containsKey(position)
-      ? grid.get(position).calculatePossibleMoves(Maps.newHashMap(grid))
-      : Lists.newArrayList();
+  private void putPiece(Position position, DefaultPiece piece) {
+    removePiece(position);
+    if (piece != null) {
+      long bit = Bitboards.bit(position);
+      pieces++;
+      int pieceIndex = Bitboards.pieceIndex(piece.team(), piece.type());
+      pieceBoards[pieceIndex] |= bit;
+      positionKey ^= ZobristKeys.piece(pieceIndex, position.index());
+      pawnKey ^= ZobristKeys.pawn(pieceIndex, position.index());
+      addScores(pieceIndex, position.index(), 1);
+      occupied |= bit;
+      grid[position.index()] = piece;
+    }
   }
 
-  @Override
-  public Map<Position, Collection<Move>> listAllPossibleMovesForCurrentTeam() {
-    return currentPossibleMoves;
+  private DefaultPiece removePiece(Position position) {
+    long bit = Bitboards.bit(position);
+    DefaultPiece piece = grid[position.index()];
+    if (piece != null) {
+      pieces--;
+      int pieceIndex = Bitboards.pieceIndex(piece.team(), piece.type());
+      pieceBoards[pieceIndex] &= ~bit;
+      positionKey ^= ZobristKeys.piece(pieceIndex, position.index());
+      pawnKey ^= ZobristKeys.pawn(pieceIndex, position.index());
+      addScores(pieceIndex, position.index(), -1);
+    }
+    occupied &= ~bit;
+    changedSquares |= bit;
+    grid[position.index()] = null;
+    return piece;
   }
 
-  private Map<Position, Collection<Move>> listAllPossibleMovesForTeam(
-    Team team
-  ) {
-    Preconditions.checkNotNull(team);
-    Collection<Move> enemyMoves = allPossibleMovesOfTeam(
-      resolveNextTeam(playingTeam));
-    if (isInCheck(enemyMoves)) {
-      return calculateCheckMoves(enemyMoves);
-    } else {
-      return calculateNormalMoves(enemyMoves, team);
+  private void addScores(int pieceIndex, int square, int sign) {
+    middlegameScore += sign * PieceSquareTables.middlegame(pieceIndex, square);
+    endgameScore += sign * PieceSquareTables.endgame(pieceIndex, square);
+    phase += sign * PieceSquareTables.phase(pieceIndex);
+  }
+
+  /**
+   * Only recalculates the moves of pieces that stand on a changed field or
+   * whose influence contains one. The influence of a piece are all fields
+   * whose content can change its moves, so the result is the same as
+   * recalculating every piece.
+   */
+  private void updatePieceMoves() {
+    if (changedSquares == Bitboards.EMPTY) {
+      return;
     }
+    for (int square = 0; square < grid.length; square++) {
+      var piece = grid[square];
+      if (piece == null) {
+        pieceMoves.set(square, null);
+        influences[square] = Bitboards.EMPTY;
+      } else if (Bitboards.contains(changedSquares, square)
+        || (influences[square] & changedSquares) != Bitboards.EMPTY) {
+        pieceMoves.set(square, piece.calculatePossibleMoves(grid, occupied));
+        influences[square] = calculateInfluence(square, piece);
+      }
+    }
+    changedSquares = Bitboards.EMPTY;
   }
 
-  private boolean isInCheck(
-    Collection<Move> enemyMoves
-  ) {
-    Position kingPosition = resolveKingPosition(playingTeam);
-    return enemyMoves.stream()
-      .anyMatch(move -> move.newPosition().equals(kingPosition));
+  private static final int TWO_COLUMNS = 16;
+
+  private long calculateInfluence(int square, DefaultPiece piece) {
+    return switch (piece.type()) {
+      case PAWN -> AttackTables.kingAttacks(square)
+        | Bitboards.bit(square) << TWO_COLUMNS
+        | Bitboards.bit(square) >>> TWO_COLUMNS;
+      case KNIGHT -> AttackTables.knightAttacks(square);
+      case BISHOP -> MagicAttacks.bishopAttacks(square, occupied);
+      case ROOK -> MagicAttacks.rookAttacks(square, occupied);
+      case QUEEN -> MagicAttacks.queenAttacks(square, occupied);
+      case KING -> AttackTables.kingAttacks(square)
+        | Bitboards.columnMask(Bitboards.column(square));
+    };
   }
 
-  private Map<Position, Collection<Move>> calculateCheckMoves(
-    Collection<Move> enemyMoves
-  ) {
-    Position kingPosition = resolveKingPosition(playingTeam);
-    Collection<Move> kingMoves = listPossibleMovesForPiece(kingPosition);
+  private void checkForFinishedGame() {
+    Team enemyTeam = resolveNextTeam(playingTeam);
+    if (!hasPieces(enemyTeam)) {
+      EventCalling.callEvent(GameFinishedTrigger
+        .createWith(GameFinishedTrigger.GameFinishedReason.DRAW,
+          GameFinishedTrigger.GameWinner.ofTeam(enemyTeam)));
+    }
+    if (currentPossibleMoves.values().stream().allMatch(Collection::isEmpty)) {
+      EventCalling.callEvent(inCheck
+        ? GameFinishedTrigger.createWith(
+          GameFinishedTrigger.GameFinishedReason.WIN,
+          GameFinishedTrigger.GameWinner.ofTeam(enemyTeam))
+        : GameFinishedTrigger.createWith(
+          GameFinishedTrigger.GameFinishedReason.STALEMATE,
+          GameFinishedTrigger.GameWinner.NOBODY));
+    }
+  }
 
-    kingMoves.removeIf(kingMove -> enemyMoves.stream()
-      .anyMatch(enemyMove -> enemyMove.newPosition()
-        .equals(kingMove.newPosition())));
-    return resolveCheckResult(kingMoves, kingPosition);
+  private boolean hasPieces(Team team) {
+    for (var piece : grid) {
+      if (piece != null && piece.team() == team) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  private Map<Position, Collection<Move>> resolveCheckResult(
-    Collection<Move> possibleKingMoves,
-    Position kingPosition
-  ) {
-    if (possibleKingMoves.size() == 0) {
+  private void checkForOnlyTwoPieces() {
+    if (pieces <= 2) {
       EventCalling.callEvent(GameFinishedTrigger.createWith(
-        GameFinishedTrigger.GameFinishedReason.WIN,
-        GameFinishedTrigger.GameWinner.ofTeam(resolveNextTeam(playingTeam))));
-      return mapToMovesMap(kingPosition, Lists.newArrayList());
-    } else {
-      return mapToMovesMap(kingPosition, possibleKingMoves);
+        GameFinishedTrigger.GameFinishedReason.STALEMATE,
+        GameFinishedTrigger.GameWinner.NOBODY
+      ));
     }
   }
 
-  private Map<Position, Collection<Move>> mapToMovesMap(
-    Position kingPosition,
-    Collection<Move> moves
-  ) {
-    Map<Position, Collection<Move>> possibleMoves = Maps.newHashMap();
-    possibleMoves.put(kingPosition, moves);
-    return possibleMoves;
+  @Override
+  public Collection<Move> listPossibleMovesForPiece(Position position) {
+    Preconditions.checkNotNull(position);
+    updatePieceMoves();
+    return grid[position.index()] != null
+      ? Lists.newArrayList(pieceMoves.get(position.index()))
+      : Lists.newArrayList();
   }
 
-  private Position resolveKingPosition(Team team) {
-    for (Position position : grid.keySet()) {
-      var currentPiece = grid.get(position);
-      if (currentPiece.team() == team && currentPiece instanceof King) {
-        return position;
+  @Override
+  public Map<Position, Collection<Move>> listAllPossibleMovesForCurrentTeam() {
+    if (currentPossibleMoves == null) {
+      currentPossibleMoves = listAllPossibleMovesForTeam(playingTeam);
+    }
+    return currentPossibleMoves;
+  }
+
+  @Override
+  public void listAllPossibleMovesForCurrentTeam(MoveList moves) {
+    Preconditions.checkNotNull(moves);
+    moves.clear();
+    for (Collection<Move> pieceMoves :
+      listAllPossibleMovesForCurrentTeam().values()) {
+      for (Move move : pieceMoves) {
+        moves.add(packMove(move));
       }
     }
-    throw new IllegalStateException();
   }
 
-  private Collection<Move> allPossibleMovesOfTeam(Team team) {
-    Collection<Move> allMoves = Lists.newArrayList();
-    for (Collection<Move> moves :
-      calculateNormalMoves(Lists.newArrayList(), team).values()) {
-      allMoves.addAll(moves);
+  private int packMove(Move move) {
+    var piece = grid[move.oldPosition().index()];
+    int to = move.newPosition().index();
+    int flags = grid[to] != null ? PackedMove.CAPTURE : PackedMove.QUIET;
+    if (piece instanceof Pawn && move.moves() == DOUBLE_WALK_MOVES) {
+      flags |= PackedMove.DOUBLE_WALK;
+    } else if (piece instanceof Pawn && to == enPassantSquare) {
+      flags = PackedMove.CAPTURE | PackedMove.EN_PASSANT;
+    } else if (piece instanceof King && isCastling(move)) {
+      flags = PackedMove.CASTLING;
     }
-    return allMoves;
+    return move.promotion() != null
+      ? PackedMove.create(move.oldPosition().index(), to, flags,
+        move.promotion())
+      : PackedMove.create(move.oldPosition().index(), to, flags);
   }
 
-  private Map<Position, Collection<Move>> calculateNormalMoves(
-    Collection<Move> enemyMoves,
+  private Map<Position, Collection<Move>> listAllPossibleMovesForTeam(
     Team team
   ) {
+    Preconditions.checkNotNull(team);
+    updatePieceMoves();
+    var attackMap = AttackMap.createFor(team, pieceBoards);
+    inCheck = attackMap.isInCheck();
     Map<Position, Collection<Move>> possibleMoves = Maps.newHashMap();
-    for (Position position : grid.keySet()) {
-      if (grid.get(position) != null) {
-        if (grid.get(position).team() == team) {
-          possibleMoves.put(position, listPossibleMovesForPiece(position));
-        }
+    for (int index = 0; index < grid.length; index++) {
+      if (grid[index] != null && grid[index].team() == team) {
+        var position = Position.ofIndex(index);
+        Collection<Move> moves = Lists.newArrayList(pieceMoves.get(index));
+        moves.removeIf(move -> !isLegal(move, attackMap));
+        possibleMoves.put(position, moves);
       }
     }
-    removeNotAllowedKingMoves(possibleMoves, enemyMoves);
+    addEnPassantMoves(team, attackMap, possibleMoves);
     return possibleMoves;
   }
 
-  private void removeNotAllowedKingMoves(
-    Map<Position, Collection<Move>> moves,
-    Collection<Move> enemyMoves
+  private void addEnPassantMoves(
+    Team team,
+    AttackMap attackMap,
+    Map<Position, Collection<Move>> possibleMoves
   ) {
-    Position kingPosition = resolveKingPosition(playingTeam);
-    if (moves.containsKey(kingPosition)) {
-      Collection<Move> kingMoves = moves.get(kingPosition);
+    if (enPassantSquare == Bitboards.NO_SQUARE) {
+      return;
+    }
+    long pawns = AttackTables.pawnAttacks(resolveNextTeam(team),
+      enPassantSquare)
+      & pieceBoards[Bitboards.pieceIndex(team, PieceType.PAWN)];
+    for (; pawns != Bitboards.EMPTY;
+      pawns = Bitboards.withoutFirstSquare(pawns)) {
+      int pawn = Bitboards.firstSquare(pawns);
+      int captured = Bitboards.square(Bitboards.column(pawn),
+        Bitboards.row(enPassantSquare));
+      if (attackMap.isLegalEnPassant(pawn, enPassantSquare, captured)) {
+        possibleMoves.get(Position.ofIndex(pawn))
+          .add(MoveTable.lookup(pawn, enPassantSquare));
+      }
+    }
+  }
 
-      kingMoves.removeIf(kingMove -> enemyMoves.stream()
-        .anyMatch(enemyMove -> enemyMove.newPosition()
-          .equals(kingMove.newPosition())));
-      moves.replace(kingPosition, kingMoves);
+  private boolean isLegal(Move move, AttackMap attackMap) {
+    int from = move.oldPosition().index();
+    int to = move.newPosition().index();
+    if (from != attackMap.kingSquare()) {
+      return Bitboards.contains(attackMap.legalTargets(from), to);
     }
-    if (moves.size() == 0) {
-      EventCalling.callEvent(GameFinishedTrigger
-        .createWith(GameFinishedTrigger.GameFinishedReason.DRAW,
-          GameFinishedTrigger.GameWinner.ofTeam(resolveNextTeam(playingTeam))));
+    if (isCastling(move)) {
+      return !attackMap.isInCheck()
+        && !attackMap.isAttacked((from + to) / 2)
+        && !attackMap.isAttacked(to);
     }
+    return !attackMap.isAttacked(to);
   }
-}
\ No newline at end of file
+}
@@ -1,191 +1,345 @@
 package de.qetz.chess.game;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
 
-import java.util.Map;
+import java.util.Arrays;
 
+import de.qetz.chess.game.bitboard.CastlingRights;
+import de.qetz.chess.game.bitboard.AttackMap;
 import de.qetz.chess.game.piece.DefaultPiece;
+import de.qetz.chess.game.bitboard.Bitboards;
 import de.qetz.chess.game.position.Position;
-import de.qetz.chess.game.piece.concrete.*;
+import de.qetz.chess.game.piece.PieceType;
 import de.qetz.chess.game.piece.Team;
 
+/**
+ * Sets up the fields of a grid, either piece by piece or from a position
+ * in the Forsyth-Edwards notation (FEN). The pieces are kept as piece
+ * indices of {@link Bitboards}, so a factory can be reused for many
+ * positions and only the created grids allocate.
+ */
 public final class DefaultChessGridFactory {
+  public static final String DEFAULT_FEN =
+    "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
   public static DefaultChessGridFactory newFactory() {
     return new DefaultChessGridFactory();
   }
 
-  private Map<Position, DefaultPiece> grid;
+  static final int NO_PIECE = -1;
+
+  // The piece index on every field, null until a grid is chosen
+  private int[] pieces;
+  // Pieces that have not moved yet, which decides the castling rights
+  private long unmoved;
+  private Team playingTeam;
+  private int enPassantSquare;
+  // Only used to check the kings of a FEN
+  private final long[] pieceBoards = new long[Bitboards.PIECES];
 
   private DefaultChessGridFactory() {}
 
   public DefaultChessGridFactory withEmptyGrid() {
-    this.grid = Maps.newHashMap();
+    if (pieces == null) {
+      pieces = new int[Bitboards.SQUARES];
+    }
+    Arrays.fill(pieces, NO_PIECE);
+    unmoved = Bitboards.EMPTY;
+    playingTeam = Team.WHITE;
+    enPassantSquare = Bitboards.NO_SQUARE;
     return this;
   }
 
   public DefaultChessGridFactory withDefaultGrid() {
-    this.grid = Maps.newHashMap(DefaultChessGridMap.DEFAULT_GRID);
+    return withFen(DEFAULT_FEN);
+  }
+
+  /**
+   * Sets up the position of a FEN in a single pass. The move counters are
+   * optional and ignored, as the grids do not count moves. Castling rights
+   * without their king and rook on the starting fields are dropped. Every
+   * team needs exactly one king and the team that is not playing must not
+   * be in check.
+   */
+  public DefaultChessGridFactory withFen(CharSequence fen) {
+    Preconditions.checkNotNull(fen);
+    withEmptyGrid();
+    int index = parsePlacement(fen);
+    index = parsePlayingTeam(fen, skipSeparator(fen, index));
+    index = parseCastlingRights(fen, skipSeparator(fen, index));
+    index = parseEnPassantSquare(fen, skipSeparator(fen, index));
+    if (index < fen.length()) {
+      index = parseCounter(fen, skipSeparator(fen, index));
+      index = parseCounter(fen, skipSeparator(fen, index));
+    }
+    checkFen(index == fen.length(), fen, index);
+    checkKings(fen);
     return this;
   }
 
+  private static final char FIELD_SEPARATOR = ' ';
+  private static final char COLUMN_SEPARATOR = '/';
+  private static final char NONE = '-';
+  private static final char FIRST_ROW = 'a';
+  private static final char WHITE_SYMBOL = 'w';
+  private static final char BLACK_SYMBOL = 'b';
+  private static final char RIGHT_CASTLING_SYMBOL = 'k';
+  private static final char LEFT_CASTLING_SYMBOL = 'q';
+  private static final int WHITE_EN_PASSANT_COLUMN = 6;
+  private static final int BLACK_EN_PASSANT_COLUMN = 3;
+  private static final PieceType[] TYPES = PieceType.values();
+
+  private static int skipSeparator(CharSequence fen, int index) {
+    checkFen(index < fen.length() && fen.charAt(index) == FIELD_SEPARATOR,
+      fen, index);
+    return index + 1;
+  }
+
+  // The placement lists the columns from 8 to 1, each from row 1 to 8
+  private int parsePlacement(CharSequence fen) {
+    int column = DefaultChessGrid.MAX_VALUE;
+    int row = DefaultChessGrid.MIN_VALUE;
+    int index = 0;
+    for (; index < fen.length(); index++) {
+      char symbol = fen.charAt(index);
+      if (symbol == FIELD_SEPARATOR) {
+        break;
+      }
+      if (symbol == COLUMN_SEPARATOR) {
+        checkFen(row > DefaultChessGrid.MAX_VALUE
+          && column > DefaultChessGrid.MIN_VALUE, fen, index);
+        column--;
+        row = DefaultChessGrid.MIN_VALUE;
+      } else if (symbol >= '1' && symbol <= '8') {
+        row += symbol - '0';
+        checkFen(row <= DefaultChessGrid.MAX_VALUE + 1, fen, index);
+      } else {
+        int piece = resolvePiece(symbol);
+        checkFen(piece != NO_PIECE && row <= DefaultChessGrid.MAX_VALUE,
+          fen, index);
+        pieces[Bitboards.square(column, row++)] = piece;
+      }
+    }
+    checkFen(column == DefaultChessGrid.MIN_VALUE
+      && row > DefaultChessGrid.MAX_VALUE, fen, index);
+    return index;
+  }
+
+  private static int resolvePiece(char symbol) {
+    char lowerCase = Character.toLowerCase(symbol);
+    for (var type : TYPES) {
+      if (type.symbol() == lowerCase) {
+        return Bitboards.pieceIndex(lowerCase == symbol
+          ? Team.BLACK
+          : Team.WHITE, type);
+      }
+    }
+    return NO_PIECE;
+  }
+
+  private int parsePlayingTeam(CharSequence fen, int index) {
+    char symbol = index < fen.length() ? fen.charAt(index) : NONE;
+    checkFen(symbol == WHITE_SYMBOL || symbol == BLACK_SYMBOL, fen, index);
+    playingTeam = symbol == WHITE_SYMBOL ? Team.WHITE : Team.BLACK;
+    return index + 1;
+  }
+
+  private int parseCastlingRights(CharSequence fen, int index) {
+    if (index < fen.length() && fen.charAt(index) == NONE) {
+      return index + 1;
+    }
+    int start = index;
+    for (; index < fen.length(); index++) {
+      char symbol = fen.charAt(index);
+      if (symbol == FIELD_SEPARATOR) {
+        break;
+      }
+      char lowerCase = Character.toLowerCase(symbol);
+      checkFen(lowerCase == RIGHT_CASTLING_SYMBOL
+        || lowerCase == LEFT_CASTLING_SYMBOL, fen, index);
+      markUnmoved(lowerCase == symbol ? Team.BLACK : Team.WHITE,
+        lowerCase == RIGHT_CASTLING_SYMBOL
+          ? CastlingRights.RIGHT_ROOK_ROW
+          : CastlingRights.LEFT_ROOK_ROW);
+    }
+    checkFen(index > start, fen, index);
+    return index;
+  }
+
+  private void markUnmoved(Team team, int rookRow) {
+    int column = CastlingRights.homeColumn(team);
+    unmoved |= Bitboards.bit(Bitboards.square(column, CastlingRights.KING_ROW))
+      | Bitboards.bit(Bitboards.square(column, rookRow));
+  }
+
+  // The field behind a pawn of the team that is not playing
+  private int parseEnPassantSquare(CharSequence fen, int index) {
+    if (index < fen.length() && fen.charAt(index) == NONE) {
+      return index + 1;
+    }
+    checkFen(index + 1 < fen.length(), fen, index);
+    int row = fen.charAt(index) - FIRST_ROW + DefaultChessGrid.MIN_VALUE;
+    int column = fen.charAt(index + 1) - '0';
+    checkFen(row >= DefaultChessGrid.MIN_VALUE
+      && row <= DefaultChessGrid.MAX_VALUE
+      && column == (playingTeam == Team.WHITE
+        ? WHITE_EN_PASSANT_COLUMN
+        : BLACK_EN_PASSANT_COLUMN), fen, index);
+    enPassantSquare = Bitboards.square(column, row);
+    return index + 2;
+  }
+
+  private static int parseCounter(CharSequence fen, int index) {
+    int start = index;
+    while (index < fen.length() && Character.isDigit(fen.charAt(index))) {
+      index++;
+    }
+    checkFen(index > start, fen, index);
+    return index;
+  }
+
+  private static final Team[] TEAMS = Team.values();
+
+  // Both are checked on the placement, so the index is its start
+  private void checkKings(CharSequence fen) {
+    Arrays.fill(pieceBoards, Bitboards.EMPTY);
+    for (int square = 0; square < pieces.length; square++) {
+      if (pieces[square] != NO_PIECE) {
+        pieceBoards[pieces[square]] |= Bitboards.bit(square);
+      }
+    }
+    for (var team : TEAMS) {
+      checkFen(Bitboards.count(
+        pieceBoards[Bitboards.pieceIndex(team, PieceType.KING)]) == 1, fen, 0);
+    }
+    var waitingTeam = playingTeam == Team.WHITE ? Team.BLACK : Team.WHITE;
+    checkFen(!AttackMap.isKingAttacked(waitingTeam, pieceBoards), fen, 0);
+  }
+
+  private static void checkFen(boolean valid, CharSequence fen, int index) {
+    Preconditions.checkArgument(valid, "Invalid FEN %s at index %s", fen,
+      index);
+  }
+
+  /**
+   * Writes the position of a grid as FEN. The grids do not count moves, so
+   * the move counters are always written as 0 and 1.
+   */
+  static String toFen(Grid grid) {
+    Preconditions.checkNotNull(grid);
+    char[] symbols = new char[Bitboards.SQUARES];
+    for (var team : Team.values()) {
+      for (var type : TYPES) {
+        char symbol = team == Team.WHITE
+          ? Character.toUpperCase(type.symbol())
+          : type.symbol();
+        for (long board = grid.pieceBoard(team, type);
+          board != Bitboards.EMPTY;
+          board = Bitboards.withoutFirstSquare(board)) {
+          symbols[Bitboards.firstSquare(board)] = symbol;
+        }
+      }
+    }
+    var fen = new StringBuilder(FEN_CAPACITY);
+    appendPlacement(fen, symbols);
+    fen.append(FIELD_SEPARATOR)
+      .append(grid.playingTeam() == Team.WHITE ? WHITE_SYMBOL : BLACK_SYMBOL)
+      .append(FIELD_SEPARATOR);
+    appendCastlingRights(fen, grid.castlingRights());
+    fen.append(FIELD_SEPARATOR);
+    if (grid.enPassantSquare() == Bitboards.NO_SQUARE) {
+      fen.append(NONE);
+    } else {
+      fen.append(Position.ofIndex(grid.enPassantSquare()).toNotation());
+    }
+    return fen.append(FIELD_SEPARATOR).append(DEFAULT_COUNTERS).toString();
+  }
+
+  private static final int FEN_CAPACITY = 90;
+  private static final String DEFAULT_COUNTERS = "0 1";
+
+  private static void appendPlacement(StringBuilder fen, char[] symbols) {
+    for (int column = DefaultChessGrid.MAX_VALUE;
+      column >= DefaultChessGrid.MIN_VALUE; column--) {
+      if (column != DefaultChessGrid.MAX_VALUE) {
+        fen.append(COLUMN_SEPARATOR);
+      }
+      int emptyFields = 0;
+      for (int row = DefaultChessGrid.MIN_VALUE;
+        row <= DefaultChessGrid.MAX_VALUE; row++) {
+        char symbol = symbols[Bitboards.square(column, row)];
+        if (symbol == 0) {
+          emptyFields++;
+          continue;
+        }
+        if (emptyFields > 0) {
+          fen.append(emptyFields);
+          emptyFields = 0;
+        }
+        fen.append(symbol);
+      }
+      if (emptyFields > 0) {
+        fen.append(emptyFields);
+      }
+    }
+  }
+
+  private static void appendCastlingRights(StringBuilder fen, int rights) {
+    if (rights == CastlingRights.NONE) {
+      fen.append(NONE);
+      return;
+    }
+    for (var team : Team.values()) {
+      boolean white = team == Team.WHITE;
+      if (CastlingRights.has(rights, CastlingRights.right(team))) {
+        fen.append(white
+          ? Character.toUpperCase(RIGHT_CASTLING_SYMBOL)
+          : RIGHT_CASTLING_SYMBOL);
+      }
+      if (CastlingRights.has(rights, CastlingRights.left(team))) {
+        fen.append(white
+          ? Character.toUpperCase(LEFT_CASTLING_SYMBOL)
+          : LEFT_CASTLING_SYMBOL);
+      }
+    }
+  }
+
+  // Pieces that have not moved yet keep the castling rights
   public DefaultChessGridFactory updatePiece(
     Position position,
     DefaultPiece piece
   ) {
-    Preconditions.checkNotNull(grid);
+    Preconditions.checkNotNull(pieces);
     Preconditions.checkNotNull(position);
     Preconditions.checkNotNull(piece);
-    grid.put(position, piece);
+    int square = Bitboards.square(position);
+    pieces[square] = Bitboards.pieceIndex(piece.team(), piece.type());
+    if (piece.moves() == 0) {
+      unmoved |= Bitboards.bit(square);
+    } else {
+      unmoved &= ~Bitboards.bit(square);
+    }
     return this;
   }
 
   public DefaultChessGridFactory removePiece(Position position) {
+    Preconditions.checkNotNull(pieces);
     Preconditions.checkNotNull(position);
-    grid.remove(position);
+    int square = Bitboards.square(position);
+    pieces[square] = NO_PIECE;
+    unmoved &= ~Bitboards.bit(square);
     return this;
   }
 
   public DefaultChessGrid createGrid() {
-    Preconditions.checkNotNull(grid);
-    return DefaultChessGrid.createDefault(grid);
-  }
-
-  public static final class DefaultChessGridMap {
-    private static final ImmutableMap<Position, DefaultPiece> DEFAULT_GRID =
-      ImmutableMap.<Position, DefaultPiece>builder()
-        .put(Position.of(1, 1), Rook.newBuilder()
-          .withPosition(Position.of(1, 1))
-          .withTeam(Team.WHITE)
-          .createRook())
-        .put(Position.of(1, 2), Knight.newBuilder()
-          .withPosition(Position.of(1, 2))
-          .withTeam(Team.WHITE)
-          .createKnight())
-        .put(Position.of(1, 3), Bishop.newBuilder()
-          .withPosition(Position.of(1, 3))
-          .withTeam(Team.WHITE)
-          .createBishop())
-        .put(Position.of(1, 4), Queen.newBuilder()
-          .withPosition(Position.of(1, 4))
-          .withTeam(Team.WHITE)
-          .createQueen())
-        .put(Position.of(1, 5), King.newBuilder()
-          .withPosition(Position.of(1, 5))
-          .withTeam(Team.WHITE)
-          .createKing())
-        .put(Position.of(1, 6), Bishop.newBuilder()
-          .withPosition(Position.of(1, 6))
-          .withTeam(Team.WHITE)
-          .createBishop())
-        .put(Position.of(1, 7), Knight.newBuilder()
-          .withPosition(Position.of(1, 7))
-          .withTeam(Team.WHITE)
-          .createKnight())
-        .put(Position.of(1, 8), Rook.newBuilder()
-          .withPosition(Position.of(1, 8))
-          .withTeam(Team.WHITE)
-          .createRook())
-
-        .put(Position.of(2, 1), Pawn.newBuilder()
-          .withPosition(Position.of(2, 1))
-          .withTeam(Team.WHITE)
-          .createPawn())
-        .put(Position.of(2, 2), Pawn.newBuilder()
-          .withPosition(Position.of(2, 2))
-          .withTeam(Team.WHITE)
-          .createPawn())
-        .put(Position.of(2, 3), Pawn.newBuilder()
-          .withPosition(Position.of(2, 3))
-          .withTeam(Team.WHITE)
-          .createPawn())
-        .put(Position.of(2, 4), Pawn.newBuilder()
-          .withPosition(Position.of(2, 4))
-          .withTeam(Team.WHITE)
-          .createPawn())
-        .put(Position.of(2, 5), Pawn.newBuilder()
-          .withPosition(Position.of(2, 5))
-          .withTeam(Team.WHITE)
-          .createPawn())
-        .put(Position.of(2, 6), Pawn.newBuilder()
-          .withPosition(Position.of(2, 6))
-          .withTeam(Team.WHITE)
-          .createPawn())
-        .put(Position.of(2, 7), Pawn.newBuilder()
-          .withPosition(Position.of(2, 7))
-          .withTeam(Team.WHITE)
-          .createPawn())
-        .put(Position.of(2, 8), Pawn.newBuilder()
-          .withPosition(Position.of(2, 8))
-          .withTeam(Team.WHITE)
-          .createPawn())
-
-        .put(Position.of(7, 1), Pawn.newBuilder()
-          .withPosition(Position.of(7, 1))
-          .withTeam(Team.BLACK)
-          .createPawn())
-        .put(Position.of(7, 2), Pawn.newBuilder()
-          .withPosition(Position.of(7, 2))
-          .withTeam(Team.BLACK)
-          .createPawn())
-        .put(Position.of(7, 3), Pawn.newBuilder()
-          .withPosition(Position.of(7, 3))
-          .withTeam(Team.BLACK)
-          .createPawn())
-        .put(Position.of(7, 4), Pawn.newBuilder()
-          .withPosition(Position.of(7, 4))
-          .withTeam(Team.BLACK)
-          .createPawn())
-        .put(Position.of(7, 5), Pawn.newBuilder()
-          .withPosition(Position.of(7, 5))
-          .withTeam(Team.BLACK)
-          .createPawn())
-        .put(Position.of(7, 6), Pawn.newBuilder()
-          .withPosition(Position.of(7, 6))
-          .withTeam(Team.BLACK)
-          .createPawn())
-        .put(Position.of(7, 7), Pawn.newBuilder()
-          .withPosition(Position.of(7, 7))
-          .withTeam(Team.BLACK)
-          .createPawn())
-        .put(Position.of(7, 8), Pawn.newBuilder()
-          .withPosition(Position.of(7, 8))
-          .withTeam(Team.BLACK)
-          .createPawn())
-
-        .put(Position.of(8, 1), Rook.newBuilder()
-          .withPosition(Position.of(8, 1))
-          .withTeam(Team.BLACK)
-          .createRook())
-        .put(Position.of(8, 2), Knight.newBuilder()
-          .withPosition(Position.of(8, 2))
-          .withTeam(Team.BLACK)
-          .createKnight())
-        .put(Position.of(8, 3), Bishop.newBuilder()
-          .withPosition(Position.of(8, 3))
-          .withTeam(Team.BLACK)
-          .createBishop())
-        .put(Position.of(8, 4), Queen.newBuilder()
-          .withPosition(Position.of(8, 4))
-          .withTeam(Team.BLACK)
-          .createQueen())
-        .put(Position.of(8, 5), King.newBuilder()
-          .withPosition(Position.of(8, 5))
-          .withTeam(Team.BLACK)
-          .createKing())
-        .put(Position.of(8, 6), Bishop.newBuilder()
-          .withPosition(Position.of(8, 6))
-          .withTeam(Team.BLACK)
-          .createBishop())
-        .put(Position.of(8, 7), Knight.newBuilder()
-          .withPosition(Position.of(8, 7))
-          .withTeam(Team.BLACK)
-          .createKnight())
-        .put(Position.of(8, 8), Rook.newBuilder()
-          .withPosition(Position.of(8, 8))
-          .withTeam(Team.BLACK)
-          .createRook())
-        .build();
+    Preconditions.checkNotNull(pieces);
+    return DefaultChessGrid.createDefault(pieces, unmoved, playingTeam,
+      enPassantSquare);
+  }
+
+  public BitboardChessGrid createBitboardGrid() {
+    Preconditions.checkNotNull(pieces);
+    return BitboardChessGrid.createDefault(pieces, unmoved, playingTeam,
+      enPassantSquare);
   }
 }
@@ -4,13 +4,61 @@ import java.util.Collection;
 import java.util.Map;
 
 import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.piece.PieceType;
 import de.qetz.chess.game.position.Move;
 import de.qetz.chess.game.piece.Team;
 
 public interface Grid {
   Collection<Move> listPossibleMovesForPiece(Position position);
   Map<Position, Collection<Move>> listAllPossibleMovesForCurrentTeam();
+  void listAllPossibleMovesForCurrentTeam(MoveList moves);
 
   Team playingTeam();
+  boolean isInCheck();
+  long positionKey();
+
+  // The key of only the pawns of both teams
+  long pawnKey();
+
+  // See CastlingRights, the field behind a pawn that walked two fields
+  // or Bitboards.NO_SQUARE
+  int castlingRights();
+  int enPassantSquare();
+
+  // The fields of all pieces of a team and type as bitboard
+  long pieceBoard(Team team, PieceType type);
+
+  /**
+   * Material and piece-square scores of all pieces from the view of
+   * white, kept up to date with every move. The phase weighs both.
+   */
+  int middlegameScore();
+  int endgameScore();
+  int phase();
   void executeMove(Move move);
+
+  /**
+   * Moves like executeMove, but neither calculates the next moves eagerly
+   * nor calls any events, so it can be reverted with unmakeMove.
+   */
+  void makeMove(Move move);
+  void makeMove(int move);
+  void unmakeMove();
+
+  /**
+   * Passes the turn without moving, which chess does not allow, but lets
+   * a search see how good a position is without moving. Must not be made
+   * in check and is reverted with unmakeMove.
+   */
+  void makeNullMove();
+
+  // The position in the Forsyth-Edwards notation, see the factory
+  String toFen();
+
+  /**
+   * An independent grid of the current position, e.g. for another search
+   * thread. Moves made before copying can not be unmade on the copy.
+   */
+  Grid copy();
 }
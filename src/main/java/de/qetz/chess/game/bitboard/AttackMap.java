@@ -0,0 +1,212 @@
+package de.qetz.chess.game.bitboard;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+
+/**
+ * Everything the playing team needs to know about the enemy pieces in one
+ * ply: the attacked fields, the pieces giving check and the own pieces that
+ * are pinned to the king. With it a pseudo move only has to be tested
+ * against a few masks to know whether it is legal.
+ */
+public final class AttackMap {
+  public static AttackMap createFor(Team team, long[] pieces) {
+    Preconditions.checkNotNull(team);
+    Preconditions.checkNotNull(pieces);
+    Preconditions.checkArgument(pieces.length == Bitboards.PIECES);
+    long king = pieces[Bitboards.pieceIndex(team, PieceType.KING)];
+    if (king == Bitboards.EMPTY) {
+      throw new IllegalStateException();
+    }
+    var attackMap = new AttackMap(team, pieces, Bitboards.firstSquare(king));
+    attackMap.calculate();
+    return attackMap;
+  }
+
+  /**
+   * Whether the king of the team is attacked, which only looks at the
+   * lines and jumps leading to its field instead of calculating the whole
+   * map. A team without a king is not in check.
+   */
+  public static boolean isKingAttacked(Team team, long[] pieces) {
+    Preconditions.checkNotNull(team);
+    Preconditions.checkNotNull(pieces);
+    Preconditions.checkArgument(pieces.length == Bitboards.PIECES);
+    long king = pieces[Bitboards.pieceIndex(team, PieceType.KING)];
+    if (king == Bitboards.EMPTY) {
+      return false;
+    }
+    long occupied = Bitboards.EMPTY;
+    for (long piece : pieces) {
+      occupied |= piece;
+    }
+    long pawns = pieces[Bitboards.pieceIndex(resolveEnemy(team),
+      PieceType.PAWN)];
+    return isAttacked(team, pieces, Bitboards.firstSquare(king), occupied,
+      pawns);
+  }
+
+  private static Team resolveEnemy(Team team) {
+    return team == Team.WHITE ? Team.BLACK : Team.WHITE;
+  }
+
+  private final Team team;
+  private final Team enemy;
+  private final long[] pieces;
+  private final int kingSquare;
+  private long occupied;
+  private long attacked;
+  private long checkers;
+  private long pinned;
+  private long evasions;
+
+  private AttackMap(Team team, long[] pieces, int kingSquare) {
+    this.team = team;
+    this.enemy = resolveEnemy(team);
+    this.pieces = pieces;
+    this.kingSquare = kingSquare;
+  }
+
+  public int kingSquare() {
+    return kingSquare;
+  }
+
+  public long attacked() {
+    return attacked;
+  }
+
+  public long checkers() {
+    return checkers;
+  }
+
+  public long pinned() {
+    return pinned;
+  }
+
+  public boolean isInCheck() {
+    return checkers != Bitboards.EMPTY;
+  }
+
+  public boolean isAttacked(int square) {
+    return Bitboards.contains(attacked, square);
+  }
+
+  /**
+   * The fields a piece other than the king may move to: while in check
+   * only captures and blocks of a single checker, and a pinned piece only
+   * along the line of its pin.
+   */
+  public long legalTargets(int square) {
+    return Bitboards.contains(pinned, square)
+      ? evasions & Rays.line(kingSquare, square)
+      : evasions;
+  }
+
+  /**
+   * En passant removes two pieces from the line of the king at once, which
+   * the pin masks do not cover, so it is tested on the resulting grid.
+   */
+  public boolean isLegalEnPassant(int from, int to, int captured) {
+    long occupiedAfter = occupied
+      & ~Bitboards.bit(from)
+      & ~Bitboards.bit(captured)
+      | Bitboards.bit(to);
+    long pawns = pieces[Bitboards.pieceIndex(enemy, PieceType.PAWN)]
+      & ~Bitboards.bit(captured);
+    return !isAttacked(team, pieces, kingSquare, occupiedAfter, pawns);
+  }
+
+  // Whether an enemy of the team attacks the field, with the pawns given
+  // apart so a captured one can be left out
+  private static boolean isAttacked(
+    Team team,
+    long[] pieces,
+    int square,
+    long occupied,
+    long pawns
+  ) {
+    var enemy = resolveEnemy(team);
+    long queens = pieces[Bitboards.pieceIndex(enemy, PieceType.QUEEN)];
+    long rooks = pieces[Bitboards.pieceIndex(enemy, PieceType.ROOK)];
+    long bishops = pieces[Bitboards.pieceIndex(enemy, PieceType.BISHOP)];
+    long knights = pieces[Bitboards.pieceIndex(enemy, PieceType.KNIGHT)];
+    long king = pieces[Bitboards.pieceIndex(enemy, PieceType.KING)];
+    return (AttackTables.pawnAttacks(team, square) & pawns) != Bitboards.EMPTY
+      || (AttackTables.knightAttacks(square) & knights) != Bitboards.EMPTY
+      || (AttackTables.kingAttacks(square) & king) != Bitboards.EMPTY
+      || (MagicAttacks.rookAttacks(square, occupied) & (rooks | queens))
+      != Bitboards.EMPTY
+      || (MagicAttacks.bishopAttacks(square, occupied) & (bishops | queens))
+      != Bitboards.EMPTY;
+  }
+
+  private void calculate() {
+    long own = Bitboards.EMPTY;
+    for (int index = 0; index < Bitboards.PIECES; index++) {
+      occupied |= pieces[index];
+      if (Bitboards.pieceTeam(index) == team) {
+        own |= pieces[index];
+      }
+    }
+    long withoutKing = occupied & ~Bitboards.bit(kingSquare);
+    for (var type : PieceType.values()) {
+      for (long enemies = pieces[Bitboards.pieceIndex(enemy, type)];
+        enemies != Bitboards.EMPTY;
+        enemies = Bitboards.withoutFirstSquare(enemies)) {
+        int square = Bitboards.firstSquare(enemies);
+        long attacks = calculateAttacks(type, square, withoutKing);
+        attacked |= attacks;
+        if (Bitboards.contains(attacks, kingSquare)) {
+          checkers |= Bitboards.bit(square);
+        }
+      }
+    }
+    calculatePinned(own);
+    calculateEvasions();
+  }
+
+  private long calculateAttacks(PieceType type, int square, long occupied) {
+    return switch (type) {
+      case PAWN -> AttackTables.pawnAttacks(enemy, square);
+      case KNIGHT -> AttackTables.knightAttacks(square);
+      case BISHOP -> MagicAttacks.bishopAttacks(square, occupied);
+      case ROOK -> MagicAttacks.rookAttacks(square, occupied);
+      case QUEEN -> MagicAttacks.queenAttacks(square, occupied);
+      case KING -> AttackTables.kingAttacks(square);
+    };
+  }
+
+  private void calculatePinned(long own) {
+    long queens = pieces[Bitboards.pieceIndex(enemy, PieceType.QUEEN)];
+    long rooks = pieces[Bitboards.pieceIndex(enemy, PieceType.ROOK)];
+    long bishops = pieces[Bitboards.pieceIndex(enemy, PieceType.BISHOP)];
+    long snipers =
+      (MagicAttacks.rookAttacks(kingSquare, Bitboards.EMPTY) & (rooks | queens))
+      | (MagicAttacks.bishopAttacks(kingSquare, Bitboards.EMPTY)
+      & (bishops | queens));
+    for (; snipers != Bitboards.EMPTY;
+      snipers = Bitboards.withoutFirstSquare(snipers)) {
+      long blockers = Rays.between(kingSquare, Bitboards.firstSquare(snipers))
+        & occupied;
+      if (Bitboards.count(blockers) == 1
+        && (blockers & own) != Bitboards.EMPTY) {
+        pinned |= blockers;
+      }
+    }
+  }
+
+  private static final long ALL_SQUARES = ~Bitboards.EMPTY;
+
+  private void calculateEvasions() {
+    if (checkers == Bitboards.EMPTY) {
+      evasions = ALL_SQUARES;
+    } else if (Bitboards.count(checkers) == 1) {
+      evasions = checkers
+        | Rays.between(kingSquare, Bitboards.firstSquare(checkers));
+    } else {
+      evasions = Bitboards.EMPTY;
+    }
+  }
+}
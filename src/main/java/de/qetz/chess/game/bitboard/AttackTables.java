@@ -0,0 +1,58 @@
+package de.qetz.chess.game.bitboard;
+
+import de.qetz.chess.game.piece.Team;
+
+public final class AttackTables {
+  private static final int[][] KNIGHT_OFFSETS = new int[][]{
+    {2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}
+  };
+
+  private static final int[][] KING_OFFSETS = new int[][]{
+    {1, 0}, {0, 1}, {-1, 0}, {0, -1}, {1, 1}, {-1, 1}, {-1, -1}, {1, -1}
+  };
+
+  private static final int[][] WHITE_PAWN_OFFSETS = new int[][]{
+    {1, 1}, {1, -1}
+  };
+
+  private static final int[][] BLACK_PAWN_OFFSETS = new int[][]{
+    {-1, 1}, {-1, -1}
+  };
+
+  private static final long[] KNIGHT_ATTACKS = createAttacks(KNIGHT_OFFSETS);
+  private static final long[] KING_ATTACKS = createAttacks(KING_OFFSETS);
+  private static final long[] WHITE_PAWN_ATTACKS =
+    createAttacks(WHITE_PAWN_OFFSETS);
+  private static final long[] BLACK_PAWN_ATTACKS =
+    createAttacks(BLACK_PAWN_OFFSETS);
+
+  private AttackTables() {}
+
+  public static long knightAttacks(int square) {
+    return KNIGHT_ATTACKS[square];
+  }
+
+  public static long kingAttacks(int square) {
+    return KING_ATTACKS[square];
+  }
+
+  public static long pawnAttacks(Team team, int square) {
+    return team == Team.WHITE
+      ? WHITE_PAWN_ATTACKS[square]
+      : BLACK_PAWN_ATTACKS[square];
+  }
+
+  private static long[] createAttacks(int[][] offsets) {
+    long[] attacks = new long[Bitboards.SQUARES];
+    for (int square = 0; square < Bitboards.SQUARES; square++) {
+      for (int[] offset : offsets) {
+        int column = Bitboards.column(square) + offset[0];
+        int row = Bitboards.row(square) + offset[1];
+        if (Bitboards.isOnGrid(column, row)) {
+          attacks[square] |= Bitboards.bit(Bitboards.square(column, row));
+        }
+      }
+    }
+    return attacks;
+  }
+}
@@ -0,0 +1,114 @@
+package de.qetz.chess.game.bitboard;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.DefaultChessGrid;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+
+/**
+ * A bitboard is a long with one bit per field. The field of column c
+ * and row r is stored at bit (c - 1) * 8 + (r - 1), so Position.of(1, 1)
+ * is bit 0 and Position.of(8, 8) is bit 63.
+ */
+public final class Bitboards {
+  public static final int SQUARES = 64;
+  public static final int NO_SQUARE = -1;
+
+  public static final long EMPTY = 0L;
+  public static final long FIRST_ROW = 0x0101010101010101L;
+  public static final long SECOND_ROW = FIRST_ROW << 1;
+  public static final long SEVENTH_ROW = FIRST_ROW << 6;
+  public static final long EIGHTH_ROW = FIRST_ROW << 7;
+  public static final long FIRST_COLUMN = 0xFFL;
+
+  private static final int FIELDS_PER_COLUMN = 8;
+  private static final int PIECE_TYPES = PieceType.values().length;
+
+  public static final int PIECES = Team.values().length * PIECE_TYPES;
+
+  private Bitboards() {}
+
+  public static int square(int column, int row) {
+    return (column - DefaultChessGrid.MIN_VALUE) * FIELDS_PER_COLUMN
+      + (row - DefaultChessGrid.MIN_VALUE);
+  }
+
+  public static int square(Position position) {
+    Preconditions.checkNotNull(position);
+    return position.index();
+  }
+
+  public static boolean isOnGrid(int column, int row) {
+    return column >= DefaultChessGrid.MIN_VALUE
+      && column <= DefaultChessGrid.MAX_VALUE
+      && row >= DefaultChessGrid.MIN_VALUE
+      && row <= DefaultChessGrid.MAX_VALUE;
+  }
+
+  public static int column(int square) {
+    return square / FIELDS_PER_COLUMN + DefaultChessGrid.MIN_VALUE;
+  }
+
+  public static int row(int square) {
+    return square % FIELDS_PER_COLUMN + DefaultChessGrid.MIN_VALUE;
+  }
+
+  public static Position position(int square) {
+    return Position.ofIndex(square);
+  }
+
+  public static long bit(int square) {
+    return 1L << square;
+  }
+
+  public static long bit(Position position) {
+    return bit(square(position));
+  }
+
+  public static boolean contains(long bitboard, int square) {
+    return (bitboard & bit(square)) != EMPTY;
+  }
+
+  public static long columnMask(int column) {
+    return FIRST_COLUMN << (column - DefaultChessGrid.MIN_VALUE)
+      * FIELDS_PER_COLUMN;
+  }
+
+  public static long rowMask(int row) {
+    return FIRST_ROW << (row - DefaultChessGrid.MIN_VALUE);
+  }
+
+  /**
+   * The index of the bitboard of a team and piece type in an array of
+   * {@link #PIECES} bitboards.
+   */
+  public static int pieceIndex(Team team, PieceType type) {
+    return team.ordinal() * PIECE_TYPES + type.ordinal();
+  }
+
+  public static Team pieceTeam(int pieceIndex) {
+    return Team.values()[pieceIndex / PIECE_TYPES];
+  }
+
+  public static PieceType pieceType(int pieceIndex) {
+    return PieceType.values()[pieceIndex % PIECE_TYPES];
+  }
+
+  public static int firstSquare(long bitboard) {
+    return Long.numberOfTrailingZeros(bitboard);
+  }
+
+  public static int lastSquare(long bitboard) {
+    return SQUARES - 1 - Long.numberOfLeadingZeros(bitboard);
+  }
+
+  public static long withoutFirstSquare(long bitboard) {
+    return bitboard & (bitboard - 1);
+  }
+
+  public static int count(long bitboard) {
+    return Long.bitCount(bitboard);
+  }
+}
@@ -0,0 +1,48 @@
+package de.qetz.chess.game.bitboard;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.piece.Team;
+
+/**
+ * The castling rights of both teams as four flags. A team may still castle
+ * to a side as long as neither its king nor the rook of that side has
+ * moved from its starting field.
+ */
+public final class CastlingRights {
+  public static final int NONE = 0;
+  public static final int ALL = 0b1111;
+
+  public static final int KING_ROW = 5;
+  public static final int LEFT_ROOK_ROW = 1;
+  public static final int RIGHT_ROOK_ROW = 8;
+
+  private static final int WHITE_RIGHT = 1;
+  private static final int WHITE_LEFT = 2;
+  private static final int BLACK_RIGHT = 4;
+  private static final int BLACK_LEFT = 8;
+
+  private CastlingRights() {}
+
+  public static int right(Team team) {
+    Preconditions.checkNotNull(team);
+    return team == Team.WHITE ? WHITE_RIGHT : BLACK_RIGHT;
+  }
+
+  public static int left(Team team) {
+    Preconditions.checkNotNull(team);
+    return team == Team.WHITE ? WHITE_LEFT : BLACK_LEFT;
+  }
+
+  public static boolean has(int rights, int right) {
+    return (rights & right) != NONE;
+  }
+
+  private static final int WHITE_HOME_COLUMN = 1;
+  private static final int BLACK_HOME_COLUMN = 8;
+
+  public static int homeColumn(Team team) {
+    Preconditions.checkNotNull(team);
+    return team == Team.WHITE ? WHITE_HOME_COLUMN : BLACK_HOME_COLUMN;
+  }
+}
@@ -0,0 +1,152 @@
+package de.qetz.chess.game.bitboard;
+
+import de.qetz.chess.game.position.direction.Direction;
+
+/**
+ * Attacks of sliding pieces are looked up with magic bitboards: the
+ * relevant blockers of a square are multiplied with a magic number, whose
+ * upper bits index a table of precalculated attacks. The magic numbers are
+ * searched once at startup with fixed seeds per column, so the tables are
+ * the same on every run and the search only takes a few milliseconds.
+ */
+public final class MagicAttacks {
+  private static final long[] SEEDS = new long[]{
+    728, 10316, 55013, 32803, 12281, 15100, 16645, 255
+  };
+
+  private static final Magic[] ROOK_MAGICS =
+    createMagics(Rays.ROOK_DIRECTIONS);
+  private static final Magic[] BISHOP_MAGICS =
+    createMagics(Rays.BISHOP_DIRECTIONS);
+
+  private MagicAttacks() {}
+
+  public static long rookAttacks(int square, long occupied) {
+    return ROOK_MAGICS[square].attacks(occupied);
+  }
+
+  public static long bishopAttacks(int square, long occupied) {
+    return BISHOP_MAGICS[square].attacks(occupied);
+  }
+
+  public static long queenAttacks(int square, long occupied) {
+    return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+  }
+
+  private static final class Magic {
+    private final long mask;
+    private final long magic;
+    private final int shift;
+    private final long[] attacks;
+
+    private Magic(long mask, long magic, int shift, long[] attacks) {
+      this.mask = mask;
+      this.magic = magic;
+      this.shift = shift;
+      this.attacks = attacks;
+    }
+
+    private long attacks(long occupied) {
+      return attacks[(int) (((occupied & mask) * magic) >>> shift)];
+    }
+  }
+
+  private static Magic[] createMagics(Direction[] directions) {
+    Magic[] magics = new Magic[Bitboards.SQUARES];
+    for (int square = 0; square < Bitboards.SQUARES; square++) {
+      var random = new MagicRandom(SEEDS[Bitboards.column(square) - 1]);
+      magics[square] = createMagic(directions, square, random);
+    }
+    return magics;
+  }
+
+  private static Magic createMagic(
+    Direction[] directions,
+    int square,
+    MagicRandom random
+  ) {
+    long mask = createRelevantMask(directions, square);
+    int bits = Bitboards.count(mask);
+    int size = 1 << bits;
+    long[] blockers = new long[size];
+    long[] references = new long[size];
+    long subset = Bitboards.EMPTY;
+    for (int index = 0; index < size; index++) {
+      blockers[index] = subset;
+      references[index] = Rays.attacks(directions, square, subset);
+      subset = (subset - mask) & mask;
+    }
+    int shift = Bitboards.SQUARES - bits;
+    long[] attacks = new long[size];
+    int[] epochs = new int[size];
+    for (int epoch = 1; ; epoch++) {
+      long magic = random.nextSparseLong();
+      if (Long.bitCount((mask * magic) >>> 56) < 6) {
+        continue;
+      }
+      if (fillAttacks(blockers, references, magic, shift, attacks, epochs,
+        epoch)) {
+        return new Magic(mask, magic, shift, attacks);
+      }
+    }
+  }
+
+  private static boolean fillAttacks(
+    long[] blockers,
+    long[] references,
+    long magic,
+    int shift,
+    long[] attacks,
+    int[] epochs,
+    int epoch
+  ) {
+    for (int index = 0; index < blockers.length; index++) {
+      int key = (int) ((blockers[index] * magic) >>> shift);
+      if (epochs[key] != epoch) {
+        epochs[key] = epoch;
+        attacks[key] = references[index];
+      } else if (attacks[key] != references[index]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // The fields at the end of a ray never block anything behind them
+  private static long createRelevantMask(Direction[] directions, int square) {
+    long mask = Bitboards.EMPTY;
+    for (var direction : directions) {
+      long ray = Rays.ray(direction, square);
+      if (ray != Bitboards.EMPTY) {
+        int last = isIncreasing(ray, square)
+          ? Bitboards.lastSquare(ray)
+          : Bitboards.firstSquare(ray);
+        mask |= ray & ~Bitboards.bit(last);
+      }
+    }
+    return mask;
+  }
+
+  private static boolean isIncreasing(long ray, int square) {
+    return Bitboards.firstSquare(ray) > square;
+  }
+
+  private static final class MagicRandom {
+    private long state;
+
+    private MagicRandom(long seed) {
+      this.state = seed;
+    }
+
+    private long nextSparseLong() {
+      return nextLong() & nextLong() & nextLong();
+    }
+
+    private long nextLong() {
+      state ^= state >>> 12;
+      state ^= state << 25;
+      state ^= state >>> 27;
+      return state * 0x2545F4914F6CDD1DL;
+    }
+  }
+}
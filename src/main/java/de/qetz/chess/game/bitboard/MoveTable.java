@@ -0,0 +1,143 @@
+package de.qetz.chess.game.bitboard;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.position.direction.Direction;
+import de.qetz.chess.game.DefaultChessGrid;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.position.Move;
+
+/**
+ * Every move a piece can make along a line or as a knight is created once,
+ * so move generators only have to look it up by its start and end square
+ */
+public final class MoveTable {
+  private static final Move[] MOVES = createMoves();
+
+  private MoveTable() {}
+
+  public static Move lookup(int from, int to) {
+    var move = MOVES[from * Bitboards.SQUARES + to];
+    Preconditions.checkArgument(move != null);
+    return move;
+  }
+
+  private static Move[] createMoves() {
+    Move[] moves = new Move[Bitboards.SQUARES * Bitboards.SQUARES];
+    for (int from = 0; from < Bitboards.SQUARES; from++) {
+      for (int to = 0; to < Bitboards.SQUARES; to++) {
+        var direction = resolveDirection(from, to);
+        if (direction != null) {
+          moves[from * Bitboards.SQUARES + to] = Move.newBuilder()
+            .withOldPosition(Bitboards.position(from))
+            .withNewPosition(Bitboards.position(to))
+            .withDirection(direction)
+            .withMoves(resolveDistance(from, to, direction))
+            .createMove();
+        }
+      }
+    }
+    return moves;
+  }
+
+  private static final PieceType[] TYPES = PieceType.values();
+  private static final Move[] PROMOTION_MOVES = createPromotionMoves();
+
+  /**
+   * The move of a pawn onto the first or last column that promotes it to
+   * the given type, created once like every other move of the table
+   */
+  public static Move lookupPromotion(int from, int to, PieceType promotion) {
+    Preconditions.checkNotNull(promotion);
+    var move = PROMOTION_MOVES[
+      (from * Bitboards.SQUARES + to) * TYPES.length + promotion.ordinal()];
+    Preconditions.checkArgument(move != null);
+    return move;
+  }
+
+  private static Move[] createPromotionMoves() {
+    Move[] moves = new Move[Bitboards.SQUARES * Bitboards.SQUARES
+      * TYPES.length];
+    for (int from = 0; from < Bitboards.SQUARES; from++) {
+      for (int to = 0; to < Bitboards.SQUARES; to++) {
+        if (!isPromotion(from, to)) {
+          continue;
+        }
+        var move = MOVES[from * Bitboards.SQUARES + to];
+        for (var promotion : PieceType.PROMOTIONS) {
+          moves[(from * Bitboards.SQUARES + to) * TYPES.length
+            + promotion.ordinal()] = move.withPromotion(promotion);
+        }
+      }
+    }
+    return moves;
+  }
+
+  // A pawn walks or attacks one column onto the first or last column
+  private static boolean isPromotion(int from, int to) {
+    int column = Bitboards.column(to);
+    return (column == DefaultChessGrid.MIN_VALUE
+      || column == DefaultChessGrid.MAX_VALUE)
+      && Math.abs(column - Bitboards.column(from)) == 1
+      && Math.abs(Bitboards.row(to) - Bitboards.row(from)) <= 1;
+  }
+
+  private static int resolveDistance(int from, int to, Direction direction) {
+    if (direction.ordinal() >= Direction.KNIGHT_RIGHT_UP.ordinal()) {
+      return 1;
+    }
+    return Math.max(
+      Math.abs(Bitboards.column(to) - Bitboards.column(from)),
+      Math.abs(Bitboards.row(to) - Bitboards.row(from)));
+  }
+
+  private static Direction resolveDirection(int from, int to) {
+    int columns = Bitboards.column(to) - Bitboards.column(from);
+    int rows = Bitboards.row(to) - Bitboards.row(from);
+    if (columns == 0 && rows == 0) {
+      return null;
+    }
+    if (rows == 0) {
+      return columns > 0 ? Direction.FORWARD : Direction.BACKWARD;
+    }
+    if (columns == 0) {
+      return rows > 0 ? Direction.RIGHT : Direction.LEFT;
+    }
+    if (Math.abs(columns) == Math.abs(rows)) {
+      return resolveDiagonalDirection(columns, rows);
+    }
+    return resolveKnightDirection(columns, rows);
+  }
+
+  private static Direction resolveDiagonalDirection(int columns, int rows) {
+    if (columns > 0) {
+      return rows > 0
+        ? Direction.RIGHT_UP_DIAGONAL
+        : Direction.LEFT_UP_DIAGONAL;
+    }
+    return rows > 0
+      ? Direction.RIGHT_DOWN_DIAGONAL
+      : Direction.LEFT_DOWN_DIAGONAL;
+  }
+
+  private static Direction resolveKnightDirection(int columns, int rows) {
+    if (columns == 2 && rows == 1) {
+      return Direction.KNIGHT_RIGHT_UP;
+    } else if (columns == 1 && rows == 2) {
+      return Direction.KNIGHT_RIGHT_MIDDLE_UP;
+    } else if (columns == -1 && rows == 2) {
+      return Direction.KNIGHT_RIGHT_MIDDLE_DOWN;
+    } else if (columns == -2 && rows == 1) {
+      return Direction.KNIGHT_RIGHT_DOWN;
+    } else if (columns == -2 && rows == -1) {
+      return Direction.KNIGHT_LEFT_DOWN;
+    } else if (columns == -1 && rows == -2) {
+      return Direction.KNIGHT_LEFT_MIDDLE_DOWN;
+    } else if (columns == 1 && rows == -2) {
+      return Direction.KNIGHT_LEFT_MIDDLE_UP;
+    } else if (columns == 2 && rows == -1) {
+      return Direction.KNIGHT_LEFT_UP;
+    }
+    return null;
+  }
+}
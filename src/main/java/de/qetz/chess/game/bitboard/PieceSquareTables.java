@@ -0,0 +1,164 @@
+package de.qetz.chess.game.bitboard;
+
+import de.qetz.chess.game.piece.Team;
+
+/**
+ * Scores of every piece on every field, the material plus a bonus for
+ * good fields, once for the middlegame and once for the endgame. White
+ * scores are positive and black ones negative, so the grids can add and
+ * subtract them with every change and always know the score of the
+ * whole grid. The phase counts the pieces beside pawns and kings and
+ * blends both scores, from {@link #MAX_PHASE} at the start to 0.
+ *
+ * <p>The tables are written from the view of white with the eighth
+ * column at the top, as a grid is usually printed.
+ */
+public final class PieceSquareTables {
+  public static final int MAX_PHASE = 24;
+
+  // Indexed by PieceType ordinal
+  private static final int[] MIDDLEGAME_VALUES = new int[]{
+    100, 320, 330, 500, 900, 0
+  };
+  private static final int[] ENDGAME_VALUES = new int[]{
+    120, 300, 330, 520, 920, 0
+  };
+  private static final int[] TYPE_PHASES = new int[]{0, 1, 1, 2, 4, 0};
+
+  private static final int[] PAWN_MIDDLEGAME = new int[]{
+     0,  0,   0,   0,   0,   0,  0,  0,
+    50, 50,  50,  50,  50,  50, 50, 50,
+    10, 10,  20,  30,  30,  20, 10, 10,
+     5,  5,  10,  25,  25,  10,  5,  5,
+     0,  0,   0,  20,  20,   0,  0,  0,
+     5, -5, -10,   0,   0, -10, -5,  5,
+     5, 10,  10, -20, -20,  10, 10,  5,
+     0,  0,   0,   0,   0,   0,  0,  0
+  };
+  private static final int[] PAWN_ENDGAME = new int[]{
+     0,  0,  0,  0,  0,  0,  0,  0,
+    80, 80, 80, 80, 80, 80, 80, 80,
+    50, 50, 50, 50, 50, 50, 50, 50,
+    30, 30, 30, 30, 30, 30, 30, 30,
+    15, 15, 15, 15, 15, 15, 15, 15,
+     5,  5,  5,  5,  5,  5,  5,  5,
+     0,  0,  0,  0,  0,  0,  0,  0,
+     0,  0,  0,  0,  0,  0,  0,  0
+  };
+  private static final int[] KNIGHT = new int[]{
+    -50, -40, -30, -30, -30, -30, -40, -50,
+    -40, -20,   0,   0,   0,   0, -20, -40,
+    -30,   0,  10,  15,  15,  10,   0, -30,
+    -30,   5,  15,  20,  20,  15,   5, -30,
+    -30,   0,  15,  20,  20,  15,   0, -30,
+    -30,   5,  10,  15,  15,  10,   5, -30,
+    -40, -20,   0,   5,   5,   0, -20, -40,
+    -50, -40, -30, -30, -30, -30, -40, -50
+  };
+  private static final int[] BISHOP = new int[]{
+    -20, -10, -10, -10, -10, -10, -10, -20,
+    -10,   0,   0,   0,   0,   0,   0, -10,
+    -10,   0,   5,  10,  10,   5,   0, -10,
+    -10,   5,   5,  10,  10,   5,   5, -10,
+    -10,   0,  10,  10,  10,  10,   0, -10,
+    -10,  10,  10,  10,  10,  10,  10, -10,
+    -10,   5,   0,   0,   0,   0,   5, -10,
+    -20, -10, -10, -10, -10, -10, -10, -20
+  };
+  private static final int[] ROOK_MIDDLEGAME = new int[]{
+     0,  0,  0,  0,  0,  0,  0,  0,
+     5, 10, 10, 10, 10, 10, 10,  5,
+    -5,  0,  0,  0,  0,  0,  0, -5,
+    -5,  0,  0,  0,  0,  0,  0, -5,
+    -5,  0,  0,  0,  0,  0,  0, -5,
+    -5,  0,  0,  0,  0,  0,  0, -5,
+    -5,  0,  0,  0,  0,  0,  0, -5,
+     0,  0,  0,  5,  5,  0,  0,  0
+  };
+  private static final int[] ROOK_ENDGAME = new int[Bitboards.SQUARES];
+  private static final int[] QUEEN = new int[]{
+    -20, -10, -10, -5, -5, -10, -10, -20,
+    -10,   0,   0,  0,  0,   0,   0, -10,
+    -10,   0,   5,  5,  5,   5,   0, -10,
+     -5,   0,   5,  5,  5,   5,   0,  -5,
+      0,   0,   5,  5,  5,   5,   0,  -5,
+    -10,   5,   5,  5,  5,   5,   0, -10,
+    -10,   0,   5,  0,  0,   0,   0, -10,
+    -20, -10, -10, -5, -5, -10, -10, -20
+  };
+  private static final int[] KING_MIDDLEGAME = new int[]{
+    -30, -40, -40, -50, -50, -40, -40, -30,
+    -30, -40, -40, -50, -50, -40, -40, -30,
+    -30, -40, -40, -50, -50, -40, -40, -30,
+    -30, -40, -40, -50, -50, -40, -40, -30,
+    -20, -30, -30, -40, -40, -30, -30, -20,
+    -10, -20, -20, -20, -20, -20, -20, -10,
+     20,  20,   0,   0,   0,   0,  20,  20,
+     20,  30,  10,   0,   0,  10,  30,  20
+  };
+  private static final int[] KING_ENDGAME = new int[]{
+    -50, -40, -30, -20, -20, -30, -40, -50,
+    -30, -20, -10,   0,   0, -10, -20, -30,
+    -30, -10,  20,  30,  30,  20, -10, -30,
+    -30, -10,  30,  40,  40,  30, -10, -30,
+    -30, -10,  30,  40,  40,  30, -10, -30,
+    -30, -10,  20,  30,  30,  20, -10, -30,
+    -30, -30,   0,   0,   0,   0, -30, -30,
+    -50, -30, -30, -30, -30, -30, -30, -50
+  };
+
+  // Indexed by PieceType ordinal
+  private static final int[][] MIDDLEGAME_TABLES = new int[][]{
+    PAWN_MIDDLEGAME, KNIGHT, BISHOP, ROOK_MIDDLEGAME, QUEEN, KING_MIDDLEGAME
+  };
+  private static final int[][] ENDGAME_TABLES = new int[][]{
+    PAWN_ENDGAME, KNIGHT, BISHOP, ROOK_ENDGAME, QUEEN, KING_ENDGAME
+  };
+
+  private static final int[][] MIDDLEGAME =
+    createScores(MIDDLEGAME_VALUES, MIDDLEGAME_TABLES);
+  private static final int[][] ENDGAME =
+    createScores(ENDGAME_VALUES, ENDGAME_TABLES);
+
+  private static final int[] PHASES = createPhases();
+
+  private PieceSquareTables() {}
+
+  public static int middlegame(int piece, int square) {
+    return MIDDLEGAME[piece][square];
+  }
+
+  public static int endgame(int piece, int square) {
+    return ENDGAME[piece][square];
+  }
+
+  public static int phase(int piece) {
+    return PHASES[piece];
+  }
+
+  // The printed top row is the eighth column, which flips the column bits
+  private static final int FLIP_COLUMN = 0b111000;
+
+  private static int[][] createScores(int[] values, int[][] tables) {
+    int[][] scores = new int[Bitboards.PIECES][Bitboards.SQUARES];
+    for (int piece = 0; piece < Bitboards.PIECES; piece++) {
+      var type = Bitboards.pieceType(piece);
+      boolean white = Bitboards.pieceTeam(piece) == Team.WHITE;
+      for (int square = 0; square < Bitboards.SQUARES; square++) {
+        int score = values[type.ordinal()] + tables[type.ordinal()][white
+          ? square ^ FLIP_COLUMN
+          : square];
+        scores[piece][square] = white ? score : -score;
+      }
+    }
+    return scores;
+  }
+
+  private static int[] createPhases() {
+    int[] phases = new int[Bitboards.PIECES];
+    for (int piece = 0; piece < Bitboards.PIECES; piece++) {
+      phases[piece] = TYPE_PHASES[Bitboards.pieceType(piece).ordinal()];
+    }
+    return phases;
+  }
+}
@@ -0,0 +1,162 @@
+package de.qetz.chess.game.bitboard;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.position.direction.Direction;
+
+public final class Rays {
+  public static final Direction[] ROOK_DIRECTIONS = new Direction[]{
+    Direction.FORWARD,
+    Direction.BACKWARD,
+    Direction.RIGHT,
+    Direction.LEFT
+  };
+
+  public static final Direction[] BISHOP_DIRECTIONS = new Direction[]{
+    Direction.RIGHT_UP_DIAGONAL,
+    Direction.RIGHT_DOWN_DIAGONAL,
+    Direction.LEFT_DOWN_DIAGONAL,
+    Direction.LEFT_UP_DIAGONAL
+  };
+
+  private static final int LINE_DIRECTIONS = 8;
+  private static final long[][] RAYS = createRays();
+  private static final long[][] BETWEEN = new long[Bitboards.SQUARES][];
+  private static final long[][] LINES = new long[Bitboards.SQUARES][];
+
+  static {
+    for (int square = 0; square < Bitboards.SQUARES; square++) {
+      BETWEEN[square] = new long[Bitboards.SQUARES];
+      LINES[square] = new long[Bitboards.SQUARES];
+      for (var direction : Direction.values()) {
+        if (isLine(direction)) {
+          fillLines(direction, square);
+        }
+      }
+    }
+  }
+
+  private Rays() {}
+
+  public static long ray(Direction direction, int square) {
+    Preconditions.checkArgument(isLine(direction));
+    return RAYS[direction.ordinal()][square];
+  }
+
+  /**
+   * The fields strictly between two fields on a common line, empty if the
+   * fields do not share a line.
+   */
+  public static long between(int from, int to) {
+    return BETWEEN[from][to];
+  }
+
+  /**
+   * The whole line through two fields including both of them, empty if the
+   * fields do not share a line.
+   */
+  public static long line(int from, int to) {
+    return LINES[from][to];
+  }
+
+  public static long attacks(Direction direction, int square, long occupied) {
+    long ray = ray(direction, square);
+    long blockers = ray & occupied;
+    if (blockers == Bitboards.EMPTY) {
+      return ray;
+    }
+    int blocker = isIncreasing(direction)
+      ? Bitboards.firstSquare(blockers)
+      : Bitboards.lastSquare(blockers);
+    return ray ^ RAYS[direction.ordinal()][blocker];
+  }
+
+  public static long attacks(Direction[] directions, int square, long occupied) {
+    long attacks = Bitboards.EMPTY;
+    for (var direction : directions) {
+      attacks |= attacks(direction, square, occupied);
+    }
+    return attacks;
+  }
+
+  private static boolean isLine(Direction direction) {
+    return direction.ordinal() < LINE_DIRECTIONS;
+  }
+
+  private static boolean isIncreasing(Direction direction) {
+    return switch (direction) {
+      case FORWARD, RIGHT, RIGHT_UP_DIAGONAL, LEFT_UP_DIAGONAL -> true;
+      default -> false;
+    };
+  }
+
+  private static long[][] createRays() {
+    long[][] rays = new long[LINE_DIRECTIONS][Bitboards.SQUARES];
+    for (var direction : Direction.values()) {
+      if (isLine(direction)) {
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+          rays[direction.ordinal()][square] = createRay(direction, square);
+        }
+      }
+    }
+    return rays;
+  }
+
+  private static void fillLines(Direction direction, int square) {
+    long ray = RAYS[direction.ordinal()][square];
+    long line = ray
+      | RAYS[resolveOpposite(direction).ordinal()][square]
+      | Bitboards.bit(square);
+    for (long targets = ray; targets != Bitboards.EMPTY;
+      targets = Bitboards.withoutFirstSquare(targets)) {
+      int target = Bitboards.firstSquare(targets);
+      BETWEEN[square][target] = ray & ~RAYS[direction.ordinal()][target]
+        & ~Bitboards.bit(target);
+      LINES[square][target] = line;
+    }
+  }
+
+  private static Direction resolveOpposite(Direction direction) {
+    return switch (direction) {
+      case FORWARD -> Direction.BACKWARD;
+      case BACKWARD -> Direction.FORWARD;
+      case RIGHT -> Direction.LEFT;
+      case LEFT -> Direction.RIGHT;
+      case RIGHT_UP_DIAGONAL -> Direction.LEFT_DOWN_DIAGONAL;
+      case LEFT_DOWN_DIAGONAL -> Direction.RIGHT_UP_DIAGONAL;
+      case RIGHT_DOWN_DIAGONAL -> Direction.LEFT_UP_DIAGONAL;
+      case LEFT_UP_DIAGONAL -> Direction.RIGHT_DOWN_DIAGONAL;
+      default -> throw new IllegalArgumentException();
+    };
+  }
+
+  private static long createRay(Direction direction, int square) {
+    int columnStep = resolveColumnStep(direction);
+    int rowStep = resolveRowStep(direction);
+    int column = Bitboards.column(square) + columnStep;
+    int row = Bitboards.row(square) + rowStep;
+    long ray = Bitboards.EMPTY;
+    while (Bitboards.isOnGrid(column, row)) {
+      ray |= Bitboards.bit(Bitboards.square(column, row));
+      column += columnStep;
+      row += rowStep;
+    }
+    return ray;
+  }
+
+  private static int resolveColumnStep(Direction direction) {
+    return switch (direction) {
+      case FORWARD, RIGHT_UP_DIAGONAL, LEFT_UP_DIAGONAL -> 1;
+      case BACKWARD, RIGHT_DOWN_DIAGONAL, LEFT_DOWN_DIAGONAL -> -1;
+      default -> 0;
+    };
+  }
+
+  private static int resolveRowStep(Direction direction) {
+    return switch (direction) {
+      case RIGHT, RIGHT_UP_DIAGONAL, RIGHT_DOWN_DIAGONAL -> 1;
+      case LEFT, LEFT_UP_DIAGONAL, LEFT_DOWN_DIAGONAL -> -1;
+      default -> 0;
+    };
+  }
+}
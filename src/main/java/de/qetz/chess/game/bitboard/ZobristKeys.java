@@ -0,0 +1,74 @@
+package de.qetz.chess.game.bitboard;
+
+import java.util.SplittableRandom;
+
+import de.qetz.chess.game.piece.PieceType;
+
+/**
+ * Random keys to hash a position: the keys of all pieces on their fields,
+ * of the castling rights and of the en passant row are combined with xor,
+ * plus one key if black is playing. Because xor is its own inverse a key
+ * can be updated with every change instead of hashing the whole grid.
+ *
+ * <p>The pawn key only combines the keys of the pawns, so positions with
+ * the same pawns share it, e.g. to cache the pawn structure.
+ */
+public final class ZobristKeys {
+  private static final long SEED = 0x5EED_C0FF_EE15_C4E5L;
+  private static final int ROWS = 8;
+  private static final int CASTLING_RIGHTS = 4;
+  private static final long NO_KEY = 0L;
+
+  private static final long[][] PIECES = new long[Bitboards.PIECES][];
+  private static final long[][] PAWNS = new long[Bitboards.PIECES][];
+  private static final long[] CASTLING = new long[CastlingRights.ALL + 1];
+  private static final long[] EN_PASSANT = new long[ROWS];
+  private static final long BLACK_PLAYING;
+
+  static {
+    var random = new SplittableRandom(SEED);
+    for (int piece = 0; piece < Bitboards.PIECES; piece++) {
+      PIECES[piece] = random.longs(Bitboards.SQUARES).toArray();
+      PAWNS[piece] = Bitboards.pieceType(piece) == PieceType.PAWN
+        ? PIECES[piece]
+        : new long[Bitboards.SQUARES];
+    }
+    long[] rights = random.longs(CASTLING_RIGHTS).toArray();
+    for (int index = 0; index < CASTLING.length; index++) {
+      for (int right = 0; right < CASTLING_RIGHTS; right++) {
+        if (CastlingRights.has(index, 1 << right)) {
+          CASTLING[index] ^= rights[right];
+        }
+      }
+    }
+    for (int row = 0; row < ROWS; row++) {
+      EN_PASSANT[row] = random.nextLong();
+    }
+    BLACK_PLAYING = random.nextLong();
+  }
+
+  private ZobristKeys() {}
+
+  public static long piece(int piece, int square) {
+    return PIECES[piece][square];
+  }
+
+  // The key of a pawn on a field or no key for any other piece
+  public static long pawn(int piece, int square) {
+    return PAWNS[piece][square];
+  }
+
+  public static long castling(int rights) {
+    return CASTLING[rights];
+  }
+
+  public static long enPassant(int square) {
+    return square == Bitboards.NO_SQUARE
+      ? NO_KEY
+      : EN_PASSANT[Bitboards.row(square) - 1];
+  }
+
+  public static long blackPlaying() {
+    return BLACK_PLAYING;
+  }
+}
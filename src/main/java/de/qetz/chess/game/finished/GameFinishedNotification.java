@@ -23,7 +23,7 @@ public final class GameFinishedNotification {
 
   @EventHandler
   public void receiveFinishedNotification(GameFinishedTrigger finished) {
-    chess.updateState(Chess.GameState.FINISHED);
+    chess.finish(finished);
     LOG.info("GAME SUCCESSFULLY FINISHED BECAUSE: "
       + finished.reason() + ". WINNER: " + finished.winner());
   }
@@ -5,12 +5,10 @@ import com.google.common.collect.Lists;
 
 import java.util.logging.Logger;
 import java.util.Collection;
-import java.util.Optional;
-import java.util.Map;
 
-
-import de.qetz.chess.game.position.PositionNotReachable;
 import de.qetz.chess.game.position.direction.Direction;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.bitboard.MoveTable;
 import de.qetz.chess.game.position.Position;
 import de.qetz.chess.game.DefaultChessGrid;
 import de.qetz.chess.game.position.Move;
@@ -47,8 +45,16 @@ public abstract class DefaultPiece implements Piece {
     executeMove();
   }
 
+  public void undoMove(Position oldPosition, int oldMoves) {
+    Preconditions.checkNotNull(oldPosition);
+    Preconditions.checkArgument(oldMoves >= 0);
+
+    position = oldPosition;
+    moves = oldMoves;
+  }
+
   protected Collection<Move> calculateMovesForMultipleDirection(
-    Map<Position, DefaultPiece> grid,
+    DefaultPiece[] grid,
     Direction... directions
   ) {
     Collection<Move> possibleMoves = Lists.newArrayList();
@@ -59,7 +65,7 @@ public abstract class DefaultPiece implements Piece {
   }
 
   protected Collection<Move> calculateMovesForDirection(
-    Map<Position, DefaultPiece> grid,
+    DefaultPiece[] grid,
     Direction direction
   ) {
     return calculateCertainMovesForDirection(
@@ -70,39 +76,44 @@ public abstract class DefaultPiece implements Piece {
   }
 
   protected Collection<Move> calculateCertainMovesForDirection(
-    Map<Position, DefaultPiece> grid,
+    DefaultPiece[] grid,
     Direction direction,
     int number
   ) {
     Preconditions.checkArgument(number <= DefaultChessGrid.MAX_VALUE);
     Preconditions.checkArgument(number >= DefaultChessGrid.MIN_VALUE);
     Collection<Move> possibleMoves = Lists.newArrayList();
-    var oldPosition = position.clone();
+    int square = Bitboards.square(position);
     for (int index = 1; index <= number; index++) {
-      try {
-        var move = oldPosition.move(direction, index);
-        var lookingFor = move.newPosition();
-        if (resolvePiece(grid, lookingFor).isEmpty()) {
-          possibleMoves.add(move);
-          continue;
-        }
-        if (resolvePiece(grid, lookingFor).get().team != team) {
-          possibleMoves.add(move);
-        }
+      var lookingFor = position.tryMove(direction, index);
+      if (!lookingFor.isReachable()) {
         break;
-      } catch (PositionNotReachable ignorable) {
+      }
+      var piece = grid[lookingFor.index()];
+      if (piece == null || piece.team != team) {
+        possibleMoves.add(
+          MoveTable.lookup(square, Bitboards.square(lookingFor)));
+      }
+      if (piece != null) {
         break;
       }
     }
     return possibleMoves;
   }
 
-  private Optional<DefaultPiece> resolvePiece(
-    Map<Position, DefaultPiece> grid,
-    Position position
+  protected Collection<Move> calculateMovesForAttacks(
+    DefaultPiece[] grid,
+    long attacks
   ) {
-    return grid.containsKey(position)
-      ? Optional.of(grid.get(position))
-      : Optional.empty();
+    Collection<Move> possibleMoves = Lists.newArrayList();
+    int square = Bitboards.square(position);
+    for (long targets = attacks; targets != Bitboards.EMPTY;
+      targets = Bitboards.withoutFirstSquare(targets)) {
+      int target = Bitboards.firstSquare(targets);
+      if (grid[target] == null || grid[target].team != team) {
+        possibleMoves.add(MoveTable.lookup(square, target));
+      }
+    }
+    return possibleMoves;
   }
 }
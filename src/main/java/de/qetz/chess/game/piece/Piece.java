@@ -1,12 +1,12 @@
 package de.qetz.chess.game.piece;
 
 import java.util.Collection;
-import java.util.Map;
 
-import de.qetz.chess.game.position.Position;
 import de.qetz.chess.game.position.Move;
 
 public interface Piece {
-  Collection<Move> calculatePossibleMoves(Map<Position, DefaultPiece> grid);
+  // Occupied holds the fields of all pieces of the grid as bitboard
+  Collection<Move> calculatePossibleMoves(DefaultPiece[] grid, long occupied);
+  PieceType type();
   default void executeMove() {}
 }
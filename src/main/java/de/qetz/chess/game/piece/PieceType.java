@@ -0,0 +1,39 @@
+package de.qetz.chess.game.piece;
+
+import java.util.List;
+
+public enum PieceType {
+  PAWN('p'),
+  KNIGHT('n'),
+  BISHOP('b'),
+  ROOK('r'),
+  QUEEN('q'),
+  KING('k');
+
+  /**
+   * The piece types a pawn can be promoted to, the most valuable first.
+   */
+  public static final List<PieceType> PROMOTIONS =
+    List.of(QUEEN, ROOK, BISHOP, KNIGHT);
+
+  private final char symbol;
+
+  PieceType(char symbol) {
+    this.symbol = symbol;
+  }
+
+  // The lower case letter of the piece in algebraic notation
+  public char symbol() {
+    return symbol;
+  }
+
+  public static PieceType ofSymbol(char symbol) {
+    char lowerCase = Character.toLowerCase(symbol);
+    for (var type : values()) {
+      if (type.symbol == lowerCase) {
+        return type;
+      }
+    }
+    throw new IllegalArgumentException("Unknown piece symbol " + symbol);
+  }
+}
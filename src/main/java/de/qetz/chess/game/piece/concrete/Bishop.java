@@ -1,12 +1,13 @@
 package de.qetz.chess.game.piece.concrete;
 
 import java.util.Collection;
-import java.util.Map;
 
-import de.qetz.chess.game.position.direction.Direction;
 import de.qetz.chess.game.piece.AbstractPieceBuilder;
+import de.qetz.chess.game.bitboard.MagicAttacks;
+import de.qetz.chess.game.bitboard.Bitboards;
 import de.qetz.chess.game.piece.DefaultPiece;
 import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
 import de.qetz.chess.game.position.Move;
 import de.qetz.chess.game.piece.Team;
 
@@ -15,18 +16,18 @@ public final class Bishop extends DefaultPiece {
     super(position, team);
   }
 
-  private static final Direction[] BISHOP_DIRECTIONS = new Direction[]{
-    Direction.RIGHT_UP_DIAGONAL,
-    Direction.RIGHT_DOWN_DIAGONAL,
-    Direction.LEFT_DOWN_DIAGONAL,
-    Direction.LEFT_UP_DIAGONAL
-  };
-
   @Override
   public Collection<Move> calculatePossibleMoves(
-    Map<Position, DefaultPiece> grid
+    DefaultPiece[] grid,
+    long occupied
   ) {
-    return calculateMovesForMultipleDirection(grid, BISHOP_DIRECTIONS);
+    return calculateMovesForAttacks(grid, MagicAttacks.bishopAttacks(
+      Bitboards.square(position()), occupied));
+  }
+
+  @Override
+  public PieceType type() {
+    return PieceType.BISHOP;
   }
 
   public static Builder newBuilder() {
@@ -1,15 +1,15 @@
 package de.qetz.chess.game.piece.concrete;
 
-import com.google.common.collect.Lists;
-
 import java.util.Collection;
-import java.util.Map;
-
 
-import de.qetz.chess.game.position.direction.Direction;
 import de.qetz.chess.game.piece.AbstractPieceBuilder;
+import de.qetz.chess.game.bitboard.CastlingRights;
+import de.qetz.chess.game.bitboard.AttackTables;
 import de.qetz.chess.game.piece.DefaultPiece;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.bitboard.MoveTable;
 import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
 import de.qetz.chess.game.position.Move;
 import de.qetz.chess.game.piece.Team;
 
@@ -18,91 +18,88 @@ public final class King extends DefaultPiece {
     super(position, team);
   }
 
-  private static final Direction[] KING_DIRECTIONS = new Direction[]{
-    Direction.FORWARD,
-    Direction.RIGHT,
-    Direction.BACKWARD,
-    Direction.LEFT,
-    Direction.RIGHT_UP_DIAGONAL,
-    Direction.RIGHT_DOWN_DIAGONAL,
-    Direction.LEFT_DOWN_DIAGONAL,
-    Direction.LEFT_UP_DIAGONAL
-  };
-
   @Override
   public Collection<Move> calculatePossibleMoves(
-    Map<Position, DefaultPiece> grid
+    DefaultPiece[] grid,
+    long occupied
   ) {
-    Collection<Move> possibleMoves = Lists.newArrayList();
-    for (Direction direction : KING_DIRECTIONS) {
-      possibleMoves.addAll(checkNextMoveForDirection(grid, direction));
-    }
+    Collection<Move> possibleMoves = calculateMovesForAttacks(grid,
+      AttackTables.kingAttacks(Bitboards.square(position())));
     addRightCastling(grid, possibleMoves);
     addLeftCastling(grid, possibleMoves);
     return possibleMoves;
   }
 
-  private static final int ONLY_NEXT_FIELD = 1;
-
-  private Collection<Move> checkNextMoveForDirection(
-    Map<Position, DefaultPiece> grid,
-    Direction direction
-  ) {
-    return calculateCertainMovesForDirection(grid, direction, ONLY_NEXT_FIELD);
+  private static final int RIGHT_CASTLING_ROW = 7;
+  private static final int LEFT_CASTLING_ROW = 3;
+  // The castling moves of every team to one side, indexed by the team
+  private static final Move[] RIGHT_CASTLING_MOVES =
+    createCastlingMoves(RIGHT_CASTLING_ROW);
+  private static final Move[] LEFT_CASTLING_MOVES =
+    createCastlingMoves(LEFT_CASTLING_ROW);
+
+  private static Move[] createCastlingMoves(int row) {
+    var teams = Team.values();
+    Move[] moves = new Move[teams.length];
+    for (var team : teams) {
+      int column = CastlingRights.homeColumn(team);
+      moves[team.ordinal()] = MoveTable.lookup(
+        Bitboards.square(column, CastlingRights.KING_ROW),
+        Bitboards.square(column, row));
+    }
+    return moves;
   }
 
-  private static final int ROW_ROCK_RIGHT = 8;
-
   private void addRightCastling(
-    Map<Position, DefaultPiece> grid,
+    DefaultPiece[] grid,
     Collection<Move> possibleMoves
   ) {
-    if (moves() == 0
-      && grid.containsKey(Position.of(position().column(), ROW_ROCK_RIGHT))
-      && grid.get(Position.of(position().column(), ROW_ROCK_RIGHT)).moves() == 0
-    ) {
-      var isApplicable = true;
-      for (int row = position().row() + 1; row < ROW_ROCK_RIGHT; row++) {
-        if (grid.get(Position.of(position().column(), row)) != null) {
-          isApplicable = false;
-        }
-      }
-      if (isApplicable) {
-        possibleMoves.add(Move.newBuilder()
-          .withOldPosition(position())
-          .withNewPosition(Position.of(position().column(), ROW_ROCK_RIGHT - 1))
-          .withDirection(Direction.RIGHT)
-          .withMoves((ROW_ROCK_RIGHT - 1) - position().row())
-          .createMove());
-      }
+    if (isCastlingApplicable(grid, CastlingRights.RIGHT_ROOK_ROW,
+      position().row() + 1, CastlingRights.RIGHT_ROOK_ROW)) {
+      possibleMoves.add(RIGHT_CASTLING_MOVES[team().ordinal()]);
     }
   }
 
-  private static final int ROW_LEFT_RIGHT = 1;
-
   private void addLeftCastling(
-    Map<Position, DefaultPiece> grid,
+    DefaultPiece[] grid,
     Collection<Move> possibleMoves
   ) {
-    if (moves() == 0
-      && grid.containsKey(Position.of(position().column(), ROW_LEFT_RIGHT))
-      && grid.get(Position.of(position().column(), ROW_LEFT_RIGHT)).moves() == 0
-    ) {
-      var isApplicable = true;
-      for (int row = position().row() - 1; row > ROW_LEFT_RIGHT; row--) {
-        if (grid.get(Position.of(position().column(), row)) != null) {
-          isApplicable = false;
-        }
-      }
-      if (isApplicable) {
-        possibleMoves.add(Move.newBuilder()
-          .withOldPosition(position())
-          .withNewPosition(Position.of(position().column(), ROW_LEFT_RIGHT + 1))
-          .withDirection(Direction.LEFT)
-          .withMoves(position().row() - ROW_LEFT_RIGHT)
-          .createMove());
+    if (isCastlingApplicable(grid, CastlingRights.LEFT_ROOK_ROW,
+      CastlingRights.LEFT_ROOK_ROW + 1, position().row())) {
+      possibleMoves.add(LEFT_CASTLING_MOVES[team().ordinal()]);
+    }
+  }
+
+  private boolean isCastlingApplicable(
+    DefaultPiece[] grid,
+    int rookRow,
+    int firstRow,
+    int lastRow
+  ) {
+    int column = position().column();
+    if (moves() != 0
+      || column != CastlingRights.homeColumn(team())
+      || position().row() != CastlingRights.KING_ROW) {
+      return false;
+    }
+    var rook = grid[Bitboards.square(column, rookRow)];
+    if (rook == null
+      || rook.type() != PieceType.ROOK
+      || rook.team() != team()
+      || rook.moves() != 0) {
+      return false;
+    }
+    for (int row = firstRow; row < lastRow; row++) {
+      if (grid[Bitboards.square(column, row)] != null) {
+        return false;
       }
     }
+    return true;
+  }
+
+  @Override
+  public PieceType type() {
+    return PieceType.KING;
   }
 
   public static Builder newBuilder() {
@@ -3,14 +3,15 @@ package de.qetz.chess.game.piece.concrete;
 import com.google.common.collect.Lists;
 
 import java.util.Collection;
-import java.util.Optional;
-import java.util.Map;
 
-import de.qetz.chess.game.position.PositionNotReachable;
-import de.qetz.chess.game.piece.AbstractPieceBuilder;
 import de.qetz.chess.game.position.direction.Direction;
+import de.qetz.chess.game.piece.AbstractPieceBuilder;
 import de.qetz.chess.game.piece.DefaultPiece;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.bitboard.MoveTable;
 import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.DefaultChessGrid;
+import de.qetz.chess.game.piece.PieceType;
 import de.qetz.chess.game.position.Move;
 import de.qetz.chess.game.piece.Team;
 
@@ -19,102 +20,114 @@ public final class Pawn extends DefaultPiece {
     super(position, team);
   }
 
-  private static final Direction PAWN_DIRECTION = Direction.FORWARD;
-
   @Override
   public Collection<Move> calculatePossibleMoves(
-    Map<Position, DefaultPiece> grid
+    DefaultPiece[] grid,
+    long occupied
   ) {
     Collection<Move> possibleMoves = Lists.newArrayList();
-    possibleMoves.addAll(resolveAttackPossibilities(grid));
-    possibleMoves.addAll(resolveWalkPossibilities(grid));
+    addAttackPossibilities(grid, possibleMoves);
+    addWalkPossibilities(grid, possibleMoves);
     return possibleMoves;
   }
 
-  private Collection<Move> resolveWalkPossibilities(
-    Map<Position, DefaultPiece> grid
+  private void addWalkPossibilities(
+    DefaultPiece[] grid,
+    Collection<Move> possibleMoves
   ) {
-    Collection<Move> possibleMoves = Lists.newArrayList();
-    resolveNormalWalkMove(grid).ifPresent(possibleMoves::add);
-    if (moves() == 0 && possibleMoves.size() != 0) {
-      resolveDoubleWalkMove(grid).ifPresent(possibleMoves::add);
+    if (addNormalWalkMove(grid, possibleMoves) && isOnHomeColumn()) {
+      addDoubleWalkMove(grid, possibleMoves);
     }
-    return possibleMoves;
   }
 
   /**
-   * A pawn which was never moved is in his first move
-   * able to walk two fields instead of one
+   * A pawn on its starting column is able to walk two fields instead of
+   * one
    */
   private static final int MOVES_UNMOVED_PAWN = 2;
   private static final int MOVES_MOVED_PAWN = 1;
 
-  private Optional<Move> resolveNormalWalkMove(
-    Map<Position, DefaultPiece> grid
+  private boolean addNormalWalkMove(
+    DefaultPiece[] grid,
+    Collection<Move> possibleMoves
   ) {
-    return resolveWalkMove(grid, MOVES_MOVED_PAWN);
+    return addWalkMove(grid, MOVES_MOVED_PAWN, possibleMoves);
   }
 
-  private Optional<Move> resolveDoubleWalkMove(
-    Map<Position, DefaultPiece> grid
+  private boolean addDoubleWalkMove(
+    DefaultPiece[] grid,
+    Collection<Move> possibleMoves
   ) {
-    return resolveWalkMove(grid, MOVES_UNMOVED_PAWN);
+    return addWalkMove(grid, MOVES_UNMOVED_PAWN, possibleMoves);
   }
 
-  private static final Direction WALK_DIRECTION = Direction.FORWARD;
+  private static final int WHITE_HOME_COLUMN = 2;
+  private static final int BLACK_HOME_COLUMN = 7;
 
-  private Optional<Move> resolveWalkMove(
-    Map<Position, DefaultPiece> grid,
-    int moves
-  ) {
-    try {
-      var move = position().move(WALK_DIRECTION, moves);
-      if (grid.get(move.newPosition()) == null) {
-        return Optional.of(move);
-      }
-    } catch (PositionNotReachable ignorable) {}
-    return Optional.empty();
+  private boolean isOnHomeColumn() {
+    return position().column() == (team() == Team.WHITE
+      ? WHITE_HOME_COLUMN
+      : BLACK_HOME_COLUMN);
   }
 
-  private Collection<Move> resolveAttackPossibilities(
-    Map<Position, DefaultPiece> grid
+  private boolean addWalkMove(
+    DefaultPiece[] grid,
+    int moves,
+    Collection<Move> possibleMoves
   ) {
-    Collection<Move> possibleMoves = Lists.newArrayList();
-    resolveRightAttackMove(grid).ifPresent(possibleMoves::add);
-    resolveLeftAttackMove(grid).ifPresent(possibleMoves::add);
-    return possibleMoves;
+    var walkDirection = team() == Team.WHITE
+      ? Direction.FORWARD
+      : Direction.BACKWARD;
+    var newPosition = position().tryMove(walkDirection, moves);
+    if (newPosition.isReachable() && grid[newPosition.index()] == null) {
+      addMove(newPosition, possibleMoves);
+      return true;
+    }
+    return false;
   }
 
-  private static final Direction RIGHT_ATTACK_DIRECTION
-    = Direction.RIGHT_UP_DIAGONAL;
-
-  private Optional<Move> resolveRightAttackMove(
-    Map<Position, DefaultPiece> grid
+  private void addAttackPossibilities(
+    DefaultPiece[] grid,
+    Collection<Move> possibleMoves
   ) {
-    return resolveAttackMove(grid, RIGHT_ATTACK_DIRECTION);
+    if (team() == Team.WHITE) {
+      addAttackMove(grid, Direction.RIGHT_UP_DIAGONAL, possibleMoves);
+      addAttackMove(grid, Direction.LEFT_UP_DIAGONAL, possibleMoves);
+    } else {
+      addAttackMove(grid, Direction.RIGHT_DOWN_DIAGONAL, possibleMoves);
+      addAttackMove(grid, Direction.LEFT_DOWN_DIAGONAL, possibleMoves);
+    }
   }
 
-  private static final Direction LEFT_ATTACK_DIRECTION
-    = Direction.LEFT_UP_DIAGONAL;
-
-  private Optional<Move> resolveLeftAttackMove(
-    Map<Position, DefaultPiece> grid
+  private void addAttackMove(
+    DefaultPiece[] grid,
+    Direction direction,
+    Collection<Move> possibleMoves
   ) {
-    return resolveAttackMove(grid, LEFT_ATTACK_DIRECTION);
+    var attacked = position().tryMove(direction, 1);
+    if (attacked.isReachable()
+      && grid[attacked.index()] != null
+      && grid[attacked.index()].team() != team()) {
+      addMove(attacked, possibleMoves);
+    }
   }
 
-  private Optional<Move> resolveAttackMove(
-    Map<Position, DefaultPiece> grid,
-    Direction direction
-  ) {
-    try {
-      var attack = position().move(direction, 1);
-      if (grid.get(attack.newPosition()) != null
-        && grid.get(attack.newPosition()).team() != team()) {
-        return Optional.of(attack);
+  private void addMove(Position newPosition, Collection<Move> possibleMoves) {
+    int from = Bitboards.square(position());
+    int to = Bitboards.square(newPosition);
+    if (newPosition.column() == DefaultChessGrid.MIN_VALUE
+      || newPosition.column() == DefaultChessGrid.MAX_VALUE) {
+      for (var promotion : PieceType.PROMOTIONS) {
+        possibleMoves.add(MoveTable.lookupPromotion(from, to, promotion));
       }
-    } catch (PositionNotReachable ignorable) {}
-    return Optional.empty();
+    } else {
+      possibleMoves.add(MoveTable.lookup(from, to));
+    }
+  }
+
+  @Override
+  public PieceType type() {
+    return PieceType.PAWN;
   }
 
   public static Builder newBuilder() {
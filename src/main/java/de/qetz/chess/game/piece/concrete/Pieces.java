@@ -0,0 +1,56 @@
+package de.qetz.chess.game.piece.concrete;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.piece.DefaultPiece;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+
+public final class Pieces {
+  private Pieces() {}
+
+  public static DefaultPiece createPiece(
+    PieceType type,
+    Position position,
+    Team team
+  ) {
+    Preconditions.checkNotNull(type);
+    Preconditions.checkNotNull(position);
+    Preconditions.checkNotNull(team);
+    return switch (type) {
+      case PAWN -> Pawn.newBuilder()
+        .withPosition(position)
+        .withTeam(team)
+        .createPawn();
+      case KNIGHT -> Knight.newBuilder()
+        .withPosition(position)
+        .withTeam(team)
+        .createKnight();
+      case BISHOP -> Bishop.newBuilder()
+        .withPosition(position)
+        .withTeam(team)
+        .createBishop();
+      case ROOK -> Rook.newBuilder()
+        .withPosition(position)
+        .withTeam(team)
+        .createRook();
+      case QUEEN -> Queen.newBuilder()
+        .withPosition(position)
+        .withTeam(team)
+        .createQueen();
+      case KING -> King.newBuilder()
+        .withPosition(position)
+        .withTeam(team)
+        .createKing();
+    };
+  }
+
+  // A new instance on the same field, which has moved as often
+  public static DefaultPiece copyPiece(DefaultPiece piece) {
+    Preconditions.checkNotNull(piece);
+    var copy = createPiece(piece.type(), piece.position(), piece.team());
+    copy.undoMove(piece.position(), piece.moves());
+    return copy;
+  }
+}
@@ -1,12 +1,13 @@
 package de.qetz.chess.game.piece.concrete;
 
 import java.util.Collection;
-import java.util.Map;
 
-import de.qetz.chess.game.position.direction.Direction;
 import de.qetz.chess.game.piece.AbstractPieceBuilder;
+import de.qetz.chess.game.bitboard.MagicAttacks;
+import de.qetz.chess.game.bitboard.Bitboards;
 import de.qetz.chess.game.piece.DefaultPiece;
 import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
 import de.qetz.chess.game.position.Move;
 import de.qetz.chess.game.piece.Team;
 
@@ -15,22 +16,18 @@ public final class Queen extends DefaultPiece {
     super(position, team);
   }
 
-  private static final Direction[] QUEEN_DIRECTIONS = new Direction[]{
-    Direction.FORWARD,
-    Direction.BACKWARD,
-    Direction.RIGHT,
-    Direction.LEFT,
-    Direction.RIGHT_UP_DIAGONAL,
-    Direction.RIGHT_DOWN_DIAGONAL,
-    Direction.LEFT_DOWN_DIAGONAL,
-    Direction.LEFT_UP_DIAGONAL
-  };
-
   @Override
   public Collection<Move> calculatePossibleMoves(
-    Map<Position, DefaultPiece> grid
+    DefaultPiece[] grid,
+    long occupied
   ) {
-    return calculateMovesForMultipleDirection(grid, QUEEN_DIRECTIONS);
+    return calculateMovesForAttacks(grid, MagicAttacks.queenAttacks(
+      Bitboards.square(position()), occupied));
+  }
+
+  @Override
+  public PieceType type() {
+    return PieceType.QUEEN;
   }
 
   public static Builder newBuilder() {
@@ -6,23 +6,27 @@ import com.google.gson.Gson;
 import java.util.Objects;
 
 import de.qetz.chess.game.position.direction.Direction;
+import de.qetz.chess.game.piece.PieceType;
 
 public final class Move {
   private final Position oldPosition;
   private final Position newPosition;
   private final Direction direction;
   private final int moves;
+  private final PieceType promotion;
 
   private Move(
     Position oldPosition,
     Position newPosition,
     Direction direction,
-    int moves
+    int moves,
+    PieceType promotion
   ) {
     this.oldPosition = oldPosition;
     this.newPosition = newPosition;
     this.direction = direction;
     this.moves = moves;
+    this.promotion = promotion;
   }
 
   public Position oldPosition() {
@@ -41,6 +45,24 @@ public final class Move {
     return moves;
   }
 
+  /**
+   * The piece type a pawn is promoted to by this move, or null.
+   */
+  public PieceType promotion() {
+    return promotion;
+  }
+
+  public Move withPromotion(PieceType promotion) {
+    Preconditions.checkNotNull(promotion);
+    return newBuilder()
+      .withOldPosition(oldPosition)
+      .withNewPosition(newPosition)
+      .withDirection(direction)
+      .withMoves(moves)
+      .withPromotion(promotion)
+      .createMove();
+  }
+
   private static final Gson JSON_SERIALIZER = new Gson();
 
   @Override
@@ -50,7 +72,7 @@ public final class Move {
 
   @Override
   public int hashCode() {
-    return Objects.hash(oldPosition, newPosition, direction, moves);
+    return Objects.hash(oldPosition, newPosition, direction, moves, promotion);
   }
 
   @Override
@@ -65,7 +87,8 @@ public final class Move {
     return oldPosition.equals(move.oldPosition)
       && newPosition.equals(move.newPosition)
       &&  direction == move.direction
-      && moves == move.moves;
+      && moves == move.moves
+      && promotion == move.promotion;
   }
 
   @Override
@@ -75,6 +98,7 @@ public final class Move {
       .withNewPosition(newPosition.clone())
       .withDirection(direction)
       .withMoves(moves)
+      .withPromotion(promotion)
       .createMove();
   }
 
@@ -87,6 +111,7 @@ public final class Move {
     private Position newPosition;
     private Direction direction;
     private int moves;
+    private PieceType promotion;
 
     private Builder() {}
 
@@ -110,11 +135,16 @@ public final class Move {
       return this;
     }
 
+    public Builder withPromotion(PieceType promotion) {
+      this.promotion = promotion;
+      return this;
+    }
+
     public Move createMove() {
       Preconditions.checkNotNull(oldPosition);
       Preconditions.checkNotNull(newPosition);
       Preconditions.checkNotNull(direction);
-      return new Move(oldPosition, newPosition, direction, moves);
+      return new Move(oldPosition, newPosition, direction, moves, promotion);
     }
   }
 }
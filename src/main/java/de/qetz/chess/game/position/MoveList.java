@@ -0,0 +1,95 @@
+package de.qetz.chess.game.position;
+
+import com.google.common.base.Preconditions;
+
+import java.util.function.IntPredicate;
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of packed moves (see {@link PackedMove}), so move
+ * generators can fill the same list on every ply without boxing
+ */
+public final class MoveList {
+  private static final int DEFAULT_CAPACITY = 256;
+
+  public static MoveList create() {
+    return new MoveList(DEFAULT_CAPACITY);
+  }
+
+  public static MoveList createWithCapacity(int capacity) {
+    Preconditions.checkArgument(capacity > 0);
+    return new MoveList(capacity);
+  }
+
+  private int[] moves;
+  private int size;
+
+  private MoveList(int capacity) {
+    this.moves = new int[capacity];
+  }
+
+  public void add(int move) {
+    if (size == moves.length) {
+      moves = Arrays.copyOf(moves, size * 2);
+    }
+    moves[size++] = move;
+  }
+
+  public void addAll(MoveList other) {
+    Preconditions.checkNotNull(other);
+    for (int index = 0; index < other.size; index++) {
+      add(other.moves[index]);
+    }
+  }
+
+  public int get(int index) {
+    Preconditions.checkElementIndex(index, size);
+    return moves[index];
+  }
+
+  public void set(int index, int move) {
+    Preconditions.checkElementIndex(index, size);
+    moves[index] = move;
+  }
+
+  public void swap(int first, int second) {
+    Preconditions.checkElementIndex(first, size);
+    Preconditions.checkElementIndex(second, size);
+    int move = moves[first];
+    moves[first] = moves[second];
+    moves[second] = move;
+  }
+
+  // Keeps the order of the remaining moves
+  public void removeIf(IntPredicate filter) {
+    Preconditions.checkNotNull(filter);
+    int kept = 0;
+    for (int index = 0; index < size; index++) {
+      if (!filter.test(moves[index])) {
+        moves[kept++] = moves[index];
+      }
+    }
+    size = kept;
+  }
+
+  public boolean contains(int move) {
+    for (int index = 0; index < size; index++) {
+      if (moves[index] == move) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+}
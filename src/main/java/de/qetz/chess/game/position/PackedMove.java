@@ -0,0 +1,89 @@
+package de.qetz.chess.game.position;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.bitboard.MoveTable;
+import de.qetz.chess.game.piece.PieceType;
+
+/**
+ * A move packed into an int: bits 0-5 hold the old and bits 6-11 the new
+ * field index, bits 12-15 the flags and bits 16-18 the promotion piece
+ * type (ordinal + 1, zero for none).
+ */
+public final class PackedMove {
+  public static final int NONE = 0;
+
+  public static final int QUIET = 0;
+  public static final int CAPTURE = 1;
+  public static final int DOUBLE_WALK = 1 << 1;
+  public static final int CASTLING = 1 << 2;
+  public static final int EN_PASSANT = 1 << 3;
+
+  private static final int FIELD_MASK = 0x3F;
+  private static final int NEW_FIELD_SHIFT = 6;
+  private static final int FLAGS_SHIFT = 12;
+  private static final int FLAGS_MASK = 0xF;
+  private static final int PROMOTION_SHIFT = 16;
+  private static final int PROMOTION_MASK = 0x7;
+  private static final PieceType[] TYPES = PieceType.values();
+
+  private PackedMove() {}
+
+  public static int create(int from, int to, int flags) {
+    return from | to << NEW_FIELD_SHIFT | flags << FLAGS_SHIFT;
+  }
+
+  public static int create(int from, int to, int flags, PieceType promotion) {
+    Preconditions.checkNotNull(promotion);
+    return create(from, to, flags)
+      | (promotion.ordinal() + 1) << PROMOTION_SHIFT;
+  }
+
+  public static int from(int move) {
+    return move & FIELD_MASK;
+  }
+
+  public static int to(int move) {
+    return move >>> NEW_FIELD_SHIFT & FIELD_MASK;
+  }
+
+  public static int flags(int move) {
+    return move >>> FLAGS_SHIFT & FLAGS_MASK;
+  }
+
+  public static boolean hasFlag(int move, int flag) {
+    return (flags(move) & flag) != 0;
+  }
+
+  public static boolean isCapture(int move) {
+    return hasFlag(move, CAPTURE);
+  }
+
+  public static boolean isPromotion(int move) {
+    return (move >>> PROMOTION_SHIFT & PROMOTION_MASK) != 0;
+  }
+
+  public static PieceType promotion(int move) {
+    int promotion = move >>> PROMOTION_SHIFT & PROMOTION_MASK;
+    return promotion == 0 ? null : TYPES[promotion - 1];
+  }
+
+  /**
+   * The move in long algebraic notation like e2e4 or e7e8q.
+   */
+  public static String toNotation(int move) {
+    var notation = new StringBuilder(Position.ofIndex(from(move)).toNotation())
+      .append(Position.ofIndex(to(move)).toNotation());
+    if (isPromotion(move)) {
+      notation.append(promotion(move).symbol());
+    }
+    return notation.toString();
+  }
+
+  public static Move toMove(int move) {
+    Preconditions.checkArgument(move != NONE);
+    return isPromotion(move)
+      ? MoveTable.lookupPromotion(from(move), to(move), promotion(move))
+      : MoveTable.lookup(from(move), to(move));
+  }
+}
@@ -3,7 +3,6 @@ package de.qetz.chess.game.position;
 import com.google.gson.Gson;
 
 import java.util.logging.Logger;
-import java.util.Objects;
 
 import de.qetz.chess.game.position.direction.Direction;
 import de.qetz.chess.game.DefaultChessGrid;
@@ -11,16 +10,41 @@ import de.qetz.chess.game.DefaultChessGrid;
 public final class Position {
   private static final Logger LOG = Logger.getLogger(Position.class.getSimpleName());
 
+  public static final int FIELDS = 64;
+  // The index of every position out of grid
+  public static final int NO_INDEX = -1;
+
+  private static final int FIELDS_PER_COLUMN = 8;
+  private static final Position[] POSITIONS = createPositions();
+
+  public static final Position UNREACHABLE = new Position(0, 0);
+
+  /**
+   * Positions on the grid are interned, so only positions out of grid
+   * (which only appear in error messages) are created on every call. They
+   * all have {@link #NO_INDEX}, so they never share the hash or array slot
+   * of a field.
+   */
   public static Position of(int column, int row) {
-    return new Position(column, row);
+    return isOnGrid(column, row)
+      ? POSITIONS[calculateIndex(column, row)]
+      : new Position(column, row);
+  }
+
+  public static Position ofIndex(int index) {
+    return POSITIONS[index];
   }
 
-  private int column;
-  private int row;
+  private final int column;
+  private final int row;
+  private final transient int index;
 
   private Position(int column, int row) {
     this.column = column;
     this.row = row;
+    this.index = isOnGrid(column, row)
+      ? calculateIndex(column, row)
+      : NO_INDEX;
   }
 
   public int column() {
@@ -31,6 +55,26 @@ public final class Position {
     return row;
   }
 
+  // Dense index from 0 to 63, NO_INDEX for positions out of grid
+  public int index() {
+    return index;
+  }
+
+  private static int calculateIndex(int column, int row) {
+    return (column - DefaultChessGrid.MIN_VALUE) * FIELDS_PER_COLUMN
+      + (row - DefaultChessGrid.MIN_VALUE);
+  }
+
+  private static Position[] createPositions() {
+    Position[] positions = new Position[FIELDS];
+    for (int index = 0; index < FIELDS; index++) {
+      positions[index] = new Position(
+        index / FIELDS_PER_COLUMN + DefaultChessGrid.MIN_VALUE,
+        index % FIELDS_PER_COLUMN + DefaultChessGrid.MIN_VALUE);
+    }
+    return positions;
+  }
+
   public Move moveUnsafe(Direction direction, int moves) {
     try {
       return move(direction, moves);
@@ -40,35 +84,31 @@ public final class Position {
     }
   }
 
+  /**
+   * Returns {@link #UNREACHABLE} instead of throwing if the new position
+   * is out of grid, so move generators can find the edge of the grid
+   * without creating exceptions
+   */
+  public Position tryMove(Direction direction, int moves) {
+    int newColumn = column + resolveColumnOffset(direction, moves);
+    int newRow = row + resolveRowOffset(direction, moves);
+    return isOnGrid(newColumn, newRow)
+      ? Position.of(newColumn, newRow)
+      : UNREACHABLE;
+  }
+
+  public boolean isReachable() {
+    return this != UNREACHABLE;
+  }
+
   public Move move(Direction direction, int moves) throws PositionNotReachable {
-    Position oldPosition = clone();
-    Position newPosition;
-    switch (direction) {
-      case FORWARD -> newPosition = moveForward(moves);
-      case RIGHT -> newPosition = moveRight(moves);
-      case BACKWARD -> newPosition = moveBackward(moves);
-      case LEFT -> newPosition = moveLeft(moves);
-      case RIGHT_UP_DIAGONAL -> newPosition = moveRightUpDiagonal(moves);
-      case RIGHT_DOWN_DIAGONAL -> newPosition = moveRightDownDiagonal(moves);
-      case LEFT_DOWN_DIAGONAL -> newPosition = moveLeftDownDiagonal(moves);
-      case LEFT_UP_DIAGONAL -> newPosition = moveLeftUpDiagonal(moves);
-      case KNIGHT_RIGHT_UP -> newPosition = moveKnightlyRightUp();
-      case KNIGHT_RIGHT_MIDDLE_UP -> newPosition = moveKnightlyRightMiddleUp();
-      case KNIGHT_RIGHT_MIDDLE_DOWN -> newPosition = moveKnightlyRightMiddleDown();
-      case KNIGHT_RIGHT_DOWN -> newPosition = moveKnightlyRightDown();
-      case KNIGHT_LEFT_DOWN -> newPosition = moveKnightlyLeftDown();
-      case KNIGHT_LEFT_MIDDLE_DOWN -> newPosition = moveKnightlyLeftMiddleDown();
-      case KNIGHT_LEFT_MIDDLE_UP -> newPosition = moveKnightlyLeftMiddleUp();
-      case KNIGHT_LEFT_UP -> newPosition = moveKnightlyLeftUp();
-      default -> throw PositionNotReachable.createOf(
-        createMove(oldPosition, direction, moves));
+    Position newPosition = tryMove(direction, moves);
+    if (!newPosition.isReachable()) {
+      throw PositionNotReachable.createOf(createMove(Position.of(
+        column + resolveColumnOffset(direction, moves),
+        row + resolveRowOffset(direction, moves)), direction, moves));
     }
-    return Move.newBuilder()
-      .withOldPosition(oldPosition)
-      .withNewPosition(newPosition)
-      .withDirection(direction)
-      .withMoves(moves)
-      .createMove();
+    return createMove(newPosition, direction, moves);
   }
 
   private Move createMove(Position newPosition, Direction direction, int moves) {
@@ -80,173 +120,51 @@ public final class Position {
       .createMove();
   }
 
-  private Position moveForward(int moves) throws PositionNotReachable {
-    Position position = Position.of(column + moves, row);
-    if (column + moves <= DefaultChessGrid.MAX_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.FORWARD, moves));
-  }
-
-  private Position moveRight(int moves) throws PositionNotReachable {
-    Position position = Position.of(column, row + moves);
-    if (row + moves <= DefaultChessGrid.MAX_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.RIGHT, moves));
-  }
-
-  private Position moveBackward(int moves) throws PositionNotReachable {
-    Position position = Position.of(column - moves, row);
-    if (column - moves >= DefaultChessGrid.MIN_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.BACKWARD, moves));
-  }
-
-  private Position moveLeft(int moves) throws PositionNotReachable {
-    Position position = Position.of(column, row - moves);
-    if (row - moves >= DefaultChessGrid.MIN_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.LEFT, moves));
-  }
-
-  private Position moveRightUpDiagonal(int moves) throws PositionNotReachable {
-    Position position = Position.of(column + moves, row + moves);
-    if (column + moves <= DefaultChessGrid.MAX_VALUE
-      && row + moves <= DefaultChessGrid.MAX_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.RIGHT_UP_DIAGONAL, moves));
-  }
-
-  private Position moveRightDownDiagonal(int moves) throws PositionNotReachable {
-    Position position = Position.of(column - moves, row + moves);
-    if (column - moves >= DefaultChessGrid.MIN_VALUE
-      && row + moves <= DefaultChessGrid.MAX_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.RIGHT_DOWN_DIAGONAL, moves));
-  }
-
-  private Position moveLeftDownDiagonal(int moves) throws PositionNotReachable {
-    Position position = Position.of(column - moves, row - moves);
-    if (column - moves >= DefaultChessGrid.MIN_VALUE
-      && row - moves >= DefaultChessGrid.MIN_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.LEFT_DOWN_DIAGONAL, moves));
-  }
-
-  private Position moveLeftUpDiagonal(int moves) throws PositionNotReachable {
-    Position position = Position.of(column + moves, row - moves);
-    if (column + moves <= DefaultChessGrid.MAX_VALUE
-      && row - moves >= DefaultChessGrid.MIN_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.LEFT_UP_DIAGONAL, moves));
+  private static boolean isOnGrid(int column, int row) {
+    return column >= DefaultChessGrid.MIN_VALUE
+      && column <= DefaultChessGrid.MAX_VALUE
+      && row >= DefaultChessGrid.MIN_VALUE
+      && row <= DefaultChessGrid.MAX_VALUE;
   }
 
   private static final int KNIGHT_MOVE_TWO_FIELDS = 2;
   private static final int KNIGHT_MOVE_ONE_FIELD = 1;
 
-  private static final int KNIGHT_MOVES = 1;
-
-  private Position moveKnightlyRightUp() throws PositionNotReachable {
-    Position position = Position.of(column + KNIGHT_MOVE_TWO_FIELDS,
-      row + KNIGHT_MOVE_ONE_FIELD);
-    if (column + KNIGHT_MOVE_TWO_FIELDS <= DefaultChessGrid.MAX_VALUE
-      && row + KNIGHT_MOVE_ONE_FIELD <= DefaultChessGrid.MAX_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.KNIGHT_RIGHT_UP, KNIGHT_MOVES));
-  }
-
-  private Position moveKnightlyRightMiddleUp() throws PositionNotReachable {
-    Position position = Position.of(column + KNIGHT_MOVE_ONE_FIELD,
-      row + KNIGHT_MOVE_TWO_FIELDS);
-    if (column + KNIGHT_MOVE_ONE_FIELD <= DefaultChessGrid.MAX_VALUE
-      && row + KNIGHT_MOVE_TWO_FIELDS <= DefaultChessGrid.MAX_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.KNIGHT_RIGHT_MIDDLE_UP, KNIGHT_MOVES));
-  }
-
-  private Position moveKnightlyRightMiddleDown() throws PositionNotReachable {
-    Position position = Position.of(column - KNIGHT_MOVE_ONE_FIELD,
-      row + KNIGHT_MOVE_TWO_FIELDS);
-    if (column - KNIGHT_MOVE_ONE_FIELD >= DefaultChessGrid.MIN_VALUE
-      && row + KNIGHT_MOVE_TWO_FIELDS <= DefaultChessGrid.MAX_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.KNIGHT_RIGHT_MIDDLE_DOWN, KNIGHT_MOVES));
-  }
-
-  private Position moveKnightlyRightDown() throws PositionNotReachable {
-    Position position = Position.of(column - KNIGHT_MOVE_TWO_FIELDS,
-      row + KNIGHT_MOVE_ONE_FIELD);
-    if (column - KNIGHT_MOVE_TWO_FIELDS >= DefaultChessGrid.MIN_VALUE
-      && row + KNIGHT_MOVE_ONE_FIELD <= DefaultChessGrid.MAX_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.KNIGHT_RIGHT_DOWN, KNIGHT_MOVES));
-  }
-
-  private Position moveKnightlyLeftDown() throws PositionNotReachable {
-    Position position = Position.of(column - KNIGHT_MOVE_TWO_FIELDS,
-      row - KNIGHT_MOVE_ONE_FIELD);
-    if (column - KNIGHT_MOVE_TWO_FIELDS >= DefaultChessGrid.MIN_VALUE
-      && row - KNIGHT_MOVE_ONE_FIELD >= DefaultChessGrid.MIN_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.KNIGHT_LEFT_DOWN, KNIGHT_MOVES));
-  }
-
-  private Position moveKnightlyLeftMiddleDown() throws PositionNotReachable {
-    Position position = Position.of(column - KNIGHT_MOVE_ONE_FIELD,
-      row - KNIGHT_MOVE_TWO_FIELDS);
-    if (column - KNIGHT_MOVE_ONE_FIELD >= DefaultChessGrid.MIN_VALUE
-      && row - KNIGHT_MOVE_TWO_FIELDS >= DefaultChessGrid.MIN_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.KNIGHT_LEFT_MIDDLE_DOWN, KNIGHT_MOVES));
-  }
-
-  private Position moveKnightlyLeftMiddleUp() throws PositionNotReachable {
-    Position position = Position.of(column + KNIGHT_MOVE_ONE_FIELD,
-      row - KNIGHT_MOVE_TWO_FIELDS);
-    if (column + KNIGHT_MOVE_ONE_FIELD <= DefaultChessGrid.MAX_VALUE
-      && row - KNIGHT_MOVE_TWO_FIELDS >= DefaultChessGrid.MIN_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.KNIGHT_LEFT_MIDDLE_UP, KNIGHT_MOVES));
-  }
-
-  private Position moveKnightlyLeftUp() throws PositionNotReachable {
-    Position position = Position.of(column + KNIGHT_MOVE_TWO_FIELDS,
-      row - KNIGHT_MOVE_ONE_FIELD);
-    if (column + KNIGHT_MOVE_TWO_FIELDS <= DefaultChessGrid.MAX_VALUE
-      && row - KNIGHT_MOVE_ONE_FIELD >= DefaultChessGrid.MIN_VALUE) {
-      return position;
-    }
-    throw PositionNotReachable.createOf(
-      createMove(position, Direction.KNIGHT_LEFT_UP, KNIGHT_MOVES));
+  private static int resolveColumnOffset(Direction direction, int moves) {
+    return switch (direction) {
+      case FORWARD, RIGHT_UP_DIAGONAL, LEFT_UP_DIAGONAL -> moves;
+      case BACKWARD, RIGHT_DOWN_DIAGONAL, LEFT_DOWN_DIAGONAL -> -moves;
+      case RIGHT, LEFT -> 0;
+      case KNIGHT_RIGHT_UP, KNIGHT_LEFT_UP -> KNIGHT_MOVE_TWO_FIELDS;
+      case KNIGHT_RIGHT_MIDDLE_UP, KNIGHT_LEFT_MIDDLE_UP ->
+        KNIGHT_MOVE_ONE_FIELD;
+      case KNIGHT_RIGHT_MIDDLE_DOWN, KNIGHT_LEFT_MIDDLE_DOWN ->
+        -KNIGHT_MOVE_ONE_FIELD;
+      case KNIGHT_RIGHT_DOWN, KNIGHT_LEFT_DOWN -> -KNIGHT_MOVE_TWO_FIELDS;
+    };
+  }
+
+  private static int resolveRowOffset(Direction direction, int moves) {
+    return switch (direction) {
+      case RIGHT, RIGHT_UP_DIAGONAL, RIGHT_DOWN_DIAGONAL -> moves;
+      case LEFT, LEFT_UP_DIAGONAL, LEFT_DOWN_DIAGONAL -> -moves;
+      case FORWARD, BACKWARD -> 0;
+      case KNIGHT_RIGHT_UP, KNIGHT_RIGHT_DOWN -> KNIGHT_MOVE_ONE_FIELD;
+      case KNIGHT_RIGHT_MIDDLE_UP, KNIGHT_RIGHT_MIDDLE_DOWN ->
+        KNIGHT_MOVE_TWO_FIELDS;
+      case KNIGHT_LEFT_UP, KNIGHT_LEFT_DOWN -> -KNIGHT_MOVE_ONE_FIELD;
+      case KNIGHT_LEFT_MIDDLE_UP, KNIGHT_LEFT_MIDDLE_DOWN ->
+        -KNIGHT_MOVE_TWO_FIELDS;
+    };
+  }
+
+  private static final char FIRST_FILE = 'a';
+
+  // The field in algebraic notation, the row is the file and the column
+  // the rank, so Position.of(2, 5) is e2
+  public String toNotation() {
+    char file = (char) (FIRST_FILE + row - DefaultChessGrid.MIN_VALUE);
+    return String.valueOf(file) + column;
   }
 
   private static final Gson JSON_SERIALIZER = new Gson();
@@ -258,7 +176,7 @@ public final class Position {
 
   @Override
   public int hashCode() {
-    return Objects.hash(column, row);
+    return index;
   }
 
   @Override
@@ -274,8 +192,9 @@ public final class Position {
       && row == position.row;
   }
 
+  // Positions are immutable, so there is no need to copy them
   @Override
   public Position clone() {
-    return Position.of(column, row);
+    return this;
   }
 }
@@ -0,0 +1,79 @@
+package de.qetz.chess.perft;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Counts the leaf nodes of the move tree of a grid up to a fixed depth.
+ * The counts of well known positions are published, so any difference
+ * points to a bug in the move generation.
+ */
+public final class Perft {
+  public static Perft createFor(Grid grid) {
+    Preconditions.checkNotNull(grid);
+    return new Perft(grid);
+  }
+
+  private final Grid grid;
+  private MoveList[] moveLists = new MoveList[0];
+
+  private Perft(Grid grid) {
+    this.grid = grid;
+  }
+
+  public long countNodes(int depth) {
+    Preconditions.checkArgument(depth >= 0);
+    return depth == 0 ? 1 : count(depth);
+  }
+
+  /**
+   * Counts the nodes below every move of the current team, keyed by the
+   * packed move and in the order of the move generation.
+   */
+  public Map<Integer, Long> divide(int depth) {
+    Preconditions.checkArgument(depth >= 1);
+    Map<Integer, Long> nodes = Maps.newLinkedHashMap();
+    var moves = resolveMoveList(depth);
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    for (int index = 0; index < moves.size(); index++) {
+      int move = moves.get(index);
+      grid.makeMove(move);
+      nodes.put(move, countNodes(depth - 1));
+      grid.unmakeMove();
+    }
+    return nodes;
+  }
+
+  private long count(int depth) {
+    var moves = resolveMoveList(depth);
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    if (depth == 1) {
+      return moves.size();
+    }
+    long nodes = 0;
+    for (int index = 0; index < moves.size(); index++) {
+      grid.makeMove(moves.get(index));
+      nodes += count(depth - 1);
+      grid.unmakeMove();
+    }
+    return nodes;
+  }
+
+  // Every depth keeps its own buffer, so counting does not allocate
+  private MoveList resolveMoveList(int depth) {
+    if (depth >= moveLists.length) {
+      int length = moveLists.length;
+      moveLists = Arrays.copyOf(moveLists, depth + 1);
+      for (int index = length; index <= depth; index++) {
+        moveLists[index] = MoveList.create();
+      }
+    }
+    return moveLists[depth];
+  }
+}
@@ -0,0 +1,53 @@
+package de.qetz.chess.perft;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.Locale;
+
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Runs perft from the command line: the position, the depth and
+ * optionally the grid, either bitboard (default) or default.
+ */
+public final class PerftBootstrap {
+  private static final Logger LOG =
+    Logger.getLogger(PerftBootstrap.class.getSimpleName());
+
+  private static final String DEFAULT_GRID = "default";
+
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      LOG.severe("Usage: <position> <depth> [bitboard|default]");
+      return;
+    }
+    var position = PerftPosition.valueOf(args[0].toUpperCase(Locale.ROOT));
+    int depth = Integer.parseInt(args[1]);
+    var factory = position.createFactory();
+    Grid grid = args.length > 2 && args[2].equals(DEFAULT_GRID)
+      ? factory.createGrid()
+      : factory.createBitboardGrid();
+
+    long start = System.nanoTime();
+    var divide = Perft.createFor(grid).divide(depth);
+    long nanos = System.nanoTime() - start;
+
+    long nodes = 0;
+    for (var entry : divide.entrySet()) {
+      LOG.info(PackedMove.toNotation(entry.getKey()) + ": " + entry.getValue());
+      nodes += entry.getValue();
+    }
+    LOG.info("Nodes: " + nodes);
+    LOG.info("Nodes per second: "
+      + nodes * TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1));
+    if (depth <= position.maxDepth()) {
+      long expected = position.expectedNodes(depth);
+      if (nodes == expected) {
+        LOG.info("Matches the reference count");
+      } else {
+        LOG.severe("Expected " + expected + " nodes");
+      }
+    }
+  }
+}
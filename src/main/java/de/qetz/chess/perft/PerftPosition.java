@@ -0,0 +1,49 @@
+package de.qetz.chess.perft;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+
+/**
+ * The reference positions of the chess programming wiki with their node
+ * counts.
+ */
+public enum PerftPosition {
+  START(DefaultChessGridFactory.DEFAULT_FEN,
+    20, 400, 8_902, 197_281, 4_865_609),
+  KIWIPETE(
+    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+    48, 2_039, 97_862, 4_085_603),
+  POSITION_3("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    14, 191, 2_812, 43_238, 674_624),
+  POSITION_4(
+    "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+    6, 264, 9_467, 422_333),
+  POSITION_5("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+    44, 1_486, 62_379, 2_103_487);
+
+  private final String fen;
+  private final long[] nodes;
+
+  PerftPosition(String fen, long... nodes) {
+    this.fen = fen;
+    this.nodes = nodes;
+  }
+
+  public String fen() {
+    return fen;
+  }
+
+  public int maxDepth() {
+    return nodes.length;
+  }
+
+  public long expectedNodes(int depth) {
+    Preconditions.checkArgument(depth >= 1 && depth <= maxDepth());
+    return nodes[depth - 1];
+  }
+
+  public DefaultChessGridFactory createFactory() {
+    return DefaultChessGridFactory.newFactory().withFen(fen);
+  }
+}
@@ -0,0 +1,46 @@
+package de.qetz.chess.pgn;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Replays all games of a PGN file and reports how many could be replayed,
+ * arguments are the file and optionally the number of threads.
+ */
+public final class PgnBootstrap {
+  private static final Logger LOG =
+    Logger.getLogger(PgnBootstrap.class.getSimpleName());
+
+  private static final int MAX_LOGGED_ERRORS = 10;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      LOG.severe("Usage: <pgn> [threads]");
+      return;
+    }
+    var pool = args.length > 1
+      ? new ForkJoinPool(Integer.parseInt(args[1]))
+      : ForkJoinPool.commonPool();
+    long games = 0;
+    long plies = 0;
+    long failedGames = 0;
+    long start = System.nanoTime();
+    try (var replay = PgnReplay.createWithPool(pool).replay(Path.of(args[0]))) {
+      for (var iterator = replay.iterator(); iterator.hasNext(); ) {
+        var game = iterator.next();
+        games++;
+        plies += game.plies();
+        if (!game.isReplayed() && failedGames++ < MAX_LOGGED_ERRORS) {
+          LOG.warning(game.toString());
+        }
+      }
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    LOG.info(String.format("Replayed %d games with %d plies in %.1f s"
+        + " (%.0f games/s), %d games failed", games, plies, seconds,
+      games / seconds, failedGames));
+    pool.shutdown();
+  }
+}
@@ -0,0 +1,93 @@
+package de.qetz.chess.pgn;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.base.Preconditions;
+
+import java.util.Optional;
+import java.util.Map;
+
+/**
+ * The outcome of replaying one game of a PGN file: its tags, how many
+ * plies were replayed, the position after them and the reason the replay
+ * stopped early, if it did.
+ */
+public final class PgnGame {
+  public static final String RESULT_TAG = "Result";
+
+  static PgnGame createReplayed(
+    long number,
+    Map<String, String> tags,
+    int plies,
+    String fen
+  ) {
+    return new PgnGame(number, ImmutableMap.copyOf(tags), plies, fen, null);
+  }
+
+  static PgnGame createFailed(
+    long number,
+    Map<String, String> tags,
+    int plies,
+    String fen,
+    String error
+  ) {
+    Preconditions.checkNotNull(error);
+    return new PgnGame(number, ImmutableMap.copyOf(tags), plies, fen, error);
+  }
+
+  private final long number;
+  private final ImmutableMap<String, String> tags;
+  private final int plies;
+  private final String fen;
+  private final String error;
+
+  private PgnGame(
+    long number,
+    ImmutableMap<String, String> tags,
+    int plies,
+    String fen,
+    String error
+  ) {
+    this.number = number;
+    this.tags = tags;
+    this.plies = plies;
+    this.fen = fen;
+    this.error = error;
+  }
+
+  // Counts the games of the file from 1
+  public long number() {
+    return number;
+  }
+
+  public Map<String, String> tags() {
+    return tags;
+  }
+
+  public Optional<String> tag(String name) {
+    Preconditions.checkNotNull(name);
+    return Optional.ofNullable(tags.get(name));
+  }
+
+  public int plies() {
+    return plies;
+  }
+
+  // Null if not even the starting position could be set up
+  public String fen() {
+    return fen;
+  }
+
+  public boolean isReplayed() {
+    return error == null;
+  }
+
+  public Optional<String> error() {
+    return Optional.ofNullable(error);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Game %d (%d plies%s)", number, plies,
+      error == null ? "" : ", " + error);
+  }
+}
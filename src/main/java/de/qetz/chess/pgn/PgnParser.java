@@ -0,0 +1,195 @@
+package de.qetz.chess.pgn;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Replays the record of one game: reads the tags, sets up the position of
+ * a FEN tag or the starting position and makes the moves of the movetext
+ * on a bitboard grid. Comments, variations, annotations and move numbers
+ * are skipped, the result ends the movetext.
+ */
+final class PgnParser {
+  private static final String FEN_TAG = "FEN";
+
+  static PgnGame replay(long number, String record) {
+    return new PgnParser(record).replay(number);
+  }
+
+  private final String record;
+  private final Map<String, String> tags = Maps.newLinkedHashMap();
+  private final MoveList moves = MoveList.create();
+  private int index;
+  private int plies;
+  private Grid grid;
+
+  private PgnParser(String record) {
+    this.record = record;
+  }
+
+  private PgnGame replay(long number) {
+    try {
+      parseTags();
+      var factory = DefaultChessGridFactory.newFactory();
+      var fen = tags.get(FEN_TAG);
+      grid = (fen == null ? factory.withDefaultGrid() : factory.withFen(fen))
+        .createBitboardGrid();
+      replayMoves();
+      return PgnGame.createReplayed(number, tags, plies, grid.toFen());
+    } catch (RuntimeException invalidGame) {
+      // A broken game never ends the replay of the others
+      var error = invalidGame.getMessage() != null
+        ? invalidGame.getMessage()
+        : invalidGame.toString();
+      return PgnGame.createFailed(number, tags, plies,
+        grid == null ? null : grid.toFen(), error);
+    }
+  }
+
+  private void parseTags() {
+    skipWhitespace();
+    while (index < record.length() && record.charAt(index) == '[') {
+      index++;
+      int nameStart = index;
+      while (index < record.length() && record.charAt(index) != ' '
+        && record.charAt(index) != '"') {
+        index++;
+      }
+      var name = record.substring(nameStart, index);
+      skipWhitespace();
+      expect('"');
+      var value = new StringBuilder();
+      while (index < record.length() && record.charAt(index) != '"') {
+        if (record.charAt(index) == '\\' && index + 1 < record.length()) {
+          index++;
+        }
+        value.append(record.charAt(index++));
+      }
+      expect('"');
+      skipWhitespace();
+      expect(']');
+      tags.put(name, value.toString());
+      skipWhitespace();
+    }
+  }
+
+  private void expect(char symbol) {
+    if (index >= record.length() || record.charAt(index) != symbol) {
+      throw new IllegalArgumentException(
+        "Expected " + symbol + " at index " + index);
+    }
+    index++;
+  }
+
+  private void skipWhitespace() {
+    while (index < record.length()
+      && Character.isWhitespace(record.charAt(index))) {
+      index++;
+    }
+  }
+
+  private void replayMoves() {
+    while (index < record.length()) {
+      char symbol = record.charAt(index);
+      if (Character.isWhitespace(symbol)) {
+        index++;
+      } else if (symbol == '{') {
+        skipTo('}');
+      } else if (symbol == ';' || symbol == '%') {
+        skipTo('\n');
+      } else if (symbol == '(') {
+        skipVariation();
+      } else if (symbol == '$') {
+        skipToken();
+      } else if (!replayToken()) {
+        return;
+      }
+    }
+  }
+
+  private void skipTo(char end) {
+    int endIndex = record.indexOf(end, index);
+    index = endIndex < 0 ? record.length() : endIndex + 1;
+  }
+
+  // Variations may be nested and contain comments with parentheses
+  private void skipVariation() {
+    int depth = 0;
+    while (index < record.length()) {
+      char symbol = record.charAt(index++);
+      if (symbol == '{') {
+        skipTo('}');
+      } else if (symbol == ';') {
+        skipTo('\n');
+      } else if (symbol == '(') {
+        depth++;
+      } else if (symbol == ')' && --depth == 0) {
+        return;
+      }
+    }
+  }
+
+  private int skipToken() {
+    int start = index;
+    while (index < record.length() && !isTokenEnd(record.charAt(index))) {
+      index++;
+    }
+    return start;
+  }
+
+  private static boolean isTokenEnd(char symbol) {
+    return Character.isWhitespace(symbol) || symbol == '{' || symbol == '('
+      || symbol == ')' || symbol == ';';
+  }
+
+  private static final String[] RESULTS = {"1-0", "0-1", "1/2-1/2", "*"};
+
+  // Returns false at the result, which ends the movetext
+  private boolean replayToken() {
+    int start = skipToken();
+    if (isResult(start)) {
+      return false;
+    }
+    if (!isCastling(start)) {
+      start = skipMoveNumber(start);
+    }
+    if (start < index) {
+      grid.makeMove(
+        SanNotation.resolveMove(grid, moves, record, start, index));
+      plies++;
+    }
+    return true;
+  }
+
+  private boolean isResult(int start) {
+    for (var result : RESULTS) {
+      if (index - start == result.length()
+        && record.startsWith(result, start)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isCastling(int start) {
+    return record.startsWith("0-0", start) || record.startsWith("O-O", start);
+  }
+
+  // A move number like 12. or 12... may stand right before the move, a
+  // number without dots is skipped as well
+  private int skipMoveNumber(int start) {
+    int numberEnd = start;
+    while (numberEnd < index && Character.isDigit(record.charAt(numberEnd))) {
+      numberEnd++;
+    }
+    while (numberEnd < index && record.charAt(numberEnd) == '.') {
+      numberEnd++;
+    }
+    return numberEnd;
+  }
+}
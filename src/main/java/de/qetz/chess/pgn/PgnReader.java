@@ -0,0 +1,145 @@
+package de.qetz.chess.pgn;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.io.Closeable;
+import java.util.Arrays;
+
+/**
+ * Splits a PGN file into the records of its games while reading it
+ * through a buffer of a fixed size, so the file is never held in memory
+ * as a whole. A record starts with the tag line that follows the movetext
+ * of the previous game, brackets within comments do not count.
+ */
+public final class PgnReader implements Closeable {
+  public static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+  // Larger records are no game but a broken file
+  public static final int MAX_RECORD_BYTES = 1024 * 1024;
+
+  public static PgnReader open(Path file) throws IOException {
+    return open(file, DEFAULT_BUFFER_BYTES);
+  }
+
+  public static PgnReader open(Path file, int bufferBytes)
+    throws IOException {
+    Preconditions.checkNotNull(file);
+    Preconditions.checkArgument(bufferBytes > 0);
+    return new PgnReader(FileChannel.open(file, StandardOpenOption.READ),
+      ByteBuffer.allocateDirect(bufferBytes).flip());
+  }
+
+  private static final int INITIAL_RECORD_BYTES = 4 * 1024;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private byte[] record = new byte[INITIAL_RECORD_BYTES];
+  private int recordSize;
+  private boolean lineStart = true;
+  private boolean tagLine;
+  private boolean comment;
+  private boolean lineComment;
+  private boolean content;
+  private boolean movetext;
+
+  private PgnReader(FileChannel channel, ByteBuffer buffer) {
+    this.channel = channel;
+    this.buffer = buffer;
+  }
+
+  /**
+   * The next record with its tags and movetext or empty at the end of the
+   * file.
+   *
+   * @throws IOException if a record exceeds {@link #MAX_RECORD_BYTES}
+   */
+  public Optional<String> nextRecord() throws IOException {
+    while (buffer.hasRemaining() || fillBuffer()) {
+      while (buffer.hasRemaining()) {
+        byte symbol = buffer.get();
+        if (movetext && lineStart && !comment && symbol == '[') {
+          var nextRecord = takeRecord();
+          readSymbol(symbol);
+          return nextRecord;
+        }
+        readSymbol(symbol);
+      }
+    }
+    return takeRecord();
+  }
+
+  private boolean fillBuffer() throws IOException {
+    buffer.clear();
+    int read;
+    do {
+      read = channel.read(buffer);
+    } while (read == 0);
+    buffer.flip();
+    return read > 0;
+  }
+
+  private void readSymbol(byte symbol) throws IOException {
+    appendSymbol(symbol);
+    if (symbol == '\n') {
+      lineStart = true;
+      tagLine = false;
+      lineComment = false;
+      return;
+    }
+    boolean firstSymbol = lineStart;
+    lineStart = false;
+    if (symbol == ' ' || symbol == '\t' || symbol == '\r') {
+      return;
+    }
+    content = true;
+    if (comment) {
+      comment = symbol != '}';
+    } else if (tagLine || lineComment) {
+      return;
+    } else if (firstSymbol && symbol == '[') {
+      tagLine = true;
+    } else if (firstSymbol && symbol == '%') {
+      lineComment = true;
+    } else {
+      movetext = true;
+      comment = symbol == '{';
+      lineComment = symbol == ';';
+    }
+  }
+
+  private void appendSymbol(byte symbol) throws IOException {
+    if (recordSize == record.length) {
+      if (recordSize == MAX_RECORD_BYTES) {
+        throw new IOException("Game record exceeds " + MAX_RECORD_BYTES
+          + " bytes");
+      }
+      record = Arrays.copyOf(record,
+        Math.min(recordSize * 2, MAX_RECORD_BYTES));
+    }
+    record[recordSize++] = symbol;
+  }
+
+  private Optional<String> takeRecord() {
+    var nextRecord = content
+      ? Optional.of(new String(record, 0, recordSize, StandardCharsets.UTF_8))
+      : Optional.<String>empty();
+    recordSize = 0;
+    tagLine = false;
+    comment = false;
+    lineComment = false;
+    content = false;
+    movetext = false;
+    return nextRecord;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
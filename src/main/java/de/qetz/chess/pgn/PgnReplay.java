@@ -0,0 +1,114 @@
+package de.qetz.chess.pgn;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Queues;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.StreamSupport;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.Spliterators;
+import java.util.Spliterator;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Deque;
+
+/**
+ * Replays the games of PGN files on a fork-join pool. The file is read on
+ * the thread that consumes the games, while the pool replays the games
+ * ahead of it. At most a few games per thread of the pool are read ahead,
+ * so the memory stays the same for files of any size.
+ */
+public final class PgnReplay {
+  private static final int GAMES_PER_THREAD = 4;
+
+  public static PgnReplay createDefault() {
+    return createWithPool(ForkJoinPool.commonPool());
+  }
+
+  public static PgnReplay createWithPool(ForkJoinPool pool) {
+    Preconditions.checkNotNull(pool);
+    return new PgnReplay(pool);
+  }
+
+  private final ForkJoinPool pool;
+
+  private PgnReplay(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * The replayed games in the order of the file. The stream reads the file
+   * lazily and has to be closed to close the file.
+   *
+   * @throws UncheckedIOException from the stream if the file can not be
+   *   read
+   */
+  public Stream<PgnGame> replay(Path file) throws IOException {
+    Preconditions.checkNotNull(file);
+    return replay(PgnReader.open(file));
+  }
+
+  Stream<PgnGame> replay(PgnReader reader) {
+    var games = new OrderedGames(reader,
+      pool.getParallelism() * GAMES_PER_THREAD);
+    return StreamSupport.stream(games, false).onClose(games::close);
+  }
+
+  // Hands out the games in order while the pool replays the next ones
+  private final class OrderedGames
+    extends Spliterators.AbstractSpliterator<PgnGame> {
+    private final Deque<ForkJoinTask<PgnGame>> pendingGames =
+      Queues.newArrayDeque();
+    private final PgnReader reader;
+    private final int readAhead;
+    private long readGames;
+    private boolean finished;
+
+    private OrderedGames(PgnReader reader, int readAhead) {
+      super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+      this.reader = reader;
+      this.readAhead = readAhead;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super PgnGame> action) {
+      readAhead();
+      var game = pendingGames.poll();
+      if (game == null) {
+        return false;
+      }
+      action.accept(game.join());
+      return true;
+    }
+
+    private void readAhead() {
+      try {
+        while (!finished && pendingGames.size() < readAhead) {
+          var record = reader.nextRecord();
+          if (record.isEmpty()) {
+            finished = true;
+            return;
+          }
+          long number = ++readGames;
+          var text = record.get();
+          pendingGames.add(pool.submit(() -> PgnParser.replay(number, text)));
+        }
+      } catch (IOException failedRead) {
+        throw new UncheckedIOException(failedRead);
+      }
+    }
+
+    private void close() {
+      pendingGames.forEach(game -> game.cancel(false));
+      pendingGames.clear();
+      try {
+        reader.close();
+      } catch (IOException failedClose) {
+        throw new UncheckedIOException(failedClose);
+      }
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package de.qetz.chess.pgn;
+
+import com.google.common.base.Preconditions;
+
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Resolves moves in standard algebraic notation (SAN) like Nf3, exd5,
+ * e8=Q or O-O against the legal moves of a grid. Check and annotation
+ * suffixes are ignored and castling may be written with zeros.
+ */
+public final class SanNotation {
+  private SanNotation() {}
+
+  public static int resolveMove(Grid grid, MoveList moves, CharSequence san) {
+    Preconditions.checkNotNull(san);
+    return resolveMove(grid, moves, san, 0, san.length());
+  }
+
+  private static final char PROMOTION_SEPARATOR = '=';
+  private static final char FIRST_ROW = 'a';
+  private static final char LAST_ROW = 'h';
+  private static final char FIRST_COLUMN = '1';
+  private static final char LAST_COLUMN = '8';
+  private static final int NO_VALUE = 0;
+
+  /**
+   * The packed move of the notation between start and end, which the
+   * moves are filled with the legal moves of the grid to find.
+   *
+   * @throws IllegalArgumentException if no or more than one legal move
+   *   matches the notation
+   */
+  public static int resolveMove(
+    Grid grid,
+    MoveList moves,
+    CharSequence san,
+    int start,
+    int end
+  ) {
+    Preconditions.checkNotNull(grid);
+    Preconditions.checkNotNull(moves);
+    Preconditions.checkNotNull(san);
+    Preconditions.checkPositionIndexes(start, end, san.length());
+    int notationEnd = end;
+    while (end > start && isSuffix(san.charAt(end - 1))) {
+      end--;
+    }
+    checkSan(end > start, san, start, notationEnd);
+    moves.clear();
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    int castlingRow = resolveCastlingRow(san, start, end);
+    if (castlingRow != NO_VALUE) {
+      return findCastling(moves, castlingRow, san, start, notationEnd);
+    }
+    PieceType promotion = null;
+    if (isPieceSymbol(san.charAt(end - 1))) {
+      promotion = PieceType.ofSymbol(san.charAt(--end));
+      if (end > start && san.charAt(end - 1) == PROMOTION_SEPARATOR) {
+        end--;
+      }
+    }
+    checkSan(end - start >= 2, san, start, notationEnd);
+    int toRow = resolveRow(san.charAt(end - 2));
+    int toColumn = resolveColumn(san.charAt(end - 1));
+    checkSan(toRow != NO_VALUE && toColumn != NO_VALUE, san, start,
+      notationEnd);
+    var type = PieceType.PAWN;
+    int index = start;
+    if (isPieceSymbol(san.charAt(index))) {
+      type = PieceType.ofSymbol(san.charAt(index++));
+    }
+    int fromRow = NO_VALUE;
+    int fromColumn = NO_VALUE;
+    for (; index < end - 2; index++) {
+      char symbol = san.charAt(index);
+      if (resolveRow(symbol) != NO_VALUE) {
+        fromRow = resolveRow(symbol);
+      } else if (resolveColumn(symbol) != NO_VALUE) {
+        fromColumn = resolveColumn(symbol);
+      } else {
+        checkSan(isCaptureSymbol(symbol), san, start, notationEnd);
+      }
+    }
+    long pieces = grid.pieceBoard(grid.playingTeam(), type);
+    int to = Bitboards.square(toColumn, toRow);
+    int found = PackedMove.NONE;
+    for (int move = 0; move < moves.size(); move++) {
+      int packedMove = moves.get(move);
+      int from = PackedMove.from(packedMove);
+      if (PackedMove.to(packedMove) != to
+        || PackedMove.hasFlag(packedMove, PackedMove.CASTLING)
+        || !Bitboards.contains(pieces, from)
+        || PackedMove.promotion(packedMove) != promotion
+        || fromRow != NO_VALUE && Bitboards.row(from) != fromRow
+        || fromColumn != NO_VALUE && Bitboards.column(from) != fromColumn) {
+        continue;
+      }
+      checkSan(found == PackedMove.NONE, san, start, notationEnd);
+      found = packedMove;
+    }
+    checkSan(found != PackedMove.NONE, san, start, notationEnd);
+    return found;
+  }
+
+  private static boolean isSuffix(char symbol) {
+    return symbol == '+' || symbol == '#' || symbol == '!' || symbol == '?';
+  }
+
+  private static boolean isCaptureSymbol(char symbol) {
+    return symbol == 'x' || symbol == ':' || symbol == '-';
+  }
+
+  // Pieces are written in upper case, so a lower case b is a row
+  private static boolean isPieceSymbol(char symbol) {
+    return symbol == 'K' || symbol == 'Q' || symbol == 'R' || symbol == 'B'
+      || symbol == 'N';
+  }
+
+  private static int resolveRow(char symbol) {
+    return symbol >= FIRST_ROW && symbol <= LAST_ROW
+      ? symbol - FIRST_ROW + 1
+      : NO_VALUE;
+  }
+
+  private static int resolveColumn(char symbol) {
+    return symbol >= FIRST_COLUMN && symbol <= LAST_COLUMN
+      ? symbol - FIRST_COLUMN + 1
+      : NO_VALUE;
+  }
+
+  private static final int RIGHT_CASTLING_ROW = 7;
+  private static final int LEFT_CASTLING_ROW = 3;
+  private static final int RIGHT_CASTLING_LENGTH = 3;
+  private static final int LEFT_CASTLING_LENGTH = 5;
+
+  // The row the king castles to, O-O or O-O-O with letters or zeros
+  private static int resolveCastlingRow(CharSequence san, int start, int end) {
+    int length = end - start;
+    if (length != RIGHT_CASTLING_LENGTH && length != LEFT_CASTLING_LENGTH) {
+      return NO_VALUE;
+    }
+    char castle = san.charAt(start);
+    if (castle != 'O' && castle != '0') {
+      return NO_VALUE;
+    }
+    for (int index = start; index < end; index++) {
+      char expected = (index - start) % 2 == 0 ? castle : '-';
+      if (san.charAt(index) != expected) {
+        return NO_VALUE;
+      }
+    }
+    return length == RIGHT_CASTLING_LENGTH
+      ? RIGHT_CASTLING_ROW
+      : LEFT_CASTLING_ROW;
+  }
+
+  private static int findCastling(
+    MoveList moves,
+    int row,
+    CharSequence san,
+    int start,
+    int end
+  ) {
+    for (int move = 0; move < moves.size(); move++) {
+      int packedMove = moves.get(move);
+      if (PackedMove.hasFlag(packedMove, PackedMove.CASTLING)
+        && Bitboards.row(PackedMove.to(packedMove)) == row) {
+        return packedMove;
+      }
+    }
+    checkSan(false, san, start, end);
+    return PackedMove.NONE;
+  }
+
+  // Only builds the message of invalid notations
+  private static void checkSan(
+    boolean valid,
+    CharSequence san,
+    int start,
+    int end
+  ) {
+    if (!valid) {
+      throw new IllegalArgumentException(
+        "No single legal move " + san.subSequence(start, end));
+    }
+  }
+}
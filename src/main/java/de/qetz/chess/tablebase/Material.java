@@ -0,0 +1,444 @@
+package de.qetz.chess.tablebase;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import de.qetz.chess.game.bitboard.AttackTables;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+/**
+ * The pieces of an ending, written as the pieces of white, a 'v' and the
+ * pieces of black, e.g. KQvK or KBNvK. Every piece has a slot, the kings
+ * first and then the other pieces of white and black from the queen down
+ * to the pawns.
+ *
+ * <p>A position of the ending is indexed by the playing team, the pair of
+ * the kings and six bits for the field of every other slot. The grid is
+ * turned so the white king stands on the left half, and without pawns
+ * also on the lower half and below the diagonal from a1 to h8, which
+ * leaves 462 pairs of the kings without pawns and 1806 with pawns.
+ */
+public final class Material {
+  // Six pieces would not fit an int index even with the kings turned
+  public static final int MAX_PIECES = 5;
+
+  private static final char TEAM_SEPARATOR = 'v';
+  private static final int TEAM_BITS = 1;
+  private static final int TEAM_MASK = (1 << TEAM_BITS) - 1;
+  private static final int SQUARE_BITS = 6;
+  private static final int KINGS = 2;
+  private static final int COUNT_BITS = 4;
+  private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+  private static final Team[] TEAMS = Team.values();
+  private static final PieceType[] TYPES = PieceType.values();
+  // Strongest piece first, as the pieces are written
+  private static final PieceType[] ORDER = new PieceType[]{
+    PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT,
+    PieceType.PAWN
+  };
+
+  public static Material of(String name) {
+    Preconditions.checkNotNull(name);
+    int separator = name.indexOf(TEAM_SEPARATOR);
+    Preconditions.checkArgument(separator > 0,
+      "Material %s has no separator", name);
+    int[] counts = new int[Bitboards.PIECES];
+    countPieces(name.substring(0, separator), Team.WHITE, counts);
+    countPieces(name.substring(separator + 1), Team.BLACK, counts);
+    int pieces = 0;
+    for (int count : counts) {
+      pieces += count;
+    }
+    Preconditions.checkArgument(pieces <= MAX_PIECES,
+      "Material %s has %s pieces, tables support at most %s", name, pieces,
+      MAX_PIECES);
+    return ofCounts(counts);
+  }
+
+  private static void countPieces(String pieces, Team team, int[] counts) {
+    for (char symbol : pieces.toCharArray()) {
+      counts[Bitboards.pieceIndex(team, PieceType.ofSymbol(symbol))]++;
+    }
+  }
+
+  private static Material ofCounts(int[] counts) {
+    for (var team : Team.values()) {
+      Preconditions.checkArgument(
+        counts[Bitboards.pieceIndex(team, PieceType.KING)] == 1,
+        "Every team needs exactly one king");
+    }
+    List<Team> teams = Lists.newArrayList(Team.WHITE, Team.BLACK);
+    List<PieceType> types = Lists.newArrayList(PieceType.KING,
+      PieceType.KING);
+    long key = 0;
+    for (var team : Team.values()) {
+      for (var type : ORDER) {
+        int count = counts[Bitboards.pieceIndex(team, type)];
+        Preconditions.checkArgument(count <= COUNT_MASK);
+        key = key << COUNT_BITS | count;
+        for (int index = 0; index < count; index++) {
+          teams.add(team);
+          types.add(type);
+        }
+      }
+    }
+    return new Material(teams.toArray(new Team[0]),
+      types.toArray(new PieceType[0]), key);
+  }
+
+  private final Team[] teams;
+  private final PieceType[] types;
+  private final long key;
+  private final KingPairs kingPairs;
+
+  private Material(Team[] teams, PieceType[] types, long key) {
+    this.teams = teams;
+    this.types = types;
+    this.key = key;
+    this.kingPairs = Arrays.asList(types).contains(PieceType.PAWN)
+      ? KingPairs.WITH_PAWNS
+      : KingPairs.WITHOUT_PAWNS;
+  }
+
+  public int pieces() {
+    return types.length;
+  }
+
+  public Team team(int slot) {
+    return teams[slot];
+  }
+
+  public PieceType type(int slot) {
+    return types[slot];
+  }
+
+  /**
+   * Identifies the material like the name, but is calculated from the
+   * pieces of a grid without allocating, see {@link #keyOf(Grid)}.
+   */
+  public long key() {
+    return key;
+  }
+
+  public static long keyOf(Grid grid) {
+    long key = 0;
+    for (var team : TEAMS) {
+      for (var type : ORDER) {
+        key = key << COUNT_BITS
+          | Bitboards.count(grid.pieceBoard(team, type));
+      }
+    }
+    return key;
+  }
+
+  public static int countPieces(Grid grid) {
+    int pieces = 0;
+    for (var team : TEAMS) {
+      for (var type : TYPES) {
+        pieces += Bitboards.count(grid.pieceBoard(team, type));
+      }
+    }
+    return pieces;
+  }
+
+  public int size() {
+    return placements() << TEAM_BITS;
+  }
+
+  // The fields of all slots without the playing team
+  public int placements() {
+    return kingPairs.size() << SQUARE_BITS * (pieces() - KINGS);
+  }
+
+  public static int index(Team playingTeam, int placement) {
+    return placement << TEAM_BITS | playingTeam.ordinal();
+  }
+
+  public static Team playingTeam(int index) {
+    return TEAMS[index & TEAM_MASK];
+  }
+
+  public static int placement(int index) {
+    return index >>> TEAM_BITS;
+  }
+
+  public int index(Team playingTeam, int[] squares) {
+    int symmetry = symmetry(squares);
+    int placement = placeKings(squares[0], squares[1], symmetry);
+    for (int slot = KINGS; slot < pieces(); slot++) {
+      placement += placePiece(slot, squares[slot], symmetry);
+    }
+    return index(playingTeam, placement);
+  }
+
+  // The fields of the slots of a placement, the kings already turned
+  public void squares(int placement, int[] squares) {
+    int pair = placement % kingPairs.size();
+    squares[0] = kingPairs.whiteKing(pair);
+    squares[1] = kingPairs.blackKing(pair);
+    int pieces = placement / kingPairs.size();
+    for (int slot = KINGS; slot < pieces(); slot++) {
+      squares[slot] = pieces & Bitboards.SQUARES - 1;
+      pieces >>>= SQUARE_BITS;
+    }
+  }
+
+  private static final int ROW_MIRROR = 0b000111;
+  private static final int COLUMN_MIRROR = 0b111000;
+  private static final int TRANSPOSE = 0b1000000;
+  private static final int COLUMN_SHIFT = 3;
+  private static final int HALF = 4;
+
+  /**
+   * How the grid is turned so the kings are in the indexed part of it,
+   * see {@link #transform(int, int)}. Pawns only allow to swap the rows,
+   * as they walk along the columns.
+   */
+  public int symmetry(int whiteKing, int blackKing) {
+    return symmetry(whiteKing, blackKing, kingPairs == KingPairs.WITH_PAWNS);
+  }
+
+  private static int symmetry(int whiteKing, int blackKing, boolean pawns) {
+    int symmetry = Bitboards.row(whiteKing) > HALF ? ROW_MIRROR : 0;
+    if (pawns) {
+      return symmetry;
+    }
+    if (Bitboards.column(whiteKing) > HALF) {
+      symmetry |= COLUMN_MIRROR;
+    }
+    int king = whiteKing ^ symmetry;
+    int enemyKing = blackKing ^ symmetry;
+    if (Bitboards.column(king) > Bitboards.row(king)
+      || Bitboards.column(king) == Bitboards.row(king)
+      && Bitboards.column(enemyKing) > Bitboards.row(enemyKing)) {
+      symmetry |= TRANSPOSE;
+    }
+    return symmetry;
+  }
+
+  /**
+   * The symmetry of the kings, or if both stand on the diagonal from a1 to
+   * h8 after turning, of the first other slot that does not. So every
+   * turned copy of a position has the same index.
+   */
+  public int symmetry(int[] squares) {
+    int symmetry = symmetry(squares[0], squares[1]);
+    if (!isOnDiagonal(squares[0], squares[1], symmetry)) {
+      return symmetry;
+    }
+    for (int slot = KINGS; slot < pieces(); slot++) {
+      int decided = decideDiagonal(squares[slot], symmetry);
+      if (decided != NO_SYMMETRY) {
+        return decided;
+      }
+    }
+    return symmetry;
+  }
+
+  public boolean isOnDiagonal(int whiteKing, int blackKing, int symmetry) {
+    return kingPairs == KingPairs.WITHOUT_PAWNS
+      && isOnDiagonal(transform(whiteKing, symmetry))
+      && isOnDiagonal(transform(blackKing, symmetry));
+  }
+
+  private static boolean isOnDiagonal(int square) {
+    return Bitboards.column(square) == Bitboards.row(square);
+  }
+
+  public static final int NO_SYMMETRY = -1;
+
+  // Transposes if the piece would stand above the diagonal, undecided on it
+  public static int decideDiagonal(int square, int symmetry) {
+    int turned = transform(square, symmetry);
+    if (isOnDiagonal(turned)) {
+      return NO_SYMMETRY;
+    }
+    return Bitboards.column(turned) > Bitboards.row(turned)
+      ? symmetry | TRANSPOSE
+      : symmetry;
+  }
+
+  // Mirrors the field and then swaps its row and column if transposed
+  public static int transform(int square, int symmetry) {
+    int mirrored = square ^ symmetry & (ROW_MIRROR | COLUMN_MIRROR);
+    return (symmetry & TRANSPOSE) == 0
+      ? mirrored
+      : (mirrored & ROW_MIRROR) << COLUMN_SHIFT | mirrored >>> COLUMN_SHIFT;
+  }
+
+  public int placeKings(int whiteKing, int blackKing, int symmetry) {
+    return kingPairs.pair(transform(whiteKing, symmetry),
+      transform(blackKing, symmetry));
+  }
+
+  // The part of the placement a piece other than the kings adds
+  public int placePiece(int slot, int square, int symmetry) {
+    return transform(square, symmetry) * kingPairs.size()
+      << SQUARE_BITS * (slot - KINGS);
+  }
+
+  // The same ending with the teams swapped
+  public Material mirror() {
+    var name = name();
+    int separator = name.indexOf(TEAM_SEPARATOR);
+    return of(name.substring(separator + 1) + TEAM_SEPARATOR
+      + name.substring(0, separator));
+  }
+
+  /**
+   * The endings one capture or promotion away, which have to be known
+   * before this one can be generated. Endings of only the kings are
+   * always drawn and not listed.
+   */
+  public Collection<Material> listSuccessors() {
+    Set<Material> successors = Sets.newLinkedHashSet();
+    for (int slot = 2; slot < pieces(); slot++) {
+      var reduced = withoutSlot(slot);
+      successors.add(reduced);
+      if (types[slot] == PieceType.PAWN) {
+        for (var promotion : ORDER) {
+          if (promotion != PieceType.PAWN) {
+            var promoted = withType(slot, promotion);
+            successors.add(promoted);
+            for (int captured = 2; captured < pieces(); captured++) {
+              if (teams[captured] != teams[slot]) {
+                successors.add(withType(slot, promotion)
+                  .withoutPiece(teams[captured], types[captured]));
+              }
+            }
+          }
+        }
+      }
+    }
+    successors.removeIf(material -> material.pieces() == 2);
+    return successors;
+  }
+
+  private Material withoutSlot(int slot) {
+    return withoutPiece(teams[slot], types[slot]);
+  }
+
+  private Material withoutPiece(Team team, PieceType type) {
+    int[] counts = counts();
+    counts[Bitboards.pieceIndex(team, type)]--;
+    return ofCounts(counts);
+  }
+
+  private Material withType(int slot, PieceType type) {
+    int[] counts = counts();
+    counts[Bitboards.pieceIndex(teams[slot], types[slot])]--;
+    counts[Bitboards.pieceIndex(teams[slot], type)]++;
+    return ofCounts(counts);
+  }
+
+  private int[] counts() {
+    int[] counts = new int[Bitboards.PIECES];
+    for (int slot = 0; slot < pieces(); slot++) {
+      counts[Bitboards.pieceIndex(teams[slot], types[slot])]++;
+    }
+    return counts;
+  }
+
+  public String name() {
+    var name = new StringBuilder();
+    for (var team : Team.values()) {
+      if (team != Team.WHITE) {
+        name.append(TEAM_SEPARATOR);
+      }
+      for (int slot = 0; slot < pieces(); slot++) {
+        if (teams[slot] == team) {
+          name.append(Character.toUpperCase(types[slot].symbol()));
+        }
+      }
+    }
+    return name.toString();
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof Material)) {
+      return false;
+    }
+    return key == ((Material) object).key;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key);
+  }
+
+  @Override
+  public String toString() {
+    return name();
+  }
+
+  /**
+   * The pairs of king fields that are left after turning the grid, the
+   * kings on different fields that do not touch.
+   */
+  private static final class KingPairs {
+    private static final KingPairs WITHOUT_PAWNS = create(false);
+    private static final KingPairs WITH_PAWNS = create(true);
+    private static final int NO_PAIR = -1;
+
+    private static KingPairs create(boolean pawns) {
+      int[] pairs = new int[Bitboards.SQUARES * Bitboards.SQUARES];
+      int[] kings = new int[pairs.length];
+      int size = 0;
+      for (int whiteKing = 0; whiteKing < Bitboards.SQUARES; whiteKing++) {
+        long touched = AttackTables.kingAttacks(whiteKing)
+          | Bitboards.bit(whiteKing);
+        for (int blackKing = 0; blackKing < Bitboards.SQUARES; blackKing++) {
+          int kingsIndex = whiteKing * Bitboards.SQUARES + blackKing;
+          if (Bitboards.contains(touched, blackKing)
+            || symmetry(whiteKing, blackKing, pawns) != 0) {
+            pairs[kingsIndex] = NO_PAIR;
+          } else {
+            pairs[kingsIndex] = size;
+            kings[size++] = kingsIndex;
+          }
+        }
+      }
+      return new KingPairs(pairs, Arrays.copyOf(kings, size));
+    }
+
+    private final int[] pairs;
+    private final int[] kings;
+
+    private KingPairs(int[] pairs, int[] kings) {
+      this.pairs = pairs;
+      this.kings = kings;
+    }
+
+    private int size() {
+      return kings.length;
+    }
+
+    private int pair(int whiteKing, int blackKing) {
+      int pair = pairs[whiteKing * Bitboards.SQUARES + blackKing];
+      Preconditions.checkArgument(pair != NO_PAIR);
+      return pair;
+    }
+
+    private int whiteKing(int pair) {
+      return kings[pair] / Bitboards.SQUARES;
+    }
+
+    private int blackKing(int pair) {
+      return kings[pair] % Bitboards.SQUARES;
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package de.qetz.chess.tablebase;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import de.qetz.chess.game.bitboard.CastlingRights;
+import de.qetz.chess.game.bitboard.AttackTables;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Perfect results of endings, read from the tables of the
+ * {@link TablebaseGenerator}. Every table file is mapped into memory
+ * instead of read, so all processes on a host share the same pages of the
+ * page cache and only the probed pages are ever loaded.
+ *
+ * <p>A table holds one byte per position: 0 for a draw, otherwise the
+ * plies to mate plus one, where an even number of plies means the playing
+ * team is mated and an odd one that it mates. A table of one team is also
+ * probed for the ending with the teams swapped, with the grid mirrored.
+ * Positions with castling rights or a possible en passant capture are not
+ * in the tables.
+ */
+public final class Tablebase {
+  public static final int UNKNOWN = -1;
+  public static final int DRAW = 0;
+
+  public static final String FILE_EXTENSION = ".qtb";
+  static final int MAGIC = 0x51544232;
+  static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+  private static final int MAX_TABLES = 256;
+  private static final int KINGS = 2;
+  private static final int MIRROR_COLUMNS = 0b111000;
+
+  public static Tablebase createEmpty() {
+    return new Tablebase();
+  }
+
+  /**
+   * Maps all table files of a directory. The files stay mapped as long as
+   * the tablebase is reachable.
+   */
+  public static Tablebase openDirectory(Path directory) throws IOException {
+    Preconditions.checkNotNull(directory);
+    var tablebase = new Tablebase();
+    try (DirectoryStream<Path> files =
+      Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+      for (var file : files) {
+        tablebase.addTable(resolveMaterial(file), mapFile(file));
+      }
+    }
+    return tablebase;
+  }
+
+  private static Material resolveMaterial(Path file) {
+    var name = file.getFileName().toString();
+    return Material.of(
+      name.substring(0, name.length() - FILE_EXTENSION.length()));
+  }
+
+  static MappedByteBuffer mapFile(Path file) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var table = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+        channel.size());
+      if (table.capacity() < HEADER_BYTES || table.getInt(0) != MAGIC
+        || table.getInt(Integer.BYTES) != table.capacity() - HEADER_BYTES) {
+        throw new IOException("No tablebase file: " + file);
+      }
+      return table;
+    }
+  }
+
+  private long[] keys = new long[0];
+  private Material[] materials = new Material[0];
+  private ByteBuffer[] tables = new ByteBuffer[0];
+  private boolean[] mirrored = new boolean[0];
+  private int maxPieces = KINGS;
+
+  private Tablebase() {}
+
+  /**
+   * Adds a table, which replaces a mirrored table of the same ending.
+   */
+  void addTable(Material material, ByteBuffer table) {
+    Preconditions.checkNotNull(material);
+    Preconditions.checkNotNull(table);
+    Preconditions.checkArgument(
+      table.capacity() == HEADER_BYTES + material.size());
+    putTable(material.key(), material, table, false);
+    var mirror = material.mirror();
+    int mirrorIndex = findTable(mirror.key());
+    if (mirrorIndex == UNKNOWN || mirrored[mirrorIndex]) {
+      putTable(mirror.key(), material, table, true);
+    }
+    maxPieces = Math.max(maxPieces, material.pieces());
+  }
+
+  private void putTable(
+    long key,
+    Material material,
+    ByteBuffer table,
+    boolean mirror
+  ) {
+    int index = findTable(key);
+    if (index == UNKNOWN) {
+      Preconditions.checkState(keys.length < MAX_TABLES);
+      index = keys.length;
+      keys = Arrays.copyOf(keys, index + 1);
+      materials = Arrays.copyOf(materials, index + 1);
+      tables = Arrays.copyOf(tables, index + 1);
+      mirrored = Arrays.copyOf(mirrored, index + 1);
+    }
+    keys[index] = key;
+    materials[index] = material;
+    tables[index] = table;
+    mirrored[index] = mirror;
+  }
+
+  private int findTable(long key) {
+    for (int index = 0; index < keys.length; index++) {
+      if (keys[index] == key) {
+        return index;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  // Also true if only the table of the swapped teams is known
+  public boolean contains(Material material) {
+    Preconditions.checkNotNull(material);
+    return material.pieces() == KINGS || findTable(material.key()) != UNKNOWN;
+  }
+
+  public int maxPieces() {
+    return maxPieces;
+  }
+
+  /**
+   * The result of the grid for the playing team or {@link #UNKNOWN} if
+   * the ending is not in the tablebase. Probing does not allocate.
+   */
+  public int probe(Grid grid) {
+    Preconditions.checkNotNull(grid);
+    if (keys.length == 0 || grid.castlingRights() != CastlingRights.NONE
+      || isEnPassantPossible(grid)) {
+      return UNKNOWN;
+    }
+    int pieces = Material.countPieces(grid);
+    if (pieces == KINGS) {
+      return DRAW;
+    }
+    if (pieces > maxPieces) {
+      return UNKNOWN;
+    }
+    int table = findTable(Material.keyOf(grid));
+    if (table == UNKNOWN) {
+      return UNKNOWN;
+    }
+    return Byte.toUnsignedInt(
+      tables[table].get(HEADER_BYTES + resolveIndex(grid, table)));
+  }
+
+  private boolean isEnPassantPossible(Grid grid) {
+    int square = grid.enPassantSquare();
+    if (square == Bitboards.NO_SQUARE) {
+      return false;
+    }
+    var team = grid.playingTeam();
+    return (AttackTables.pawnAttacks(enemyOf(team), square)
+      & grid.pieceBoard(team, PieceType.PAWN)) != Bitboards.EMPTY;
+  }
+
+  private int resolveIndex(Grid grid, int table) {
+    var material = materials[table];
+    boolean mirror = mirrored[table];
+    int flip = mirror ? MIRROR_COLUMNS : 0;
+    var white = mirror ? Team.BLACK : Team.WHITE;
+    int whiteKing = Bitboards.firstSquare(
+      grid.pieceBoard(white, PieceType.KING)) ^ flip;
+    int blackKing = Bitboards.firstSquare(
+      grid.pieceBoard(enemyOf(white), PieceType.KING)) ^ flip;
+    int symmetry = material.symmetry(whiteKing, blackKing);
+    if (material.isOnDiagonal(whiteKing, blackKing, symmetry)) {
+      symmetry = resolveDiagonalSymmetry(grid, table, symmetry);
+    }
+    int placement = material.placeKings(whiteKing, blackKing, symmetry);
+    int slot = KINGS;
+    while (slot < material.pieces()) {
+      var team = mirror ? enemyOf(material.team(slot)) : material.team(slot);
+      for (long board = grid.pieceBoard(team, material.type(slot));
+        board != Bitboards.EMPTY;
+        board = Bitboards.withoutFirstSquare(board)) {
+        placement += material.placePiece(slot++,
+          Bitboards.firstSquare(board) ^ flip, symmetry);
+      }
+    }
+    var playingTeam = grid.playingTeam();
+    return Material.index(mirror ? enemyOf(playingTeam) : playingTeam,
+      placement);
+  }
+
+  // The first piece off the diagonal decides, like Material#symmetry
+  private int resolveDiagonalSymmetry(Grid grid, int table, int symmetry) {
+    var material = materials[table];
+    boolean mirror = mirrored[table];
+    int flip = mirror ? MIRROR_COLUMNS : 0;
+    int slot = KINGS;
+    while (slot < material.pieces()) {
+      var team = mirror ? enemyOf(material.team(slot)) : material.team(slot);
+      for (long board = grid.pieceBoard(team, material.type(slot));
+        board != Bitboards.EMPTY;
+        board = Bitboards.withoutFirstSquare(board), slot++) {
+        int decided = Material.decideDiagonal(
+          Bitboards.firstSquare(board) ^ flip, symmetry);
+        if (decided != Material.NO_SYMMETRY) {
+          return decided;
+        }
+      }
+    }
+    return symmetry;
+  }
+
+  private static Team enemyOf(Team team) {
+    return team == Team.WHITE ? Team.BLACK : Team.WHITE;
+  }
+
+  public static boolean isWin(int result) {
+    return result > DRAW && plies(result) % 2 == 1;
+  }
+
+  public static boolean isLoss(int result) {
+    return result > DRAW && plies(result) % 2 == 0;
+  }
+
+  public static int plies(int result) {
+    Preconditions.checkArgument(result > DRAW);
+    return result - 1;
+  }
+
+  static int result(int plies) {
+    return plies + 1;
+  }
+}
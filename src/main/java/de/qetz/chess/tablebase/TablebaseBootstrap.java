@@ -0,0 +1,41 @@
+package de.qetz.chess.tablebase;
+
+import com.google.common.collect.Lists;
+
+import java.util.logging.Logger;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Generates tables from the command line: the directory of the tables
+ * and the endings, e.g. KQvK KRvK KPvK KBNvK. Tables that are already in
+ * the directory are kept. Endings of more than {@link Material#MAX_PIECES}
+ * pieces are rejected before anything is generated.
+ */
+public final class TablebaseBootstrap {
+  private static final Logger LOG =
+    Logger.getLogger(TablebaseBootstrap.class.getSimpleName());
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      LOG.severe("Usage: <directory> <material>...");
+      return;
+    }
+    List<Material> materials = Lists.newArrayList();
+    try {
+      for (int index = 1; index < args.length; index++) {
+        materials.add(Material.of(args[index]));
+      }
+    } catch (IllegalArgumentException invalidMaterial) {
+      LOG.severe(invalidMaterial.getMessage());
+      return;
+    }
+    var directory = Files.createDirectories(Path.of(args[0]));
+    var generator = TablebaseGenerator.createFor(directory);
+    for (var material : materials) {
+      generator.generate(material);
+    }
+  }
+}
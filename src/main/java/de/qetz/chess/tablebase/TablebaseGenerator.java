@@ -0,0 +1,392 @@
+package de.qetz.chess.tablebase;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.util.logging.Logger;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.piece.concrete.Pieces;
+import de.qetz.chess.game.bitboard.AttackTables;
+import de.qetz.chess.game.bitboard.MagicAttacks;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+/**
+ * Generates the tables of endings by retrograde analysis and writes them
+ * to a directory, where they are probed by the {@link Tablebase}.
+ *
+ * <p>First every position of an ending is set up on a grid, whose moves
+ * decide the mates and stalemates, count the moves of the position and
+ * look up captures and promotions in the tables of the smaller endings.
+ * Then the results spread backwards ply by ply: every position that can
+ * move into a mated position mates one ply later, and a position whose
+ * moves all lead into positions where the other team mates is mated one
+ * ply after the longest of them. Positions that are never reached that
+ * way are drawn.
+ *
+ * <p>Positions that are the same after turning the grid share an index,
+ * see {@link Material}, so a position counts the different indices its
+ * moves lead to instead of the moves, and a result spreads only once to
+ * every index before it.
+ *
+ * <p>Every grid is set up without castling rights and en passant field.
+ */
+public final class TablebaseGenerator {
+  private static final Logger LOG =
+    Logger.getLogger(TablebaseGenerator.class.getSimpleName());
+
+  public static TablebaseGenerator createFor(Path directory)
+    throws IOException {
+    Preconditions.checkNotNull(directory);
+    return new TablebaseGenerator(directory,
+      Tablebase.openDirectory(directory));
+  }
+
+  private final Path directory;
+  private final Tablebase tablebase;
+  private final MoveList moves = MoveList.create();
+
+  private TablebaseGenerator(Path directory, Tablebase tablebase) {
+    this.directory = directory;
+    this.tablebase = tablebase;
+  }
+
+  public Tablebase tablebase() {
+    return tablebase;
+  }
+
+  /**
+   * Generates the table of an ending and of all smaller endings it needs,
+   * unless they are already in the directory.
+   */
+  public void generate(Material material) throws IOException {
+    Preconditions.checkNotNull(material);
+    if (tablebase.contains(material)) {
+      return;
+    }
+    for (var successor : material.listSuccessors()) {
+      generate(successor);
+    }
+    long start = System.nanoTime();
+    var table = new Generation(material).generate();
+    var file = directory.resolve(material.name() + Tablebase.FILE_EXTENSION);
+    writeFile(file, table);
+    tablebase.addTable(material, Tablebase.mapFile(file));
+    LOG.info(String.format("Generated %s in %d ms", material,
+      (System.nanoTime() - start) / 1_000_000));
+  }
+
+  private static void writeFile(Path file, byte[] table) throws IOException {
+    var header = ByteBuffer.allocate(Tablebase.HEADER_BYTES)
+      .putInt(Tablebase.MAGIC)
+      .putInt(table.length)
+      .flip();
+    try (var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+      StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      var content = ByteBuffer.wrap(table);
+      while (header.hasRemaining() || content.hasRemaining()) {
+        channel.write(new ByteBuffer[]{header, content});
+      }
+    }
+  }
+
+  private static final int NO_RESULT = 0;
+  private static final int KINGS = 2;
+  private static final int COLUMN_SQUARES = 8;
+  private static final int MAX_RESULT = 0xFF;
+  private static final int MAX_INDICES = 256;
+
+  /**
+   * The state of one ending while it is generated. All arrays are indexed
+   * like the table and hold unsigned bytes.
+   */
+  private final class Generation {
+    private final Material material;
+    private final int[] squares;
+    private final byte[] results;
+    // Moves that do not lead into a position where the other team mates
+    private final byte[] openMoves;
+    // The result of the longest move into a position the other team wins
+    private final byte[] longestLosses;
+    // The result of the shortest capture or promotion that wins
+    private final byte[] captureWins;
+    private final long[] legal;
+    // The different indices one position leads to or is reached from
+    private final int[] indices = new int[MAX_INDICES];
+    private int nextIndices;
+    private int maxResult;
+
+    private Generation(Material material) {
+      this.material = material;
+      this.squares = new int[material.pieces()];
+      this.results = new byte[material.size()];
+      this.openMoves = new byte[material.size()];
+      this.longestLosses = new byte[material.size()];
+      this.captureWins = new byte[material.size()];
+      this.legal = new long[material.size() / Long.SIZE + 1];
+    }
+
+    private byte[] generate() {
+      int placements = material.placements();
+      for (int placement = 0; placement < placements; placement++) {
+        analyzePlacement(placement);
+      }
+      for (int result = Tablebase.result(0); result <= maxResult; result++) {
+        for (int index = 0; index < results.length; index++) {
+          if (results[index] == NO_RESULT
+            && Byte.toUnsignedInt(captureWins[index]) == result) {
+            results[index] = (byte) result;
+          }
+        }
+        for (int index = 0; index < results.length; index++) {
+          if (Byte.toUnsignedInt(results[index]) == result) {
+            spreadResult(index, result);
+          }
+        }
+      }
+      return results;
+    }
+
+    private void analyzePlacement(int placement) {
+      material.squares(placement, squares);
+      // Turned copies of other placements are never looked up
+      if (material.symmetry(squares) != 0) {
+        return;
+      }
+      long occupied = Bitboards.EMPTY;
+      for (int slot = 0; slot < squares.length; slot++) {
+        long bit = Bitboards.bit(squares[slot]);
+        if ((occupied & bit) != Bitboards.EMPTY
+          || isPawnOnLastColumn(slot)) {
+          return;
+        }
+        occupied |= bit;
+      }
+      boolean whitePlaying = isLegal(Team.WHITE, occupied);
+      boolean blackPlaying = isLegal(Team.BLACK, occupied);
+      if (!whitePlaying && !blackPlaying) {
+        return;
+      }
+      Grid grid = createGrid();
+      if (whitePlaying) {
+        analyzePosition(grid, material.index(Team.WHITE, squares));
+      }
+      // White is not in check, so black may play on the same grid
+      if (blackPlaying) {
+        grid.makeNullMove();
+        analyzePosition(grid, material.index(Team.BLACK, squares));
+        grid.unmakeMove();
+      }
+    }
+
+    private boolean isPawnOnLastColumn(int slot) {
+      int column = Bitboards.column(squares[slot]);
+      return material.type(slot) == PieceType.PAWN
+        && (column == 1 || column == 8);
+    }
+
+    // The team that is not playing must not be in check
+    private boolean isLegal(Team playingTeam, long occupied) {
+      int enemyKing = squares[playingTeam == Team.WHITE ? 1 : 0];
+      for (int slot = 0; slot < squares.length; slot++) {
+        if (material.team(slot) == playingTeam && Bitboards.contains(
+          calculateAttacks(slot, squares[slot], occupied), enemyKing)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private long calculateAttacks(int slot, int square, long occupied) {
+      return switch (material.type(slot)) {
+        case PAWN -> AttackTables.pawnAttacks(material.team(slot), square);
+        case KNIGHT -> AttackTables.knightAttacks(square);
+        case BISHOP -> MagicAttacks.bishopAttacks(square, occupied);
+        case ROOK -> MagicAttacks.rookAttacks(square, occupied);
+        case QUEEN -> MagicAttacks.queenAttacks(square, occupied);
+        case KING -> AttackTables.kingAttacks(square);
+      };
+    }
+
+    // Pieces that have moved once, so neither king may castle
+    private Grid createGrid() {
+      var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+      for (int slot = 0; slot < squares.length; slot++) {
+        var position = Bitboards.position(squares[slot]);
+        var piece = Pieces.createPiece(material.type(slot), position,
+          material.team(slot));
+        piece.undoMove(position, 1);
+        factory.updatePiece(position, piece);
+      }
+      return factory.createBitboardGrid();
+    }
+
+    private void analyzePosition(Grid grid, int index) {
+      legal[index / Long.SIZE] |= 1L << index;
+      moves.clear();
+      grid.listAllPossibleMovesForCurrentTeam(moves);
+      if (moves.isEmpty()) {
+        if (grid.isInCheck()) {
+          updateResult(index, Tablebase.result(0));
+        }
+        return;
+      }
+      nextIndices = 0;
+      int open = 0;
+      int longestLoss = NO_RESULT;
+      int captureWin = NO_RESULT;
+      for (int move = 0; move < moves.size(); move++) {
+        int packedMove = moves.get(move);
+        if (!PackedMove.isCapture(packedMove)
+          && !PackedMove.isPromotion(packedMove)) {
+          open += addNext(packedMove, index);
+          continue;
+        }
+        grid.makeMove(packedMove);
+        int result = Material.countPieces(grid) == KINGS
+          ? Tablebase.DRAW
+          : tablebase.probe(grid);
+        grid.unmakeMove();
+        Preconditions.checkState(result != Tablebase.UNKNOWN,
+          "Missing the tables after a move of %s", material);
+        if (Tablebase.isWin(result)) {
+          longestLoss = Math.max(longestLoss, result);
+        } else {
+          open++;
+          if (Tablebase.isLoss(result)) {
+            int win = result + 1;
+            captureWin = captureWin == NO_RESULT
+              ? win
+              : Math.min(captureWin, win);
+          }
+        }
+      }
+      longestLosses[index] = (byte) longestLoss;
+      openMoves[index] = (byte) open;
+      if (open == 0) {
+        updateResult(index, longestLoss + 1);
+      } else if (captureWin != NO_RESULT) {
+        captureWins[index] = (byte) captureWin;
+        maxResult = Math.max(maxResult, captureWin);
+      }
+    }
+
+    /**
+     * Adds the index a quiet move leads to and returns 1 if it is new, as
+     * moves into turned copies of a position spread back only once.
+     */
+    private int addNext(int move, int index) {
+      int from = PackedMove.from(move);
+      int slot = 0;
+      while (squares[slot] != from) {
+        slot++;
+      }
+      squares[slot] = PackedMove.to(move);
+      var nextTeam = Material.playingTeam(index) == Team.WHITE
+        ? Team.BLACK
+        : Team.WHITE;
+      int next = material.index(nextTeam, squares);
+      squares[slot] = from;
+      return addUnique(next) ? 1 : 0;
+    }
+
+    private boolean addUnique(int index) {
+      for (int known = 0; known < nextIndices; known++) {
+        if (indices[known] == index) {
+          return false;
+        }
+      }
+      indices[nextIndices++] = index;
+      return true;
+    }
+
+    private void updateResult(int index, int result) {
+      Preconditions.checkState(result <= MAX_RESULT,
+        "Mate of %s is too far", material);
+      results[index] = (byte) result;
+      maxResult = Math.max(maxResult, result);
+    }
+
+    /**
+     * Unmakes every move of the team that moved into the position, each
+     * leading to a position where that team is playing.
+     */
+    private void spreadResult(int index, int result) {
+      var playingTeam = Material.playingTeam(index);
+      var movedTeam = playingTeam == Team.WHITE ? Team.BLACK : Team.WHITE;
+      material.squares(Material.placement(index), squares);
+      long occupied = Bitboards.EMPTY;
+      for (int slot = 0; slot < squares.length; slot++) {
+        occupied |= Bitboards.bit(squares[slot]);
+      }
+      nextIndices = 0;
+      for (int slot = 0; slot < squares.length; slot++) {
+        if (material.team(slot) != movedTeam) {
+          continue;
+        }
+        int square = squares[slot];
+        for (long origins = calculateOrigins(slot, square, occupied);
+          origins != Bitboards.EMPTY;
+          origins = Bitboards.withoutFirstSquare(origins)) {
+          squares[slot] = Bitboards.firstSquare(origins);
+          int previous = material.index(movedTeam, squares);
+          if (addUnique(previous)) {
+            updatePrevious(previous, result);
+          }
+        }
+        squares[slot] = square;
+      }
+    }
+
+    private void updatePrevious(int index, int result) {
+      if ((legal[index / Long.SIZE] & 1L << index) == 0
+        || results[index] != NO_RESULT) {
+        return;
+      }
+      if (Tablebase.isLoss(result)) {
+        updateResult(index, result + 1);
+        return;
+      }
+      longestLosses[index] = (byte) Math.max(
+        Byte.toUnsignedInt(longestLosses[index]), result);
+      int open = Byte.toUnsignedInt(openMoves[index]) - 1;
+      openMoves[index] = (byte) open;
+      if (open == 0) {
+        updateResult(index, Byte.toUnsignedInt(longestLosses[index]) + 1);
+      }
+    }
+
+    // The empty fields a piece may have come from without capturing, a
+    // king never next to the other king and a pawn only walks straight
+    // and two fields from its starting column
+    private long calculateOrigins(int slot, int square, long occupied) {
+      if (material.type(slot) == PieceType.KING) {
+        return calculateAttacks(slot, square, occupied) & ~occupied
+          & ~AttackTables.kingAttacks(squares[KINGS - 1 - slot]);
+      }
+      if (material.type(slot) != PieceType.PAWN) {
+        return calculateAttacks(slot, square, occupied) & ~occupied;
+      }
+      boolean white = material.team(slot) == Team.WHITE;
+      int column = Bitboards.column(square);
+      int step = white ? -COLUMN_SQUARES : COLUMN_SQUARES;
+      if (column + (white ? -1 : 1) == (white ? 1 : 8)) {
+        return Bitboards.EMPTY;
+      }
+      long origins = Bitboards.bit(square + step) & ~occupied;
+      if (column == (white ? 4 : 5) && origins != Bitboards.EMPTY) {
+        origins |= Bitboards.bit(square + 2 * step) & ~occupied;
+      }
+      return origins;
+    }
+  }
+}
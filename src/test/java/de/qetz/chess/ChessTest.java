@@ -0,0 +1,52 @@
+package de.qetz.chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import de.qetz.chess.event.concrete.GameFinishedTrigger;
+import de.qetz.chess.game.DefaultChessGridFactory;
+
+public final class ChessTest {
+  private static final long TIMEOUT_SECONDS = 10;
+
+  @Test
+  public void testCompletion() throws Exception {
+    var chess = createChess();
+    var completion = chess.completion();
+    var draw = GameFinishedTrigger.createWith(
+      GameFinishedTrigger.GameFinishedReason.DRAW,
+      GameFinishedTrigger.GameWinner.NOBODY);
+    // Finished by another thread while this one waits
+    CompletableFuture.runAsync(() -> chess.finish(draw));
+    Assertions.assertSame(draw,
+      completion.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    Assertions.assertEquals(Chess.GameState.FINISHED, chess.state());
+  }
+
+  @Test
+  public void testFirstResultCounts() {
+    var chess = createChess();
+    chess.completion().cancel(false);
+    Assertions.assertEquals(Chess.GameState.RUNNING, chess.state());
+    var win = GameFinishedTrigger.createWith(
+      GameFinishedTrigger.GameFinishedReason.WIN,
+      GameFinishedTrigger.GameWinner.WHITE);
+    chess.finish(win);
+    chess.finish(GameFinishedTrigger.createWith(
+      GameFinishedTrigger.GameFinishedReason.DRAW,
+      GameFinishedTrigger.GameWinner.NOBODY));
+    Assertions.assertSame(win, chess.completion().join());
+  }
+
+  private Chess createChess() {
+    return Chess.newBuilder()
+      .withGrid(DefaultChessGridFactory.newFactory()
+        .withDefaultGrid()
+        .createGrid())
+      .withGameState(Chess.GameState.RUNNING)
+      .createChess();
+  }
+}
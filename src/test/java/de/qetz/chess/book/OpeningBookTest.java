@@ -0,0 +1,131 @@
+package de.qetz.chess.book;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.engine.TranspositionTable;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.engine.SearchLimits;
+import de.qetz.chess.engine.Search;
+import de.qetz.chess.game.Grid;
+
+public final class OpeningBookTest {
+  private static final List<String> ITALIAN_GAME = List.of(
+    "e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "e1g1");
+
+  @TempDir
+  static Path directory;
+  private static Path file;
+  private static OpeningBook book;
+
+  @BeforeAll
+  public static void buildBook() throws IOException {
+    file = directory.resolve("book.bin");
+    OpeningBookBuilder.createWithMaxPlies(OpeningBookBuilder.DEFAULT_MAX_PLIES)
+      .addGame(ITALIAN_GAME)
+      .addGame(List.of("e2e4", "c7c5", "g1f3"))
+      .addGame(List.of("d2d4", "d7d5"))
+      .write(file);
+    book = OpeningBook.open(file);
+  }
+
+  @Test
+  public void testEntries() throws IOException {
+    Assertions.assertEquals(11, book.entries());
+    Assertions.assertEquals(11L * OpeningBook.ENTRY_BYTES, Files.size(file));
+  }
+
+  @Test
+  public void testMostPlayedMove() {
+    var grid = createGrid();
+    Assertions.assertEquals("e2e4",
+      PackedMove.toNotation(book.findMove(grid, MoveList.create())));
+  }
+
+  @Test
+  public void testCastling() {
+    var grid = createGrid();
+    var moves = MoveList.create();
+    for (int ply = 0; ply < ITALIAN_GAME.size() - 1; ply++) {
+      grid.makeMove(findMove(grid, ITALIAN_GAME.get(ply)));
+    }
+    int castling = book.findMove(grid, moves);
+    Assertions.assertTrue(PackedMove.hasFlag(castling, PackedMove.CASTLING));
+    Assertions.assertEquals("e1g1", PackedMove.toNotation(castling));
+  }
+
+  private int findMove(Grid grid, String notation) {
+    var moves = MoveList.create();
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    for (int index = 0; index < moves.size(); index++) {
+      if (PackedMove.toNotation(moves.get(index)).equals(notation)) {
+        return moves.get(index);
+      }
+    }
+    throw new IllegalArgumentException(notation);
+  }
+
+  @Test
+  public void testUnknownPosition() {
+    var grid = createGrid();
+    grid.makeMove(findMove(grid, "a2a3"));
+    Assertions.assertEquals(PackedMove.NONE,
+      book.findMove(grid, MoveList.create()));
+  }
+
+  @Test
+  public void testIllegalBookMove() throws IOException {
+    var grid = createGrid();
+    // e2e5 weighs most, but only the lighter e2e4 is legal
+    int illegalMove = Bitboards.square(5, 5) | Bitboards.square(2, 5) << 6;
+    int legalMove = OpeningBook.encodeMove(findMove(grid, "e2e4"));
+    var entries = ByteBuffer.allocate(2 * OpeningBook.ENTRY_BYTES)
+      .putLong(grid.positionKey()).putShort((short) illegalMove)
+      .putShort((short) 10).putInt(0)
+      .putLong(grid.positionKey()).putShort((short) legalMove)
+      .putShort((short) 5).putInt(0);
+    var illegalFile = directory.resolve("illegal.bin");
+    Files.write(illegalFile, entries.array());
+    var illegalBook = OpeningBook.open(illegalFile);
+    Assertions.assertEquals("e2e4",
+      PackedMove.toNotation(illegalBook.findMove(grid, MoveList.create())));
+  }
+
+  @Test
+  public void testInvalidGame() {
+    var builder = OpeningBookBuilder.createWithMaxPlies(1);
+    Assertions.assertThrows(IllegalArgumentException.class,
+      () -> builder.addGame(List.of("e2e5")));
+    Assertions.assertEquals(0, builder.positions());
+  }
+
+  @Test
+  public void testSearchPlaysBookMove() {
+    var grid = createGrid();
+    var search = Search.createFor(grid, TranspositionTable.createWithSize(1));
+    search.updateOpeningBook(book);
+    var result = search.search(SearchLimits.newBuilder()
+      .withMaxDepth(4)
+      .createSearchLimits());
+    Assertions.assertEquals(0, result.nodes());
+    Assertions.assertEquals(PackedMove.toMove(findMove(grid, "e2e4")),
+      result.bestMove().orElseThrow());
+  }
+
+  private Grid createGrid() {
+    return DefaultChessGridFactory.newFactory()
+      .withDefaultGrid()
+      .createBitboardGrid();
+  }
+}
@@ -0,0 +1,92 @@
+package de.qetz.chess.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import de.qetz.chess.game.bitboard.PieceSquareTables;
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.perft.PerftPosition;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+public final class EvaluationTest {
+  private static final int PLAYED_MOVES = 40;
+
+  @Test
+  public void testStartIsEqual() {
+    var factory = DefaultChessGridFactory.newFactory().withDefaultGrid();
+    for (Grid grid :
+      List.of(factory.createGrid(), factory.createBitboardGrid())) {
+      Assertions.assertEquals(0, Evaluation.evaluate(grid));
+      Assertions.assertEquals(PieceSquareTables.MAX_PHASE, grid.phase());
+    }
+  }
+
+  @Test
+  public void testPlayingTeamView() {
+    var factory = PerftPosition.KIWIPETE.createFactory();
+    for (Grid grid :
+      List.of(factory.createGrid(), factory.createBitboardGrid())) {
+      int score = Evaluation.evaluate(grid);
+      grid.makeNullMove();
+      Assertions.assertEquals(-score, Evaluation.evaluate(grid));
+    }
+  }
+
+  @Test
+  public void testIncrementalScores() {
+    for (var position : PerftPosition.values()) {
+      var factory = position.createFactory();
+      assertIncrementalScores(factory.createGrid());
+      assertIncrementalScores(position.createFactory().createBitboardGrid());
+    }
+  }
+
+  private void assertIncrementalScores(Grid grid) {
+    int[] expected = recalculateScores(grid);
+    MoveList moves = MoveList.create();
+    int played = 0;
+    for (; played < PLAYED_MOVES; played++) {
+      moves.clear();
+      grid.listAllPossibleMovesForCurrentTeam(moves);
+      if (moves.isEmpty()) {
+        break;
+      }
+      grid.makeMove(moves.get((played * 7) % moves.size()));
+      assertScores(recalculateScores(grid), grid);
+    }
+    for (; played > 0; played--) {
+      grid.unmakeMove();
+    }
+    assertScores(expected, grid);
+  }
+
+  private void assertScores(int[] expected, Grid grid) {
+    Assertions.assertEquals(expected[0], grid.middlegameScore());
+    Assertions.assertEquals(expected[1], grid.endgameScore());
+    Assertions.assertEquals(expected[2], grid.phase());
+  }
+
+  private int[] recalculateScores(Grid grid) {
+    int[] scores = new int[3];
+    for (var team : Team.values()) {
+      for (var type : PieceType.values()) {
+        int piece = Bitboards.pieceIndex(team, type);
+        for (long board = grid.pieceBoard(team, type);
+          board != Bitboards.EMPTY;
+          board = Bitboards.withoutFirstSquare(board)) {
+          int square = Bitboards.firstSquare(board);
+          scores[0] += PieceSquareTables.middlegame(piece, square);
+          scores[1] += PieceSquareTables.endgame(piece, square);
+          scores[2] += PieceSquareTables.phase(piece);
+        }
+      }
+    }
+    return scores;
+  }
+}
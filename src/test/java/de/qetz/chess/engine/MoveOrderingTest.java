@@ -0,0 +1,75 @@
+package de.qetz.chess.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.piece.concrete.Pieces;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.perft.PerftPosition;
+import de.qetz.chess.game.piece.Team;
+
+public final class MoveOrderingTest {
+  private static final int MAX_MOVES = 256;
+
+  @Test
+  public void testMostValuableVictimFirst() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(1, 1), Team.WHITE);
+    placePiece(factory, PieceType.QUEEN, Position.of(4, 1), Team.WHITE);
+    placePiece(factory, PieceType.PAWN, Position.of(4, 4), Team.WHITE);
+    placePiece(factory, PieceType.QUEEN, Position.of(5, 5), Team.BLACK);
+    placePiece(factory, PieceType.PAWN, Position.of(5, 1), Team.BLACK);
+    placePiece(factory, PieceType.KING, Position.of(8, 8), Team.BLACK);
+    var grid = factory.createBitboardGrid();
+    var moves = MoveList.create();
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    int[] scores = new int[MAX_MOVES];
+    var ordering = MoveOrdering.create();
+    ordering.scoreMoves(grid, moves, scores, 0, PackedMove.NONE);
+
+    int first = ordering.selectMove(moves, scores, 0);
+    Assertions.assertEquals(Position.of(4, 4).index(), PackedMove.from(first));
+    Assertions.assertEquals(Position.of(5, 5).index(), PackedMove.to(first));
+    int second = ordering.selectMove(moves, scores, 1);
+    Assertions.assertEquals(Position.of(4, 1).index(),
+      PackedMove.from(second));
+    Assertions.assertEquals(Position.of(5, 1).index(), PackedMove.to(second));
+  }
+
+  @Test
+  public void testTableMoveFirst() {
+    var grid = PerftPosition.START.createFactory().createBitboardGrid();
+    var moves = MoveList.create();
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    int tableMove = moves.get(moves.size() - 1);
+    int[] scores = new int[MAX_MOVES];
+    var ordering = MoveOrdering.create();
+    ordering.scoreMoves(grid, moves, scores, 0, tableMove);
+    Assertions.assertEquals(tableMove, ordering.selectMove(moves, scores, 0));
+  }
+
+  @Test
+  public void testCutoffStatistics() {
+    var grid = PerftPosition.KIWIPETE.createFactory().createBitboardGrid();
+    var search = Search.createFor(grid, TranspositionTable.createWithSize(4));
+    search.search(SearchLimits.newBuilder()
+      .withMaxDepth(4)
+      .createSearchLimits());
+    var ordering = search.moveOrdering();
+    Assertions.assertTrue(ordering.cutoffs() > 0);
+    Assertions.assertTrue(ordering.firstMoveCutoffRate() > 0.8);
+  }
+
+  private void placePiece(
+    DefaultChessGridFactory factory,
+    PieceType type,
+    Position position,
+    Team team
+  ) {
+    factory.updatePiece(position, Pieces.createPiece(type, position, team));
+  }
+}
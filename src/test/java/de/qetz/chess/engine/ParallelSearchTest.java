@@ -0,0 +1,32 @@
+package de.qetz.chess.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.qetz.chess.perft.PerftPosition;
+
+public final class ParallelSearchTest {
+  private static final int TABLE_MEGABYTES = 4;
+  private static final int DEPTH = 4;
+
+  @Test
+  public void testSearchWithHelpers() {
+    var grid = PerftPosition.POSITION_4.createFactory().createBitboardGrid();
+    long key = grid.positionKey();
+    var limits = SearchLimits.newBuilder()
+      .withMaxDepth(DEPTH)
+      .createSearchLimits();
+    var search = ParallelSearch.createFor(grid,
+      TranspositionTable.createWithSize(TABLE_MEGABYTES));
+    var parallel = search.search(limits, 4);
+    search.shutdown();
+
+    // The helpers store deeper results, so the score may differ from the
+    // one of a single thread
+    var bestMove = parallel.bestMove().orElseThrow();
+    Assertions.assertEquals(DEPTH, parallel.depth());
+    Assertions.assertTrue(grid.listPossibleMovesForPiece(
+      bestMove.oldPosition()).contains(bestMove));
+    Assertions.assertEquals(key, grid.positionKey());
+  }
+}
@@ -0,0 +1,75 @@
+package de.qetz.chess.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.piece.concrete.Pieces;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.perft.PerftPosition;
+import de.qetz.chess.game.piece.Team;
+
+public final class PawnStructureTest {
+  @Test
+  public void testStartIsEqual() {
+    var grid = PerftPosition.START.createFactory().createBitboardGrid();
+    Assertions.assertEquals(0, PawnStructure.evaluate(grid));
+  }
+
+  @Test
+  public void testDoubledIsolatedPawns() {
+    var factory = createFactoryWithKings();
+    placePawn(factory, Position.of(2, 1), Team.WHITE);
+    placePawn(factory, Position.of(2, 2), Team.WHITE);
+    placePawn(factory, Position.of(7, 1), Team.BLACK);
+    placePawn(factory, Position.of(7, 2), Team.BLACK);
+    int healthy = PawnStructure.evaluate(factory.createBitboardGrid());
+    Assertions.assertEquals(0, healthy);
+
+    factory.removePiece(Position.of(2, 2));
+    placePawn(factory, Position.of(3, 1), Team.WHITE);
+    int weak = PawnStructure.evaluate(factory.createBitboardGrid());
+    Assertions.assertTrue(PawnStructure.middlegame(weak) < 0);
+    Assertions.assertTrue(PawnStructure.endgame(weak) < 0);
+  }
+
+  @Test
+  public void testPassedPawn() {
+    var factory = createFactoryWithKings();
+    placePawn(factory, Position.of(6, 4), Team.WHITE);
+    placePawn(factory, Position.of(7, 6), Team.BLACK);
+    int passed = PawnStructure.evaluate(factory.createBitboardGrid());
+    Assertions.assertTrue(PawnStructure.middlegame(passed) > 0);
+    Assertions.assertTrue(PawnStructure.endgame(passed) > 0);
+
+    placePawn(factory, Position.of(7, 5), Team.BLACK);
+    int blocked = PawnStructure.evaluate(factory.createBitboardGrid());
+    Assertions.assertTrue(PawnStructure.endgame(blocked)
+      < PawnStructure.endgame(passed));
+  }
+
+  private DefaultChessGridFactory createFactoryWithKings() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(1, 5), Team.WHITE);
+    placePiece(factory, PieceType.KING, Position.of(8, 5), Team.BLACK);
+    return factory;
+  }
+
+  private void placePawn(
+    DefaultChessGridFactory factory,
+    Position position,
+    Team team
+  ) {
+    placePiece(factory, PieceType.PAWN, position, team);
+  }
+
+  private void placePiece(
+    DefaultChessGridFactory factory,
+    PieceType type,
+    Position position,
+    Team team
+  ) {
+    factory.updatePiece(position, Pieces.createPiece(type, position, team));
+  }
+}
@@ -0,0 +1,39 @@
+package de.qetz.chess.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.perft.PerftPosition;
+
+public final class PawnTableTest {
+  private static final int TABLE_KILOBYTES = 16;
+  private static final int PLAYED_MOVES = 40;
+
+  @Test
+  public void testCachedScores() {
+    var table = PawnTable.createWithSize(TABLE_KILOBYTES);
+    var grid = PerftPosition.KIWIPETE.createFactory().createBitboardGrid();
+    var moves = MoveList.create();
+    for (int index = 0; index < PLAYED_MOVES; index++) {
+      Assertions.assertEquals(PawnStructure.evaluate(grid), table.score(grid));
+      Assertions.assertEquals(PawnStructure.evaluate(grid), table.score(grid));
+      grid.listAllPossibleMovesForCurrentTeam(moves);
+      if (moves.isEmpty()) {
+        break;
+      }
+      grid.makeMove(moves.get((index * 7) % moves.size()));
+    }
+    Assertions.assertTrue(table.hits() >= table.misses());
+    Assertions.assertTrue(table.hitRate() >= 0.5);
+  }
+
+  @Test
+  public void testBoundedSize() {
+    var table = PawnTable.createWithSize(TABLE_KILOBYTES);
+    Assertions.assertTrue(table.capacity() * (Long.BYTES + Integer.BYTES)
+      <= TABLE_KILOBYTES * 1024);
+    Assertions.assertThrows(IllegalArgumentException.class,
+      () -> PawnTable.createWithSize(0));
+  }
+}
@@ -0,0 +1,118 @@
+package de.qetz.chess.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.piece.concrete.Pieces;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.perft.PerftPosition;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.game.Grid;
+
+public final class SearchTest {
+  private static final int TABLE_MEGABYTES = 4;
+
+  @Test
+  public void testMateInOne() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(1, 7), Team.WHITE);
+    placePiece(factory, PieceType.ROOK, Position.of(1, 1), Team.WHITE);
+    placePiece(factory, PieceType.KING, Position.of(8, 7), Team.BLACK);
+    placePiece(factory, PieceType.PAWN, Position.of(7, 6), Team.BLACK);
+    placePiece(factory, PieceType.PAWN, Position.of(7, 7), Team.BLACK);
+    placePiece(factory, PieceType.PAWN, Position.of(7, 8), Team.BLACK);
+    var result = search(factory.createBitboardGrid(), 3);
+    Assertions.assertTrue(result.isMate());
+    Assertions.assertEquals(Search.MATE - 1, result.score());
+    var bestMove = result.bestMove().orElseThrow();
+    Assertions.assertEquals(Position.of(1, 1), bestMove.oldPosition());
+    Assertions.assertEquals(Position.of(8, 1), bestMove.newPosition());
+  }
+
+  @Test
+  public void testCapturesHangingQueen() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(1, 1), Team.WHITE);
+    placePiece(factory, PieceType.ROOK, Position.of(1, 4), Team.WHITE);
+    placePiece(factory, PieceType.QUEEN, Position.of(5, 4), Team.BLACK);
+    placePiece(factory, PieceType.KING, Position.of(8, 8), Team.BLACK);
+    for (Grid grid :
+      List.of(factory.createGrid(), factory.createBitboardGrid())) {
+      long key = grid.positionKey();
+      var result = search(grid, 4);
+      Assertions.assertEquals(Position.of(5, 4),
+        result.bestMove().orElseThrow().newPosition());
+      Assertions.assertEquals(4, result.depth());
+      Assertions.assertFalse(result.principalVariation().isEmpty());
+      Assertions.assertEquals(key, grid.positionKey());
+    }
+  }
+
+  @Test
+  public void testDefendedPawnNotCaptured() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(1, 1), Team.WHITE);
+    placePiece(factory, PieceType.QUEEN, Position.of(1, 4), Team.WHITE);
+    placePiece(factory, PieceType.PAWN, Position.of(5, 4), Team.BLACK);
+    placePiece(factory, PieceType.PAWN, Position.of(6, 5), Team.BLACK);
+    placePiece(factory, PieceType.KING, Position.of(8, 8), Team.BLACK);
+    var result = search(factory.createBitboardGrid(), 1);
+    Assertions.assertNotEquals(Position.of(5, 4),
+      result.bestMove().orElseThrow().newPosition());
+  }
+
+  @Test
+  public void testPruning() {
+    var factory = PerftPosition.POSITION_5.createFactory();
+    var limits = SearchLimits.newBuilder()
+      .withMaxDepth(4)
+      .createSearchLimits();
+    var pruned = Search.createFor(factory.createBitboardGrid(),
+      TranspositionTable.createWithSize(TABLE_MEGABYTES));
+    var unpruned = Search.createFor(factory.createBitboardGrid(),
+      TranspositionTable.createWithSize(TABLE_MEGABYTES));
+    unpruned.updatePruning(EnumSet.noneOf(Pruning.class));
+    var prunedResult = pruned.search(limits);
+    var unprunedResult = unpruned.search(limits);
+    Assertions.assertEquals(unprunedResult.bestMove(),
+      prunedResult.bestMove());
+    Assertions.assertTrue(prunedResult.nodes() < unprunedResult.nodes());
+  }
+
+  @Test
+  public void testNodeLimit() {
+    var grid = DefaultChessGridFactory.newFactory()
+      .withDefaultGrid()
+      .createBitboardGrid();
+    var result = Search.createFor(grid,
+      TranspositionTable.createWithSize(TABLE_MEGABYTES))
+      .search(SearchLimits.newBuilder()
+        .withMaxNodes(5_000)
+        .createSearchLimits());
+    Assertions.assertTrue(result.bestMove().isPresent());
+    Assertions.assertTrue(result.depth() < SearchLimits.MAX_DEPTH);
+    Assertions.assertTrue(result.nodes() <= 5_000);
+  }
+
+  private SearchResult search(Grid grid, int depth) {
+    return Search.createFor(grid,
+      TranspositionTable.createWithSize(TABLE_MEGABYTES))
+      .search(SearchLimits.newBuilder()
+        .withMaxDepth(depth)
+        .createSearchLimits());
+  }
+
+  private void placePiece(
+    DefaultChessGridFactory factory,
+    PieceType type,
+    Position position,
+    Team team
+  ) {
+    factory.updatePiece(position, Pieces.createPiece(type, position, team));
+  }
+}
@@ -0,0 +1,95 @@
+package de.qetz.chess.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.piece.concrete.Pieces;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.game.piece.Team;
+
+public final class StaticExchangeTest {
+  @Test
+  public void testUndefendedCapture() {
+    var factory = createFactoryWithKings();
+    placePiece(factory, PieceType.QUEEN, Position.of(1, 4), Team.WHITE);
+    placePiece(factory, PieceType.PAWN, Position.of(5, 4), Team.BLACK);
+    Assertions.assertEquals(100,
+      evaluate(factory, Position.of(1, 4), Position.of(5, 4)));
+  }
+
+  @Test
+  public void testDefendedCapture() {
+    var factory = createFactoryWithKings();
+    placePiece(factory, PieceType.ROOK, Position.of(1, 5), Team.WHITE);
+    placePiece(factory, PieceType.PAWN, Position.of(4, 4), Team.WHITE);
+    placePiece(factory, PieceType.KNIGHT, Position.of(5, 5), Team.BLACK);
+    placePiece(factory, PieceType.PAWN, Position.of(6, 6), Team.BLACK);
+    Assertions.assertEquals(-80,
+      evaluate(factory, Position.of(1, 5), Position.of(5, 5)));
+    Assertions.assertEquals(220,
+      evaluate(factory, Position.of(4, 4), Position.of(5, 5)));
+  }
+
+  @Test
+  public void testSliderBehindAttacker() {
+    var factory = createFactoryWithKings();
+    placePiece(factory, PieceType.ROOK, Position.of(1, 5), Team.WHITE);
+    placePiece(factory, PieceType.ROOK, Position.of(2, 5), Team.WHITE);
+    placePiece(factory, PieceType.PAWN, Position.of(5, 5), Team.BLACK);
+    placePiece(factory, PieceType.ROOK, Position.of(8, 5), Team.BLACK);
+    Assertions.assertEquals(100,
+      evaluate(factory, Position.of(2, 5), Position.of(5, 5)));
+  }
+
+  @Test
+  public void testKingRecapturesOnlyUndefended() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(1, 1), Team.WHITE);
+    placePiece(factory, PieceType.QUEEN, Position.of(2, 4), Team.WHITE);
+    placePiece(factory, PieceType.KNIGHT, Position.of(5, 4), Team.BLACK);
+    placePiece(factory, PieceType.KING, Position.of(6, 5), Team.BLACK);
+    Assertions.assertEquals(-580,
+      evaluate(factory, Position.of(2, 4), Position.of(5, 4)));
+    placePiece(factory, PieceType.ROOK, Position.of(1, 4), Team.WHITE);
+    Assertions.assertEquals(320,
+      evaluate(factory, Position.of(2, 4), Position.of(5, 4)));
+  }
+
+  private int evaluate(
+    DefaultChessGridFactory factory,
+    Position from,
+    Position to
+  ) {
+    var grid = factory.createBitboardGrid();
+    var moves = MoveList.create();
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    for (int index = 0; index < moves.size(); index++) {
+      int move = moves.get(index);
+      if (PackedMove.from(move) == from.index()
+        && PackedMove.to(move) == to.index()) {
+        return StaticExchange.create().evaluate(grid, move);
+      }
+    }
+    throw new IllegalArgumentException("Move not possible");
+  }
+
+  private DefaultChessGridFactory createFactoryWithKings() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(1, 1), Team.WHITE);
+    placePiece(factory, PieceType.KING, Position.of(8, 1), Team.BLACK);
+    return factory;
+  }
+
+  private void placePiece(
+    DefaultChessGridFactory factory,
+    PieceType type,
+    Position position,
+    Team team
+  ) {
+    factory.updatePiece(position, Pieces.createPiece(type, position, team));
+  }
+}
@@ -0,0 +1,79 @@
+package de.qetz.chess.engine;
+
+import org.junit.jupiter.api.Assertions;
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.List;
+
+import de.qetz.chess.game.position.PackedMove;
+
+public final class TranspositionTableTest {
+  @Test
+  public void testStoreAndProbe() {
+    var table = TranspositionTable.createWithSize(1);
+    int move = PackedMove.create(12, 28, PackedMove.DOUBLE_WALK);
+    table.store(42L, move, -315, 7, TranspositionTable.LOWER_BOUND);
+
+    long entry = table.probe(42L);
+    Assertions.assertNotEquals(TranspositionTable.NO_ENTRY, entry);
+    Assertions.assertEquals(move, TranspositionTable.move(entry));
+    Assertions.assertEquals(-315, TranspositionTable.score(entry));
+    Assertions.assertEquals(7, TranspositionTable.depth(entry));
+    Assertions.assertEquals(TranspositionTable.LOWER_BOUND,
+      TranspositionTable.bound(entry));
+    Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(43L));
+    Assertions.assertEquals(1, table.hits());
+    Assertions.assertEquals(1, table.misses());
+  }
+
+  @Test
+  public void testReplacesShallowestEntry() {
+    var table = TranspositionTable.createWithSize(1);
+    for (int depth = 1; depth <= 4; depth++) {
+      table.store(depth, PackedMove.NONE, 0, depth, TranspositionTable.EXACT);
+    }
+    table.store(5, PackedMove.NONE, 0, 9, TranspositionTable.EXACT);
+
+    Assertions.assertEquals(1, table.collisions());
+    Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(1));
+    Assertions.assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(2));
+    Assertions.assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(5));
+  }
+
+  private static final int THREADS = 4;
+  private static final int WRITES = 200_000;
+  private static final int KEYS = 1 << 15;
+
+  @Test
+  public void testConcurrentAccess() throws InterruptedException {
+    var table = TranspositionTable.createWithSize(1);
+    var corrupted = new AtomicBoolean();
+    Runnable writer = () -> {
+      var random = ThreadLocalRandom.current();
+      for (int index = 0; index < WRITES; index++) {
+        long key = random.nextLong(KEYS);
+        table.store(key, PackedMove.NONE, (int) key, 1,
+          TranspositionTable.EXACT);
+        long probed = random.nextLong(KEYS);
+        long entry = table.probe(probed);
+        if (entry != TranspositionTable.NO_ENTRY
+          && TranspositionTable.score(entry) != (int) probed) {
+          corrupted.set(true);
+        }
+      }
+    };
+    List<Thread> threads = Lists.newArrayList();
+    for (int index = 0; index < THREADS; index++) {
+      var thread = new Thread(writer);
+      thread.start();
+      threads.add(thread);
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    Assertions.assertFalse(corrupted.get());
+  }
+}
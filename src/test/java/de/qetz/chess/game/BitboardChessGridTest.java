@@ -0,0 +1,256 @@
+package de.qetz.chess.game;
+
+import org.junit.jupiter.api.Assertions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.qetz.chess.game.piece.concrete.Rook;
+import de.qetz.chess.game.bitboard.AttackMap;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.perft.PerftPosition;
+import de.qetz.chess.game.position.Move;
+import de.qetz.chess.game.piece.Team;
+
+public final class BitboardChessGridTest {
+  private static final int PLAYED_MOVES = 40;
+
+  @Test
+  public void testDefaultGridMoves() {
+    assertSameMoves(DefaultChessGridFactory.newFactory().withDefaultGrid());
+  }
+
+  @Test
+  public void testUpdatedGridMoves() {
+    assertSameMoves(DefaultChessGridFactory.newFactory()
+      .withDefaultGrid()
+      .removePiece(Position.of(2, 5))
+      .removePiece(Position.of(1, 6))
+      .removePiece(Position.of(1, 7))
+      .updatePiece(Position.of(3, 4), Rook.newBuilder()
+        .withPosition(Position.of(3, 4))
+        .withTeam(Team.BLACK)
+        .createRook()));
+  }
+
+  @Test
+  public void testCheckEvasions() {
+    var factory = DefaultChessGridFactory.newFactory()
+      .withDefaultGrid()
+      .removePiece(Position.of(2, 5))
+      .updatePiece(Position.of(4, 5), Rook.newBuilder()
+        .withPosition(Position.of(4, 5))
+        .withTeam(Team.BLACK)
+        .createRook());
+    Set<List<Position>> expected = Set.of(
+      List.of(Position.of(1, 4), Position.of(2, 5)),
+      List.of(Position.of(1, 6), Position.of(2, 5)),
+      List.of(Position.of(1, 7), Position.of(2, 5)));
+    for (Grid grid :
+      List.of(factory.createGrid(), factory.createBitboardGrid())) {
+      Assertions.assertTrue(grid.isInCheck());
+      Assertions.assertEquals(expected, listMoves(grid));
+    }
+  }
+
+  private Set<List<Position>> listMoves(Grid grid) {
+    return grid.listAllPossibleMovesForCurrentTeam().values().stream()
+      .flatMap(Collection::stream)
+      .map(move -> List.of(move.oldPosition(), move.newPosition()))
+      .collect(Collectors.toSet());
+  }
+
+  @Test
+  public void testCheckWithoutMoves() {
+    for (var position : PerftPosition.values()) {
+      var factory = position.createFactory();
+      for (Grid grid :
+        List.of(factory.createGrid(), factory.createBitboardGrid())) {
+        var moves = MoveList.create();
+        grid.listAllPossibleMovesForCurrentTeam(moves);
+        for (int index = 0; index < moves.size(); index++) {
+          grid.makeMove(moves.get(index));
+          boolean inCheck = grid.isInCheck();
+          grid.listAllPossibleMovesForCurrentTeam();
+          Assertions.assertEquals(grid.isInCheck(), inCheck, grid.toFen());
+          grid.unmakeMove();
+        }
+      }
+    }
+    Assertions.assertFalse(
+      AttackMap.isKingAttacked(Team.WHITE, new long[Bitboards.PIECES]));
+  }
+
+  @Test
+  public void testTranspositionKeys() {
+    var factory = DefaultChessGridFactory.newFactory().withDefaultGrid();
+    for (Grid grid :
+      List.of(factory.createGrid(), factory.createBitboardGrid())) {
+      long startKey = grid.positionKey();
+      grid.makeMove(findMove(grid, Position.of(1, 7), Position.of(3, 6)));
+      Assertions.assertNotEquals(startKey, grid.positionKey());
+      grid.makeMove(findMove(grid, Position.of(8, 7), Position.of(6, 6)));
+      grid.makeMove(findMove(grid, Position.of(3, 6), Position.of(1, 7)));
+      grid.makeMove(findMove(grid, Position.of(6, 6), Position.of(8, 7)));
+      Assertions.assertEquals(startKey, grid.positionKey());
+    }
+  }
+
+  @Test
+  public void testPawnKeys() {
+    var factory = DefaultChessGridFactory.newFactory().withDefaultGrid();
+    for (Grid grid :
+      List.of(factory.createGrid(), factory.createBitboardGrid())) {
+      long startKey = grid.pawnKey();
+      grid.makeMove(findMove(grid, Position.of(1, 7), Position.of(3, 6)));
+      Assertions.assertEquals(startKey, grid.pawnKey());
+      grid.makeMove(findMove(grid, Position.of(7, 4), Position.of(5, 4)));
+      Assertions.assertNotEquals(startKey, grid.pawnKey());
+      grid.unmakeMove();
+      Assertions.assertEquals(startKey, grid.pawnKey());
+    }
+  }
+
+  private Move findMove(Grid grid, Position from, Position to) {
+    return grid.listPossibleMovesForPiece(from).stream()
+      .filter(move -> move.newPosition().equals(to))
+      .findFirst()
+      .orElseThrow();
+  }
+
+  @Test
+  public void testUnmakeMove() {
+    var factory = DefaultChessGridFactory.newFactory().withDefaultGrid();
+    assertUnmakeRestoresMoves(factory.createGrid());
+    assertUnmakeRestoresMoves(factory.createBitboardGrid());
+  }
+
+  private void assertUnmakeRestoresMoves(Grid grid) {
+    List<Map<Position, Set<Move>>> history = Lists.newArrayList();
+    List<Team> teams = Lists.newArrayList();
+    List<Long> keys = Lists.newArrayList();
+    for (int index = 0; index < PLAYED_MOVES; index++) {
+      var moves = grid.listAllPossibleMovesForCurrentTeam();
+      var move = chooseMove(moves, index);
+      if (move == null) {
+        break;
+      }
+      history.add(normalize(moves));
+      teams.add(grid.playingTeam());
+      keys.add(grid.positionKey());
+      grid.makeMove(move);
+    }
+    for (int index = history.size() - 1; index >= 0; index--) {
+      grid.unmakeMove();
+      Assertions.assertEquals(teams.get(index), grid.playingTeam());
+      Assertions.assertEquals(keys.get(index), grid.positionKey());
+      Assertions.assertEquals(history.get(index),
+        normalize(grid.listAllPossibleMovesForCurrentTeam()));
+    }
+  }
+
+  @Test
+  public void testNullMove() {
+    var factory = DefaultChessGridFactory.newFactory().withDefaultGrid();
+    for (Grid grid :
+      List.of(factory.createGrid(), factory.createBitboardGrid())) {
+      grid.makeMove(findMove(grid, Position.of(2, 5), Position.of(4, 5)));
+      long key = grid.positionKey();
+      var moves = normalize(grid.listAllPossibleMovesForCurrentTeam());
+      grid.makeNullMove();
+      Assertions.assertEquals(Team.WHITE, grid.playingTeam());
+      Assertions.assertNotEquals(key, grid.positionKey());
+      grid.unmakeMove();
+      Assertions.assertEquals(Team.BLACK, grid.playingTeam());
+      Assertions.assertEquals(key, grid.positionKey());
+      Assertions.assertEquals(moves,
+        normalize(grid.listAllPossibleMovesForCurrentTeam()));
+    }
+  }
+
+  @Test
+  public void testCopy() {
+    var factory = DefaultChessGridFactory.newFactory().withDefaultGrid();
+    for (Grid grid :
+      List.of(factory.createGrid(), factory.createBitboardGrid())) {
+      for (int index = 0; index < PLAYED_MOVES / 4; index++) {
+        grid.makeMove(chooseMove(grid.listAllPossibleMovesForCurrentTeam(),
+          index));
+      }
+      var copy = grid.copy();
+      Assertions.assertEquals(grid.positionKey(), copy.positionKey());
+      Assertions.assertEquals(grid.playingTeam(), copy.playingTeam());
+      Assertions.assertEquals(
+        normalize(grid.listAllPossibleMovesForCurrentTeam()),
+        normalize(copy.listAllPossibleMovesForCurrentTeam()));
+      copy.makeMove(chooseMove(copy.listAllPossibleMovesForCurrentTeam(), 0));
+      Assertions.assertNotEquals(grid.positionKey(), copy.positionKey());
+      Assertions.assertEquals(listPackedMoves(grid.copy()),
+        listPackedMoves(grid));
+    }
+  }
+
+  private void assertSameMoves(DefaultChessGridFactory factory) {
+    Grid bitboardGrid = factory.createBitboardGrid();
+    Grid defaultGrid = factory.createGrid();
+    for (int index = 0; index < PLAYED_MOVES; index++) {
+      var expected = normalize(defaultGrid.listAllPossibleMovesForCurrentTeam());
+      var actual = normalize(bitboardGrid.listAllPossibleMovesForCurrentTeam());
+      Assertions.assertEquals(expected, actual);
+      Assertions.assertEquals(defaultGrid.playingTeam(),
+        bitboardGrid.playingTeam());
+      Assertions.assertEquals(listPackedMoves(defaultGrid),
+        listPackedMoves(bitboardGrid));
+      Assertions.assertEquals(defaultGrid.positionKey(),
+        bitboardGrid.positionKey());
+      Assertions.assertEquals(defaultGrid.pawnKey(), bitboardGrid.pawnKey());
+
+      var move = chooseMove(defaultGrid.listAllPossibleMovesForCurrentTeam(),
+        index);
+      if (move == null) {
+        return;
+      }
+      defaultGrid.executeMove(move);
+      bitboardGrid.executeMove(move);
+    }
+  }
+
+  private Map<Position, Set<Move>> normalize(
+    Map<Position, Collection<Move>> moves
+  ) {
+    Map<Position, Set<Move>> normalized = Maps.newHashMap();
+    moves.forEach((position, pieceMoves) ->
+      normalized.put(position, Sets.newHashSet(pieceMoves)));
+    return normalized;
+  }
+
+  private Set<Integer> listPackedMoves(Grid grid) {
+    MoveList moves = MoveList.create();
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    Set<Integer> packedMoves = Sets.newHashSet();
+    for (int index = 0; index < moves.size(); index++) {
+      packedMoves.add(moves.get(index));
+    }
+    return packedMoves;
+  }
+
+  private Move chooseMove(Map<Position, Collection<Move>> moves, int index) {
+    List<Move> allMoves = moves.values().stream()
+      .flatMap(Collection::stream)
+      .sorted(Comparator.comparing(Move::toString))
+      .collect(Collectors.toList());
+    return allMoves.isEmpty()
+      ? null
+      : allMoves.get((index * 7) % allMoves.size());
+  }
+}
@@ -0,0 +1,92 @@
+package de.qetz.chess.game;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import de.qetz.chess.game.bitboard.CastlingRights;
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.Bitboards;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.perft.PerftPosition;
+import de.qetz.chess.game.piece.Team;
+
+public final class DefaultChessGridFactoryTest {
+  @Test
+  public void testFenRoundTrip() {
+    for (var position : PerftPosition.values()) {
+      var factory = position.createFactory();
+      // The grids do not count moves
+      var fen = position.fen().replaceFirst(" \\d+ \\d+$", " 0 1");
+      for (Grid grid :
+        List.of(factory.createGrid(), factory.createBitboardGrid())) {
+        Assertions.assertEquals(fen, grid.toFen(), position.name());
+      }
+    }
+  }
+
+  @Test
+  public void testFenOfMove() {
+    var fen = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1";
+    var factory = DefaultChessGridFactory.newFactory();
+    for (Grid grid : List.of(factory.withDefaultGrid().createGrid(),
+      factory.withDefaultGrid().createBitboardGrid())) {
+      grid.makeMove(findMove(grid, "e2e4"));
+      Assertions.assertEquals(fen, grid.toFen());
+      for (Grid fenGrid : List.of(factory.withFen(fen).createGrid(),
+        factory.withFen(fen).createBitboardGrid())) {
+        Assertions.assertEquals(Team.BLACK, fenGrid.playingTeam());
+        Assertions.assertEquals(CastlingRights.ALL, fenGrid.castlingRights());
+        Assertions.assertEquals(Bitboards.square(3, 5),
+          fenGrid.enPassantSquare());
+        Assertions.assertEquals(grid.positionKey(), fenGrid.positionKey());
+      }
+    }
+  }
+
+  @Test
+  public void testEnPassantCapture() {
+    var factory = DefaultChessGridFactory.newFactory()
+      .withFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2");
+    for (Grid grid :
+      List.of(factory.createGrid(), factory.createBitboardGrid())) {
+      grid.makeMove(findMove(grid, "e5d6"));
+      Assertions.assertEquals("4k3/8/3P4/8/8/8/8/4K3 b - - 0 1",
+        grid.toFen());
+    }
+  }
+
+  @Test
+  public void testInvalidFen() {
+    var factory = DefaultChessGridFactory.newFactory();
+    for (var fen : List.of(
+      "",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+      "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+      "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e3 0 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 ",
+      "8/8/8/8/8/8/8/8 w - - 0 1",
+      "4k3/8/8/8/8/8/8/8 w - - 0 1",
+      "4k3/8/8/8/8/8/8/3KK3 w - - 0 1",
+      "4k3/8/8/8/8/8/8/4K2r b - - 0 1")) {
+      Assertions.assertThrows(IllegalArgumentException.class,
+        () -> factory.withFen(fen), fen);
+    }
+  }
+
+  private int findMove(Grid grid, String notation) {
+    var moves = MoveList.create();
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    for (int index = 0; index < moves.size(); index++) {
+      if (PackedMove.toNotation(moves.get(index)).equals(notation)) {
+        return moves.get(index);
+      }
+    }
+    throw new AssertionError("No move " + notation);
+  }
+}
@@ -0,0 +1,153 @@
+package de.qetz.chess.game;
+
+import org.junit.jupiter.api.Assertions;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import de.qetz.chess.game.position.PackedMove;
+import de.qetz.chess.game.bitboard.MoveTable;
+import de.qetz.chess.game.position.MoveList;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
+
+public final class SpecialMovesTest {
+  @Test
+  public void testPromotions() {
+    for (Grid grid : createGrids("3r4/4P3/8/8/8/8/k7/4K3 w - - 0 1")) {
+      Assertions.assertTrue(listMoves(grid).containsAll(Set.of(
+        "e7e8q", "e7e8r", "e7e8b", "e7e8n",
+        "e7d8q", "e7d8r", "e7d8b", "e7d8n")));
+      Assertions.assertFalse(listMoves(grid).contains("e7e8"));
+      grid.makeMove(findMove(grid, "e7d8n"));
+      Assertions.assertEquals("3N4/8/8/8/8/8/k7/4K3 b - - 0 1",
+        grid.toFen());
+      grid.unmakeMove();
+      Assertions.assertEquals("3r4/4P3/8/8/8/8/k7/4K3 w - - 0 1",
+        grid.toFen());
+    }
+  }
+
+  @Test
+  public void testEnPassantExpires() {
+    for (Grid grid : createGrids("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1")) {
+      Assertions.assertTrue(listMoves(grid).contains("e5d6"));
+      grid.makeMove(findMove(grid, "e1f1"));
+      grid.makeMove(findMove(grid, "e8f8"));
+      Assertions.assertFalse(listMoves(grid).contains("e5d6"));
+    }
+  }
+
+  @Test
+  public void testPinnedEnPassant() {
+    // Taking would clear the row between the king and the rook
+    for (Grid grid : createGrids("8/8/8/K2pP2r/8/8/8/4k3 w - d6 0 1")) {
+      Assertions.assertFalse(listMoves(grid).contains("e5d6"));
+      Assertions.assertTrue(listMoves(grid).contains("e5e6"));
+    }
+  }
+
+  @Test
+  public void testCastling() {
+    var fen = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1";
+    for (Grid grid : createGrids(fen)) {
+      grid.makeMove(findMove(grid, "e1g1"));
+      Assertions.assertEquals("r3k2r/8/8/8/8/8/8/R4RK1 b kq - 0 1",
+        grid.toFen());
+      grid.makeMove(findMove(grid, "e8c8"));
+      Assertions.assertEquals("2kr3r/8/8/8/8/8/8/R4RK1 w - - 0 1",
+        grid.toFen());
+      grid.unmakeMove();
+      grid.unmakeMove();
+      Assertions.assertEquals(fen, grid.toFen());
+    }
+  }
+
+  @Test
+  public void testCastlingThroughCheck() {
+    for (Grid grid : createGrids("4kr2/8/8/8/8/8/8/R3K2R w KQ - 0 1")) {
+      Assertions.assertFalse(listMoves(grid).contains("e1g1"));
+      Assertions.assertTrue(listMoves(grid).contains("e1c1"));
+    }
+    for (Grid grid : createGrids("4r1k1/8/8/8/8/8/8/R3K2R w KQ - 0 1")) {
+      Assertions.assertTrue(grid.isInCheck());
+      Assertions.assertFalse(listMoves(grid).contains("e1g1"));
+      Assertions.assertFalse(listMoves(grid).contains("e1c1"));
+    }
+  }
+
+  @Test
+  public void testBlockedCastling() {
+    for (Grid grid : createGrids("4k3/8/8/8/8/8/8/RN2K1NR w KQ - 0 1")) {
+      Assertions.assertFalse(listMoves(grid).contains("e1g1"));
+      Assertions.assertFalse(listMoves(grid).contains("e1c1"));
+    }
+  }
+
+  @Test
+  public void testLostCastlingRights() {
+    for (Grid grid : createGrids("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1")) {
+      grid.makeMove(findMove(grid, "h1h2"));
+      grid.makeMove(findMove(grid, "a8a7"));
+      grid.makeMove(findMove(grid, "h2h1"));
+      Assertions.assertEquals("4k2r/r7/8/8/8/8/8/R3K2R b Qk - 0 1",
+        grid.toFen());
+      grid.makeMove(findMove(grid, "a7a8"));
+      Assertions.assertEquals(Set.of("e1c1"),
+        Sets.intersection(listMoves(grid), Set.of("e1g1", "e1c1")));
+    }
+    for (Grid grid : createGrids("r3k2r/8/8/8/8/8/6B1/4K3 w kq - 0 1")) {
+      grid.makeMove(findMove(grid, "g2a8"));
+      Assertions.assertEquals("B3k2r/8/8/8/8/8/8/4K3 b k - 0 1",
+        grid.toFen());
+      Assertions.assertFalse(listMoves(grid).contains("e8c8"));
+      Assertions.assertTrue(listMoves(grid).contains("e8g8"));
+    }
+  }
+
+  @Test
+  public void testPreallocatedMoves() {
+    var grid = DefaultChessGridFactory.newFactory()
+      .withFen("2k5/4P3/8/8/8/8/8/R3K2R w KQ - 0 1")
+      .createGrid();
+    var kingMoves = grid.listPossibleMovesForPiece(Position.of(1, 5));
+    for (var castling : List.of(MoveTable.lookup(4, 6),
+      MoveTable.lookup(4, 2))) {
+      Assertions.assertTrue(
+        kingMoves.stream().anyMatch(move -> move == castling));
+    }
+    var pawnMoves = grid.listPossibleMovesForPiece(Position.of(7, 5));
+    for (var promotion : PieceType.PROMOTIONS) {
+      var move = MoveTable.lookupPromotion(52, 60, promotion);
+      Assertions.assertTrue(pawnMoves.stream().anyMatch(it -> it == move));
+    }
+  }
+
+  private List<Grid> createGrids(String fen) {
+    var factory = DefaultChessGridFactory.newFactory().withFen(fen);
+    return List.of(factory.createGrid(), factory.createBitboardGrid());
+  }
+
+  private Set<String> listMoves(Grid grid) {
+    var moves = MoveList.create();
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    Set<String> notations = Sets.newHashSet();
+    for (int index = 0; index < moves.size(); index++) {
+      notations.add(PackedMove.toNotation(moves.get(index)));
+    }
+    return notations;
+  }
+
+  private int findMove(Grid grid, String notation) {
+    var moves = MoveList.create();
+    grid.listAllPossibleMovesForCurrentTeam(moves);
+    for (int index = 0; index < moves.size(); index++) {
+      if (PackedMove.toNotation(moves.get(index)).equals(notation)) {
+        return moves.get(index);
+      }
+    }
+    throw new AssertionError("No move " + notation);
+  }
+}
@@ -1,5 +1,6 @@
 package de.qetz.chess.game.position;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.logging.Logger;
@@ -28,4 +29,26 @@ public final class PositionTest {
       LOG.severe(positionNotReachable.getMessage());
     }
   }
+
+  @Test
+  public void testInternedPositions() {
+    for (int index = 0; index < Position.FIELDS; index++) {
+      var position = Position.ofIndex(index);
+      Assertions.assertEquals(index, position.index());
+      Assertions.assertSame(position,
+        Position.of(position.column(), position.row()));
+    }
+  }
+
+  @Test
+  public void testPositionsOutOfGrid() {
+    var outOfGrid = Position.of(0, 9);
+    Assertions.assertEquals(Position.NO_INDEX, outOfGrid.index());
+    Assertions.assertEquals(Position.NO_INDEX, Position.UNREACHABLE.index());
+    Assertions.assertNotEquals(Position.of(1, 1), outOfGrid);
+    Assertions.assertNotEquals(Position.of(1, 1).hashCode(),
+      outOfGrid.hashCode());
+    Assertions.assertSame(Position.UNREACHABLE,
+      Position.of(8, 8).tryMove(Direction.FORWARD, 1));
+  }
 }
@@ -0,0 +1,34 @@
+package de.qetz.chess.perft;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import de.qetz.chess.game.Grid;
+
+public final class PerftTest {
+  private static final int DEPTH = 3;
+
+  @Test
+  public void testReferencePositions() {
+    for (var position : PerftPosition.values()) {
+      var factory = position.createFactory();
+      for (Grid grid :
+        List.of(factory.createGrid(), factory.createBitboardGrid())) {
+        Assertions.assertEquals(position.expectedNodes(DEPTH),
+          Perft.createFor(grid).countNodes(DEPTH), position.name());
+      }
+    }
+  }
+
+  @Test
+  public void testDivide() {
+    var grid = PerftPosition.KIWIPETE.createFactory().createBitboardGrid();
+    var divide = Perft.createFor(grid).divide(2);
+    Assertions.assertEquals(PerftPosition.KIWIPETE.expectedNodes(1),
+      divide.size());
+    Assertions.assertEquals(PerftPosition.KIWIPETE.expectedNodes(2),
+      divide.values().stream().mapToLong(Long::longValue).sum());
+  }
+}
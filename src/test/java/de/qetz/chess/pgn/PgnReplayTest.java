@@ -0,0 +1,134 @@
+package de.qetz.chess.pgn;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.position.MoveList;
+
+public final class PgnReplayTest {
+  private static final String GAMES = String.join("\n",
+    "[Event \"Opera Game\"]",
+    "[White \"Paul \\\"Morphy\\\"\"]",
+    "[Result \"1-0\"]",
+    "",
+    "1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move",
+    "[and a bracket on a new line]} 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6",
+    "7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5 (9... Qb4+ 10. Qxb4 {(}) 10. Nxb5!",
+    "cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 Qe6 $1",
+    "15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0",
+    "",
+    "[Event \"Promotion\"]",
+    "[SetUp \"1\"]",
+    "[FEN \"4k3/1P6/8/3pP3/8/8/8/4K3 w - d6 0 1\"]",
+    "",
+    "1. exd6 Kd7 2. b8=N+ Kxd6 3. Nc6 ; a line comment 1-0",
+    "*",
+    "",
+    "[Event \"Illegal\"]",
+    "",
+    "1. e4 e5 2. Ke3 *",
+    "");
+
+  @TempDir
+  public Path directory;
+
+  @Test
+  public void testReplayInOrder() throws IOException {
+    var file = writeGames();
+    var pool = new ForkJoinPool(2);
+    // A small buffer splits records and comments between reads
+    try (var reader = PgnReader.open(file, 7);
+      var replay = PgnReplay.createWithPool(pool).replay(reader)) {
+      var games = replay.collect(Collectors.toList());
+      Assertions.assertEquals(3, games.size());
+      for (int index = 0; index < games.size(); index++) {
+        Assertions.assertEquals(index + 1, games.get(index).number());
+      }
+
+      var opera = games.get(0);
+      Assertions.assertTrue(opera.isReplayed(), opera.toString());
+      Assertions.assertEquals(33, opera.plies());
+      Assertions.assertEquals("Paul \"Morphy\"", opera.tags().get("White"));
+      Assertions.assertEquals("1-0", opera.tag(PgnGame.RESULT_TAG).get());
+      Assertions.assertEquals("1n1Rkb1r/p4ppp/4q3/4p1B1/4P3/8/PPP2PPP/2K5 b k"
+        + " - 0 1", opera.fen());
+
+      var promotion = games.get(1);
+      Assertions.assertTrue(promotion.isReplayed(), promotion.toString());
+      Assertions.assertEquals(5, promotion.plies());
+      Assertions.assertEquals("8/8/2Nk4/8/8/8/8/4K3 b - - 0 1",
+        promotion.fen());
+
+      var illegal = games.get(2);
+      Assertions.assertFalse(illegal.isReplayed());
+      Assertions.assertEquals(2, illegal.plies());
+      Assertions.assertTrue(illegal.error().orElseThrow().contains("Ke3"));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private Path writeGames() throws IOException {
+    var file = directory.resolve("games.pgn");
+    Files.writeString(file, GAMES);
+    return file;
+  }
+
+  @Test
+  public void testBrokenPosition() throws IOException {
+    var file = directory.resolve("broken.pgn");
+    Files.writeString(file, String.join("\n",
+      "[Event \"Before\"]",
+      "",
+      "1. e4 *",
+      "",
+      "[Event \"No kings\"]",
+      "[FEN \"8/8/8/8/8/8/8/8 w - - 0 1\"]",
+      "",
+      "*",
+      "",
+      "[Event \"After\"]",
+      "",
+      "1. d4 d5 *",
+      ""));
+    var pool = new ForkJoinPool(2);
+    try (var replay = PgnReplay.createWithPool(pool).replay(file)) {
+      var games = replay.collect(Collectors.toList());
+      Assertions.assertEquals(3, games.size());
+      Assertions.assertEquals(1, games.get(0).plies());
+      Assertions.assertFalse(games.get(1).isReplayed());
+      Assertions.assertNull(games.get(1).fen());
+      Assertions.assertTrue(games.get(2).isReplayed());
+      Assertions.assertEquals(2, games.get(2).plies());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testSanNotation() {
+    var grid = DefaultChessGridFactory.newFactory()
+      .withFen("r3k2r/1P6/8/8/8/2N3N1/8/R3K2R w KQkq - 0 1")
+      .createBitboardGrid();
+    var moves = MoveList.create();
+    for (var notation : List.of("O-O", "0-0-0", "Nce4", "Nge4", "R1a3",
+      "bxa8=Q+", "b8N", "Kd1!?")) {
+      Assertions.assertNotEquals(0,
+        SanNotation.resolveMove(grid, moves, notation), notation);
+    }
+    for (var notation : List.of("Ne4", "N3e2", "b8", "Ke3", "Qd4",
+      "O-O-O-O", "")) {
+      Assertions.assertThrows(IllegalArgumentException.class,
+        () -> SanNotation.resolveMove(grid, moves, notation), notation);
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package de.qetz.chess.tablebase;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import de.qetz.chess.game.DefaultChessGridFactory;
+import de.qetz.chess.game.piece.concrete.Pieces;
+import de.qetz.chess.engine.TranspositionTable;
+import de.qetz.chess.game.position.Position;
+import de.qetz.chess.game.piece.PieceType;
+import de.qetz.chess.engine.SearchLimits;
+import de.qetz.chess.game.piece.Team;
+import de.qetz.chess.engine.Search;
+import de.qetz.chess.game.Grid;
+
+public final class TablebaseTest {
+  // The longest mates of the endings in plies
+  private static final int QUEEN_LONGEST_MATE = 19;
+  private static final int ROOK_LONGEST_MATE = 31;
+
+  @TempDir
+  static Path directory;
+  private static Tablebase tablebase;
+
+  @BeforeAll
+  public static void generateTables() throws IOException {
+    var generator = TablebaseGenerator.createFor(directory);
+    generator.generate(Material.of("KQvK"));
+    generator.generate(Material.of("KRvK"));
+    generator.generate(Material.of("KPvK"));
+    tablebase = Tablebase.openDirectory(directory);
+  }
+
+  @Test
+  public void testMaterial() {
+    var material = Material.of("KBNvK");
+    Assertions.assertEquals("KBNvK", material.name());
+    Assertions.assertEquals("KvKBN", material.mirror().name());
+    Assertions.assertEquals(4, material.pieces());
+    Assertions.assertTrue(Files.exists(directory.resolve("KBvK.qtb")));
+    Assertions.assertTrue(Files.exists(directory.resolve("KNvK.qtb")));
+  }
+
+  @Test
+  public void testMaterialLimit() {
+    var tooLarge = Assertions.assertThrows(IllegalArgumentException.class,
+      () -> Material.of("KQRvKBN"));
+    Assertions.assertEquals(
+      "Material KQRvKBN has 6 pieces, tables support at most 5",
+      tooLarge.getMessage());
+  }
+
+  @Test
+  public void testKingPairs() {
+    Assertions.assertEquals(462 * 64, Material.of("KQvK").placements());
+    Assertions.assertEquals(1806 * 64, Material.of("KPvK").placements());
+    Assertions.assertEquals(2 * 462 * 64 * 64 * 64,
+      Material.of("KQRvKR").size());
+  }
+
+  @Test
+  public void testTurnedPositions() {
+    var material = Material.of("KQRvK");
+    // The kings on the diagonal leave the decision to the queen on c2
+    int[] squares = new int[]{0, 18, 10, 63};
+    int index = material.index(Team.WHITE, squares);
+    for (int turn = 0; turn < 8; turn++) {
+      int[] turned = new int[squares.length];
+      for (int slot = 0; slot < squares.length; slot++) {
+        turned[slot] = turnSquare(squares[slot], turn);
+      }
+      Assertions.assertEquals(index, material.index(Team.WHITE, turned));
+    }
+  }
+
+  // Mirrors the rows, the columns and then swaps them by the bits of turn
+  private int turnSquare(int square, int turn) {
+    int row = square % 8;
+    int column = square / 8;
+    if ((turn & 1) != 0) {
+      row = 7 - row;
+    }
+    if ((turn & 2) != 0) {
+      column = 7 - column;
+    }
+    return (turn & 4) != 0 ? row * 8 + column : column * 8 + row;
+  }
+
+  @Test
+  public void testLongestMates() throws IOException {
+    Assertions.assertEquals(QUEEN_LONGEST_MATE, findLongestWin("KQvK"));
+    Assertions.assertEquals(ROOK_LONGEST_MATE, findLongestWin("KRvK"));
+  }
+
+  private int findLongestWin(String material) throws IOException {
+    var table = Tablebase.mapFile(directory.resolve(
+      material + Tablebase.FILE_EXTENSION));
+    int longest = 0;
+    for (int index = Tablebase.HEADER_BYTES; index < table.capacity();
+      index++) {
+      int result = Byte.toUnsignedInt(table.get(index));
+      if (Tablebase.isWin(result)) {
+        longest = Math.max(longest, Tablebase.plies(result));
+      }
+    }
+    return longest;
+  }
+
+  @Test
+  public void testMateInOne() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(6, 7), Team.WHITE);
+    placePiece(factory, PieceType.QUEEN, Position.of(7, 1), Team.WHITE);
+    placePiece(factory, PieceType.KING, Position.of(8, 8), Team.BLACK);
+    int result = tablebase.probe(factory.createBitboardGrid());
+    Assertions.assertTrue(Tablebase.isWin(result));
+    Assertions.assertEquals(1, Tablebase.plies(result));
+  }
+
+  @Test
+  public void testMirroredTable() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(3, 7), Team.BLACK);
+    placePiece(factory, PieceType.QUEEN, Position.of(2, 1), Team.BLACK);
+    placePiece(factory, PieceType.KING, Position.of(1, 8), Team.WHITE);
+    var grid = factory.createBitboardGrid();
+    grid.makeNullMove();
+    int result = tablebase.probe(grid);
+    Assertions.assertTrue(Tablebase.isWin(result));
+    Assertions.assertEquals(1, Tablebase.plies(result));
+  }
+
+  @Test
+  public void testPawnEnding() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(5, 5), Team.WHITE);
+    placePiece(factory, PieceType.PAWN, Position.of(6, 5), Team.WHITE);
+    placePiece(factory, PieceType.KING, Position.of(7, 5), Team.BLACK);
+    Assertions.assertEquals(Tablebase.DRAW,
+      tablebase.probe(factory.createBitboardGrid()));
+
+    factory.removePiece(Position.of(5, 5));
+    factory.removePiece(Position.of(7, 5));
+    placePiece(factory, PieceType.KING, Position.of(7, 5), Team.WHITE);
+    placePiece(factory, PieceType.KING, Position.of(8, 1), Team.BLACK);
+    Assertions.assertTrue(
+      Tablebase.isWin(tablebase.probe(factory.createBitboardGrid())));
+  }
+
+  // Takes minutes and a heap of 2 GB, run with -PfiveMen
+  @Test
+  @EnabledIfSystemProperty(named = "tablebase.fiveMen", matches = "true")
+  public void testFiveMen() throws IOException {
+    TablebaseGenerator.createFor(directory).generate(Material.of("KQRvKR"));
+    var fiveMen = Tablebase.openDirectory(directory);
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(6, 7), Team.WHITE);
+    placePiece(factory, PieceType.QUEEN, Position.of(7, 1), Team.WHITE);
+    placePiece(factory, PieceType.ROOK, Position.of(2, 2), Team.WHITE);
+    placePiece(factory, PieceType.KING, Position.of(8, 8), Team.BLACK);
+    placePiece(factory, PieceType.ROOK, Position.of(1, 1), Team.BLACK);
+    int result = fiveMen.probe(factory.createBitboardGrid());
+    Assertions.assertTrue(Tablebase.isWin(result));
+    Assertions.assertEquals(1, Tablebase.plies(result));
+
+    factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(6, 2), Team.WHITE);
+    placePiece(factory, PieceType.QUEEN, Position.of(7, 8), Team.WHITE);
+    placePiece(factory, PieceType.ROOK, Position.of(2, 7), Team.WHITE);
+    placePiece(factory, PieceType.KING, Position.of(8, 1), Team.BLACK);
+    placePiece(factory, PieceType.ROOK, Position.of(1, 8), Team.BLACK);
+    Assertions.assertEquals(result,
+      fiveMen.probe(factory.createBitboardGrid()));
+  }
+
+  @Test
+  public void testSearchUsesTablebase() {
+    var factory = DefaultChessGridFactory.newFactory().withEmptyGrid();
+    placePiece(factory, PieceType.KING, Position.of(1, 5), Team.WHITE);
+    placePiece(factory, PieceType.ROOK, Position.of(1, 1), Team.WHITE);
+    placePiece(factory, PieceType.KING, Position.of(5, 4), Team.BLACK);
+    Grid grid = factory.createBitboardGrid();
+    var search = Search.createFor(grid, TranspositionTable.createWithSize(1));
+    search.updateTablebase(tablebase);
+    var result = search.search(SearchLimits.newBuilder()
+      .withMaxDepth(2)
+      .createSearchLimits());
+    Assertions.assertTrue(result.isMate());
+    Assertions.assertTrue(result.score() > 0);
+  }
+
+  private void placePiece(
+    DefaultChessGridFactory factory,
+    PieceType type,
+    Position position,
+    Team team
+  ) {
+    var piece = Pieces.createPiece(type, position, team);
+    piece.undoMove(position, 1);
+    factory.updatePiece(position, piece);
+  }
+}